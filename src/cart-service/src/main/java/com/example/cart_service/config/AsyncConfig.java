@@ -0,0 +1,69 @@
+package com.example.cart_service.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executor for the asynchronous cart repository operations.
+ * Repository calls block on Redis or DynamoDB, so they get their own pool
+ * rather than the shared ForkJoin common pool. It runs as many calls at once
+ * as there are pooled Redis connections, since more threads would only wait
+ * for a connection; the rest queue here, where queue depth
+ * (executor.queued) and time spent waiting (executor.idle) are measured.
+ */
+@Configuration
+public class AsyncConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+    @Value("${cart.executor.threads:${spring.data.redis.jedis.pool.max-active:8}}")
+    private int threads;
+
+    @Value("${cart.executor.queue-capacity:256}")
+    private int queueCapacity;
+
+    /**
+     * Creates the repository executor.
+     * Uses virtual threads when spring.threads.virtual.enabled is set on Java 21,
+     * with the same limit on concurrent calls.
+     *
+     * @param environment The Spring environment
+     * @param meterRegistry The registry for the executor metrics
+     * @return The executor bean
+     */
+    @Bean(name = "cartExecutor")
+    public Executor cartExecutor(Environment environment, MeterRegistry meterRegistry) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("CartThread-");
+            executor.setVirtualThreads(true);
+            // Callers past the limit block until a call finishes, on their own (virtual) threads
+            executor.setConcurrencyLimit(threads);
+            logger.info("Cart repository executor: virtual threads, at most {} calls at once", threads);
+            return ExecutorServiceMetrics.monitor(meterRegistry, executor, "cartExecutor");
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("CartThread-");
+        // A full queue pushes back on the request thread instead of failing the call
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        logger.info("Cart repository executor: {} threads, queue of {}", threads, queueCapacity);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor.getThreadPoolExecutor(), "cartExecutor");
+    }
+}
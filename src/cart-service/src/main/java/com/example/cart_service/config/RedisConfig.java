@@ -11,6 +11,7 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import redis.clients.jedis.JedisPoolConfig;
 
@@ -32,17 +33,26 @@ public class RedisConfig {
     
     @Value("${spring.data.redis.timeout:2000}")
     private int timeout;
+
+    @Value("${spring.data.redis.jedis.pool.max-active:8}")
+    private int maxActive;
+
+    @Value("${cart.near-cache.enabled:true}")
+    private boolean nearCacheEnabled;
     
     /**
      * Configures a Jedis pool for Redis connections.
+     * The cart repository executor runs as many calls at once as this allows;
+     * the cart near cache's subscription holds one more connection of its own.
      * 
      * @return A configured JedisPoolConfig
      */
     @Bean
     public JedisPoolConfig jedisPoolConfig() {
         JedisPoolConfig config = new JedisPoolConfig();
-        config.setMaxTotal(8);
-        config.setMaxIdle(8);
+        int connections = nearCacheEnabled ? maxActive + 1 : maxActive;
+        config.setMaxTotal(connections);
+        config.setMaxIdle(connections);
         config.setMinIdle(0);
         return config;
     }
@@ -119,4 +129,19 @@ public class RedisConfig {
         
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates the container for Redis pub/sub subscriptions, used by the cart
+     * near cache to hear about cart changes. It resubscribes by itself after
+     * losing its connection.
+     *
+     * @param connectionFactory The Redis connection factory
+     * @return A RedisMessageListenerContainer
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
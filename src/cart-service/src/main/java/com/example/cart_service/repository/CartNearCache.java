@@ -0,0 +1,198 @@
+package com.example.cart_service.repository;
+
+import com.example.cart_service.model.Cart;
+import com.example.cart_service.model.CartItem;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Function;
+
+/**
+ * In-process cache of carts in front of Redis, bounded by Caffeine's
+ * W-TinyLFU eviction. Every change to a cart key in Redis, made by this
+ * replica or another one, arrives as a keyspace notification and drops
+ * that cart here.
+ *
+ * The cache is only used while that subscription is up. It is emptied
+ * whenever the subscription is made again, and entries also expire after
+ * a TTL, which bounds how long a lost notification can leave a stale cart.
+ */
+@Component
+@Profile("redis")
+public class CartNearCache implements MessageListener, SubscriptionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartNearCache.class);
+    private static final RedisSerializer<String> STRING = RedisSerializer.string();
+
+    private static final String NOTIFY_KEYSPACE_EVENTS = "notify-keyspace-events";
+    // Keyspace channel, for generic, hash, string, expired and evicted events
+    private static final String REQUIRED_EVENTS = "Kgh$xe";
+    private static final Topic CART_KEYSPACE = new PatternTopic("__keyspace@*__:cart:*");
+    private static final String CART_CHANNEL_PREFIX = "__:cart:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final boolean enabled;
+    private final boolean configureKeyspaceEvents;
+    private final Cache<String, Cart> carts;
+    private final Counter invalidations;
+
+    private volatile boolean subscribed;
+
+    public CartNearCache(RedisTemplate<String, Object> redisTemplate,
+                         RedisMessageListenerContainer listenerContainer,
+                         MeterRegistry meterRegistry,
+                         @Value("${cart.near-cache.enabled:true}") boolean enabled,
+                         @Value("${cart.near-cache.max-size:10000}") long maxSize,
+                         @Value("${cart.near-cache.ttl-ms:60000}") long ttlMs,
+                         @Value("${cart.near-cache.configure-keyspace-events:true}") boolean configureKeyspaceEvents) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.enabled = enabled;
+        this.configureKeyspaceEvents = configureKeyspaceEvents;
+        this.carts = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build(), "carts");
+        this.invalidations = Counter.builder("cart.near_cache.invalidations")
+                .description("Cached carts dropped because the cart changed in Redis")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to cart changes once the application is up. Without keyspace
+     * notifications other replicas' writes would go unseen, so the cache stays
+     * off if they cannot be turned on.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        if (!enabled) {
+            logger.info("Cart near cache is disabled");
+            return;
+        }
+        try {
+            if (configureKeyspaceEvents && !ensureKeyspaceEvents()) {
+                return;
+            }
+            listenerContainer.addMessageListener(this, CART_KEYSPACE);
+        } catch (Exception e) {
+            logger.warn("Cart near cache is off, could not subscribe to cart changes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the cart from the cache, loading it on a miss. Concurrent misses
+     * for the same user share one load, and a change notified while a cart is
+     * loading waits for the load and then drops it.
+     *
+     * @param userId The user ID
+     * @param loader Reads the cart from Redis
+     * @return A copy of the cart, which the caller may change
+     */
+    public Cart get(String userId, Function<String, Cart> loader) {
+        if (!subscribed || !listenerContainer.isListening()) {
+            return loader.apply(userId);
+        }
+        return copy(carts.get(userId, loader));
+    }
+
+    /**
+     * Drops a cart this replica has just changed, without waiting for its notification.
+     *
+     * @param userId The user ID
+     */
+    public void invalidate(String userId) {
+        carts.invalidate(userId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = STRING.deserialize(message.getChannel());
+        int at = channel.indexOf(CART_CHANNEL_PREFIX);
+        if (at < 0) {
+            return;
+        }
+        if (carts.asMap().remove(channel.substring(at + CART_CHANNEL_PREFIX.length())) != null) {
+            invalidations.increment();
+        }
+    }
+
+    @Override
+    public void onPatternSubscribed(byte[] pattern, long count) {
+        // Changes made while unsubscribed were missed, so start over
+        carts.invalidateAll();
+        subscribed = true;
+        logger.info("Cart near cache is on, subscribed to {}", STRING.deserialize(pattern));
+    }
+
+    @Override
+    public void onPatternUnsubscribed(byte[] pattern, long count) {
+        subscribed = false;
+        logger.warn("Cart near cache is off, unsubscribed from {}", STRING.deserialize(pattern));
+    }
+
+    /**
+     * Turns on the keyspace notifications the cache depends on, keeping any
+     * the server already sends.
+     */
+    private boolean ensureKeyspaceEvents() {
+        return Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+            Properties config = connection.serverCommands().getConfig(NOTIFY_KEYSPACE_EVENTS);
+            String current = config != null ? config.getProperty(NOTIFY_KEYSPACE_EVENTS, "") : "";
+
+            StringBuilder missing = new StringBuilder();
+            for (char event : REQUIRED_EVENTS.toCharArray()) {
+                // A stands for every event class, but not for the K or E channels
+                boolean covered = current.indexOf(event) >= 0 || (event != 'K' && current.indexOf('A') >= 0);
+                if (!covered) {
+                    missing.append(event);
+                }
+            }
+            if (missing.length() == 0) {
+                return true;
+            }
+
+            try {
+                connection.serverCommands().setConfig(NOTIFY_KEYSPACE_EVENTS, current + missing);
+                logger.info("Turned on Redis keyspace notifications '{}' for the cart near cache", missing);
+                return true;
+            } catch (Exception e) {
+                logger.warn("Cart near cache is off, Redis does not send keyspace notifications '{}' "
+                        + "and they could not be turned on: {}", missing, e.getMessage());
+                return false;
+            }
+        }));
+    }
+
+    private static Cart copy(Cart cart) {
+        List<CartItem> items = new ArrayList<>(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            items.add(new CartItem(item.getProductId(), item.getQuantity()));
+        }
+        return new Cart(cart.getUserId(), items);
+    }
+}
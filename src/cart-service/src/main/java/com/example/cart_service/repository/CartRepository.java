@@ -1,7 +1,10 @@
 package com.example.cart_service.repository;
 
+import com.example.cart_service.exception.CartServiceException;
 import com.example.cart_service.model.Cart;
+import com.example.cart_service.model.CartItem;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 
@@ -27,6 +30,80 @@ public interface CartRepository {
      */
     CompletableFuture<Cart> getCart(String userId);
 
+    /**
+     * Adds a quantity of a product to a user's cart.
+     * The default reads the cart, changes it and saves it back; stores that
+     * can change one item in place should override it.
+     *
+     * @param userId The user ID
+     * @param productId The product ID
+     * @param quantity The quantity to add
+     * @return A CompletableFuture containing the updated cart
+     */
+    default CompletableFuture<Cart> addItem(String userId, String productId, int quantity) {
+        return getCart(userId).thenCompose(cart -> {
+            cart.addItem(productId, quantity);
+            return saved(cart);
+        });
+    }
+
+    /**
+     * Sets the quantity of a product already in a user's cart, removing it at zero.
+     *
+     * @param userId The user ID
+     * @param productId The product ID
+     * @param quantity The new quantity
+     * @return A CompletableFuture containing the updated cart, or null if the product is not in the cart
+     */
+    default CompletableFuture<Cart> setItemQuantity(String userId, String productId, int quantity) {
+        return getCart(userId).thenCompose(cart -> {
+            CartItem existingItem = cart.findItemByProductId(productId);
+            if (existingItem == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (quantity == 0) {
+                cart.removeItem(productId);
+            } else {
+                existingItem.setQuantity(quantity);
+            }
+            return saved(cart);
+        });
+    }
+
+    /**
+     * Removes a product from a user's cart.
+     *
+     * @param userId The user ID
+     * @param productId The product ID
+     * @return A CompletableFuture containing the updated cart
+     */
+    default CompletableFuture<Cart> removeItem(String userId, String productId) {
+        return getCart(userId).thenCompose(cart -> {
+            cart.removeItem(productId);
+            return saved(cart);
+        });
+    }
+
+    /**
+     * Replaces everything in a user's cart, without reading it first.
+     *
+     * @param userId The user ID
+     * @param items The new cart items
+     * @return A CompletableFuture containing the updated cart
+     */
+    default CompletableFuture<Cart> replaceItems(String userId, List<CartItem> items) {
+        return saved(new Cart(userId, items));
+    }
+
+    private CompletableFuture<Cart> saved(Cart cart) {
+        return saveCart(cart).thenApply(saved -> {
+            if (!saved) {
+                throw new CartServiceException("Failed to save cart");
+            }
+            return cart;
+        });
+    }
+
     /**
      * Empties a user's cart.
      *
@@ -0,0 +1,45 @@
+package com.example.cart_service.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the cart scripts into Redis at startup, so the first cart calls do
+ * not miss with NOSCRIPT. If Redis is not reachable yet, EVALSHA falls back
+ * to EVAL and the scripts are loaded on first use instead.
+ */
+@Component
+@Profile("redis")
+public class CartScriptLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartScriptLoader.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public CartScriptLoader(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadScripts() {
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                for (RedisScript<?> script : CartScripts.ALL) {
+                    connection.scriptingCommands().scriptLoad(RedisSerializer.string().serialize(script.getScriptAsString()));
+                }
+                return null;
+            });
+            logger.info("Loaded {} cart scripts into Redis", CartScripts.ALL.size());
+        } catch (Exception e) {
+            logger.warn("Could not load cart scripts at startup, they will be loaded on first use: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.cart_service.repository;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The Lua scripts behind RedisCartRepository, one per cart operation.
+ * Each is the shared prelude in scripts/cart/prelude.lua followed by the
+ * operation, and replies with a status and then the cart as product ID,
+ * quantity pairs.
+ */
+@SuppressWarnings("rawtypes")
+final class CartScripts {
+
+    static final long OK = 1;
+    static final long NOT_IN_CART = 0;
+    static final long TOO_MANY_ITEMS = -1;
+
+    static final RedisScript<List> GET = load("get");
+    static final RedisScript<List> ADD_ITEM = load("add_item");
+    static final RedisScript<List> SET_ITEM_QUANTITY = load("set_item_quantity");
+    static final RedisScript<List> REMOVE_ITEM = load("remove_item");
+    static final RedisScript<List> REPLACE_ITEMS = load("replace_items");
+
+    static final List<RedisScript<List>> ALL = List.of(GET, ADD_ITEM, SET_ITEM_QUANTITY, REMOVE_ITEM, REPLACE_ITEMS);
+
+    private CartScripts() {
+    }
+
+    private static RedisScript<List> load(String name) {
+        return RedisScript.of(read("prelude") + "\n" + read(name), List.class);
+    }
+
+    private static String read(String name) {
+        try {
+            return StreamUtils.copyToString(
+                    new ClassPathResource("scripts/cart/" + name + ".lua").getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Missing cart script " + name, e);
+        }
+    }
+}
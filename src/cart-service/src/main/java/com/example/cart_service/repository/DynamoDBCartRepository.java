@@ -4,6 +4,7 @@ import com.example.cart_service.model.Cart;
 import com.example.cart_service.model.CartItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
@@ -14,6 +15,7 @@ import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
@@ -28,18 +30,22 @@ public class DynamoDBCartRepository /*implements CartRepository*/ {
     
     private final DynamoDbClient dynamoDbClient;
     private final String tableName;
+    private final Executor cartExecutor;
     
     /**
      * Constructor with DynamoDbClient and table name from configuration.
      *
      * @param dynamoDbClient The DynamoDB client
      * @param tableName The DynamoDB table name from configuration
+     * @param cartExecutor The executor the blocking DynamoDB calls run on
      */
     public DynamoDBCartRepository(
             DynamoDbClient dynamoDbClient,
-            @Value("${aws.dynamodb.table.name}") String tableName) {
+            @Value("${aws.dynamodb.table.name}") String tableName,
+            @Qualifier("cartExecutor") Executor cartExecutor) {
         this.dynamoDbClient = dynamoDbClient;
         this.tableName = tableName;
+        this.cartExecutor = cartExecutor;
         
         // Ensure the table exists
         createTableIfNotExists();
@@ -133,7 +139,7 @@ public class DynamoDBCartRepository /*implements CartRepository*/ {
                 logger.error("Failed to add item to cart in DynamoDB", e);
                 throw new RuntimeException("Failed to add item to cart: " + e.getMessage(), e);
             }
-        });
+        }, cartExecutor);
     }
 
     //@Override
@@ -170,7 +176,7 @@ public class DynamoDBCartRepository /*implements CartRepository*/ {
                 logger.error("Failed to get cart from DynamoDB", e);
                 throw new RuntimeException("Failed to get cart: " + e.getMessage(), e);
             }
-        });
+        }, cartExecutor);
     }
 
     //@Override
@@ -222,7 +228,7 @@ public class DynamoDBCartRepository /*implements CartRepository*/ {
                 logger.error("Failed to empty cart in DynamoDB", e);
                 throw new RuntimeException("Failed to empty cart: " + e.getMessage(), e);
             }
-        });
+        }, cartExecutor);
     }
 
     //@Override
@@ -1,18 +1,35 @@
 package com.example.cart_service.repository;
 
+import com.example.cart_service.exception.CartServiceException;
 import com.example.cart_service.model.Cart;
+import com.example.cart_service.model.CartItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Redis implementation of CartRepository.
+ * Each cart is a hash of product ID to quantity under cart:{userId}. Every
+ * operation is one of the Lua scripts in {@link CartScripts}, called with
+ * EVALSHA, so it checks, changes and reads the cart back atomically in one
+ * round trip. Carts saved by earlier versions as a JSON string under the
+ * same key are converted to a hash by whichever script touches them first.
+ * Reads go through {@link CartNearCache}, and every change drops the cart
+ * from it.
  */
 @Repository
 @Profile("redis")
@@ -21,16 +38,30 @@ public class RedisCartRepository implements CartRepository {
     private static final Logger logger = LoggerFactory.getLogger(RedisCartRepository.class);
     private static final String CART_KEY_PREFIX = "cart:";
     private static final long CART_EXPIRY = 10; // 10 days
+    private static final String CART_EXPIRY_SECONDS = Long.toString(TimeUnit.DAYS.toSeconds(CART_EXPIRY));
+    private static final RedisSerializer<String> STRING = RedisSerializer.string();
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final Executor cartExecutor;
+    private final CartNearCache nearCache;
+    private final String maxDistinctItems;
 
     /**
      * Constructor.
      *
      * @param redisTemplate The Redis template
+     * @param cartExecutor The executor the blocking Redis calls run on
+     * @param nearCache The in-process cache of carts
+     * @param maxDistinctItems The most different products a cart may hold, 0 for no limit
      */
-    public RedisCartRepository(RedisTemplate<String, Object> redisTemplate) {
+    public RedisCartRepository(RedisTemplate<String, Object> redisTemplate,
+                               @Qualifier("cartExecutor") Executor cartExecutor,
+                               CartNearCache nearCache,
+                               @Value("${cart.max-distinct-items:100}") int maxDistinctItems) {
         this.redisTemplate = redisTemplate;
+        this.cartExecutor = cartExecutor;
+        this.nearCache = nearCache;
+        this.maxDistinctItems = Integer.toString(maxDistinctItems);
     }
 
     /**
@@ -48,86 +79,61 @@ public class RedisCartRepository implements CartRepository {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 logger.debug("Getting cart for user: {}", userId);
-                
-                String cartKey = buildCartKey(userId);
-                Object result = redisTemplate.opsForValue().get(cartKey);
-                
-                logger.debug("Raw result from Redis for key {}: {}", cartKey, result);
-                
-                // Return an empty cart if none exists
-                if (result == null) {
-                    logger.debug("No cart found for user: {}, creating new empty cart", userId);
-                    return new Cart(userId);
-                }
-                
-                // Try to cast to Cart
-                try {
-                    if (result instanceof Cart) {
-                        logger.debug("Cart found for user: {}", userId);
-                        Cart cart = (Cart) result;
-                        
-                        // Ensure the cart has the correct user ID
-                        if (cart.getUserId() == null || !cart.getUserId().equals(userId)) {
-                            cart.setUserId(userId);
-                        }
-                        
-                        // Ensure items is never null
-                        if (cart.getItems() == null) {
-                            logger.warn("Items list is null for cart: {}", userId);
-                            cart.setItems(new ArrayList<>());
-                        }
-                        
-                        logger.debug("Retrieved cart for user: {} with {} items: {}", 
-                                userId, cart.getItems().size(), cart.getItems());
-                        return cart;
-                    } else {
-                        logger.warn("Retrieved object is not a Cart: {}, class: {}", 
-                                result, result.getClass().getName());
-                        // Create new empty cart
-                        return new Cart(userId);
-                    }
-                } catch (Exception e) {
-                    logger.error("Error casting result to Cart for user: {}", userId, e);
-                    // Return empty cart on error
-                    return new Cart(userId);
-                }
-                
+
+                Cart cart = nearCache.get(userId, id -> toCart(id, run(CartScripts.GET, id)));
+
+                logger.debug("Retrieved cart for user: {} with {} items: {}",
+                        userId, cart.getItems().size(), cart.getItems());
+                return cart;
+
             } catch (Exception e) {
                 logger.error("Failed to get cart for user: {}", userId, e);
                 // Instead of throwing, return an empty cart on error
                 return new Cart(userId);
             }
-        });
+        }, cartExecutor);
     }
-    
+
     @Override
     public CompletableFuture<Boolean> saveCart(Cart cart) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                if (cart == null || cart.getUserId() == null) {
-                    logger.warn("Attempted to save null or invalid cart");
+        if (cart == null || cart.getUserId() == null) {
+            logger.warn("Attempted to save null or invalid cart");
+            return CompletableFuture.completedFuture(false);
+        }
+        return replaceItems(cart.getUserId(), cart.getItems())
+                .thenApply(saved -> true)
+                .exceptionally(e -> {
+                    logger.error("Failed to save cart for user: {}", cart.getUserId(), e);
                     return false;
-                }
-                logger.debug("Saving cart for user: {} with {} items: {}", 
-                        cart.getUserId(), cart.getItems().size(), cart.getItems());
-
-                // Ensure items is never null
-                if (cart.getItems() == null) {
-                    cart.setItems(new ArrayList<>());
-                }
-                
-                String cartKey = buildCartKey(cart.getUserId());
-                redisTemplate.opsForValue().set(cartKey, cart);
-                redisTemplate.expire(cartKey, CART_EXPIRY, TimeUnit.DAYS);
-                
-                logger.debug("Cart saved successfully for user: {}", cart.getUserId());
-                return true;
-                
-            } catch (Exception e) {
-                logger.error("Failed to save cart for user: {}", cart.getUserId(), e);
-                return false;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Cart> replaceItems(String userId, List<CartItem> items) {
+        List<String> args = new ArrayList<>(2 + 2 * items.size());
+        args.add(maxDistinctItems);
+        for (CartItem item : items) {
+            if (item != null && item.getProductId() != null) {
+                args.add(item.getProductId());
+                args.add(Integer.toString(item.getQuantity()));
             }
-        });
+        }
+        return update(userId, CartScripts.REPLACE_ITEMS, args.toArray(new String[0]));
+    }
+
+    @Override
+    public CompletableFuture<Cart> addItem(String userId, String productId, int quantity) {
+        return update(userId, CartScripts.ADD_ITEM, productId, Integer.toString(quantity), maxDistinctItems);
+    }
+
+    @Override
+    public CompletableFuture<Cart> setItemQuantity(String userId, String productId, int quantity) {
+        return update(userId, CartScripts.SET_ITEM_QUANTITY, productId, Integer.toString(quantity));
+    }
+
+    @Override
+    public CompletableFuture<Cart> removeItem(String userId, String productId) {
+        return update(userId, CartScripts.REMOVE_ITEM, productId);
     }
 
     @Override
@@ -135,17 +141,69 @@ public class RedisCartRepository implements CartRepository {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 logger.debug("Deleting cart for user: {}", userId);
-                
+
                 String cartKey = buildCartKey(userId);
                 Boolean deleted = redisTemplate.delete(cartKey);
-                
+                nearCache.invalidate(userId);
+
                 logger.debug("Cart deleted successfully for user: {}", userId);
                 return deleted != null && deleted;
-                
+
             } catch (Exception e) {
                 logger.error("Failed to delete cart for user: {}", userId, e);
                 return false;
             }
-        });
+        }, cartExecutor);
+    }
+
+    /**
+     * Runs a changing script and maps its status: no cart if the item was not
+     * in it, an exception if the change would exceed the product limit.
+     */
+    private CompletableFuture<Cart> update(String userId, RedisScript<List> script, String... args) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<Object> reply;
+            try {
+                reply = run(script, userId, args);
+            } catch (Exception e) {
+                logger.error("Failed to update cart for user: {}", userId, e);
+                throw new CartServiceException("Failed to save cart", e);
+            } finally {
+                nearCache.invalidate(userId);
+            }
+
+            long status = (Long) reply.get(0);
+            if (status == CartScripts.NOT_IN_CART) {
+                return null;
+            }
+            if (status == CartScripts.TOO_MANY_ITEMS) {
+                throw new CartServiceException("Cart cannot hold more than " + maxDistinctItems + " different products");
+            }
+            return toCart(userId, reply);
+        }, cartExecutor);
+    }
+
+    /**
+     * Runs a cart script; ARGV[1] is always the TTL to refresh.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private List<Object> run(RedisScript<List> script, String userId, String... args) {
+        Object[] argv = new Object[args.length + 1];
+        argv[0] = CART_EXPIRY_SECONDS;
+        System.arraycopy(args, 0, argv, 1, args.length);
+        return redisTemplate.execute(script, STRING, (RedisSerializer) STRING, List.of(buildCartKey(userId)), argv);
+    }
+
+    /**
+     * Builds a cart from a script reply, ordered by product ID since a hash keeps no order.
+     */
+    private static Cart toCart(String userId, List<Object> reply) {
+        Map<String, Integer> quantities = new TreeMap<>();
+        for (int i = 1; i + 1 < reply.size(); i += 2) {
+            quantities.put((String) reply.get(i), Integer.parseInt((String) reply.get(i + 1)));
+        }
+        List<CartItem> items = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> items.add(new CartItem(productId, quantity)));
+        return new Cart(userId, items);
     }
-}
\ No newline at end of file
+}
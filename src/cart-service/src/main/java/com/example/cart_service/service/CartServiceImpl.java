@@ -56,20 +56,7 @@ public class CartServiceImpl implements CartService {
         
         logger.debug("Adding item to cart for user: {}, productId: {}, quantity: {}", userId, productId, quantity);
         
-        return cartRepository.getCart(userId)
-                .thenCompose(cart -> {
-                    // Add the item to the cart
-                    cart.addItem(productId, quantity);
-                    
-                    // Save the updated cart
-                    return cartRepository.saveCart(cart)
-                            .thenApply(saved -> {
-                                if (!saved) {
-                                    throw new CartServiceException("Failed to save cart");
-                                }
-                                return cart;
-                            });
-                });
+        return cartRepository.addItem(userId, productId, quantity);
     }
 
     @Override
@@ -88,33 +75,13 @@ public class CartServiceImpl implements CartService {
         
         logger.debug("Updating cart item for user: {}, productId: {}, quantity: {}", userId, productId, quantity);
         
-        return cartRepository.getCart(userId)
-                .thenCompose(cart -> {
-                    // Find the item in the cart
-                    CartItem existingItem = cart.findItemByProductId(productId);
-                    
-                    // If item not found, return an error
-                    if (existingItem == null) {
-                        return CompletableFuture.failedFuture(
-                                new CartServiceException("Item not found in cart: " + productId));
-                    }
-                    
-                    if (quantity == 0) {
-                        // Remove the item if quantity is 0
-                        cart.removeItem(productId);
-                    } else {
-                        // Update the quantity
-                        existingItem.setQuantity(quantity);
+        return cartRepository.setItemQuantity(userId, productId, quantity)
+                .thenApply(cart -> {
+                    // The repository returns no cart when the item is not in it
+                    if (cart == null) {
+                        throw new CartServiceException("Item not found in cart: " + productId);
                     }
-                    
-                    // Save the updated cart
-                    return cartRepository.saveCart(cart)
-                            .thenApply(saved -> {
-                                if (!saved) {
-                                    throw new CartServiceException("Failed to save cart");
-                                }
-                                return cart;
-                            });
+                    return cart;
                 });
     }
 
@@ -130,25 +97,7 @@ public class CartServiceImpl implements CartService {
         
         logger.debug("Removing item from cart for user: {}, productId: {}", userId, productId);
         
-        return cartRepository.getCart(userId)
-                .thenCompose(cart -> {
-                    // Remove the item from the cart
-                    boolean removed = cart.removeItem(productId);
-                    
-                    // If item not found, return the cart unchanged
-                    if (!removed) {
-                        logger.debug("Item not found in cart: {}, productId: {}", userId, productId);
-                    }
-                    
-                    // Save the updated cart
-                    return cartRepository.saveCart(cart)
-                            .thenApply(saved -> {
-                                if (!saved) {
-                                    throw new CartServiceException("Failed to save cart");
-                                }
-                                return cart;
-                            });
-                });
+        return cartRepository.removeItem(userId, productId);
     }
 
     @Override
@@ -159,20 +108,7 @@ public class CartServiceImpl implements CartService {
         
         logger.debug("Setting cart items for user: {}", userId);
         
-        return cartRepository.getCart(userId)
-                .thenCompose(cart -> {
-                    // Set the items in the cart
-                    cart.setItems(items);
-                    
-                    // Save the updated cart
-                    return cartRepository.saveCart(cart)
-                            .thenApply(saved -> {
-                                if (!saved) {
-                                    throw new CartServiceException("Failed to save cart");
-                                }
-                                return cart;
-                            });
-                });
+        return cartRepository.replaceItems(userId, items != null ? items : List.of());
     }
 
     @Override
@@ -183,20 +119,7 @@ public class CartServiceImpl implements CartService {
         
         logger.debug("Clearing cart for user: {}", userId);
         
-        return cartRepository.getCart(userId)
-                .thenCompose(cart -> {
-                    // Clear the cart
-                    cart.clear();
-                    
-                    // Save the updated cart
-                    return cartRepository.saveCart(cart)
-                            .thenApply(saved -> {
-                                if (!saved) {
-                                    throw new CartServiceException("Failed to save cart");
-                                }
-                                return cart;
-                            });
-                });
+        return cartRepository.replaceItems(userId, List.of());
     }
 
     @Override
@@ -0,0 +1,10 @@
+-- ARGV[2] product ID, ARGV[3] quantity to add, ARGV[4] most distinct products (0 for no limit)
+local productId, max = ARGV[2], tonumber(ARGV[4])
+if max > 0 and redis.call('HEXISTS', key, productId) == 0 and redis.call('HLEN', key) >= max then
+    return reply(TOO_MANY_ITEMS)
+end
+if redis.call('HINCRBY', key, productId, ARGV[3]) <= 0 then
+    redis.call('HDEL', key, productId)
+end
+touch()
+return reply(OK)
@@ -0,0 +1 @@
+return reply(OK)
@@ -0,0 +1,38 @@
+-- Shared by every cart script, which runs after it.
+-- KEYS[1] is the cart hash of product ID to quantity, ARGV[1] its TTL in seconds.
+local key = KEYS[1]
+local ttl = tonumber(ARGV[1])
+
+-- Carts saved before the hash layout are JSON strings: convert them in place,
+-- keeping the time they had left
+if redis.call('TYPE', key).ok == 'string' then
+    local remaining = redis.call('PTTL', key)
+    local ok, legacy = pcall(cjson.decode, redis.call('GET', key))
+    redis.call('DEL', key)
+    if ok and type(legacy) == 'table' and type(legacy.items) == 'table' then
+        for _, item in ipairs(legacy.items) do
+            local quantity = tonumber(item.quantity)
+            if type(item.productId) == 'string' and quantity and quantity > 0 then
+                redis.call('HINCRBY', key, item.productId, quantity)
+            end
+        end
+        if remaining > 0 then
+            redis.call('PEXPIRE', key, remaining)
+        else
+            redis.call('EXPIRE', key, ttl)
+        end
+    end
+end
+
+local function touch()
+    redis.call('EXPIRE', key, ttl)
+end
+
+-- Replies are a status followed by the cart as product ID, quantity pairs
+local OK, NOT_IN_CART, TOO_MANY_ITEMS = 1, 0, -1
+
+local function reply(status)
+    local cart = redis.call('HGETALL', key)
+    table.insert(cart, 1, status)
+    return cart
+end
@@ -0,0 +1,4 @@
+-- ARGV[2] product ID
+redis.call('HDEL', key, ARGV[2])
+touch()
+return reply(OK)
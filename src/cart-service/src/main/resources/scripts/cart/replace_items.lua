@@ -0,0 +1,23 @@
+-- ARGV[2] most distinct products (0 for no limit), then product ID, quantity pairs.
+-- Repeated products are added up and non-positive quantities dropped.
+local max = tonumber(ARGV[2])
+local quantities, count = {}, 0
+for i = 3, #ARGV - 1, 2 do
+    local productId, quantity = ARGV[i], tonumber(ARGV[i + 1])
+    if quantity and quantity > 0 then
+        if not quantities[productId] then
+            quantities[productId] = 0
+            count = count + 1
+        end
+        quantities[productId] = quantities[productId] + quantity
+    end
+end
+if max > 0 and count > max then
+    return reply(TOO_MANY_ITEMS)
+end
+redis.call('DEL', key)
+for productId, quantity in pairs(quantities) do
+    redis.call('HSET', key, productId, quantity)
+end
+touch()
+return reply(OK)
@@ -0,0 +1,12 @@
+-- ARGV[2] product ID, ARGV[3] new quantity; zero removes the item
+local productId, quantity = ARGV[2], tonumber(ARGV[3])
+if redis.call('HEXISTS', key, productId) == 0 then
+    return reply(NOT_IN_CART)
+end
+if quantity <= 0 then
+    redis.call('HDEL', key, productId)
+else
+    redis.call('HSET', key, productId, quantity)
+end
+touch()
+return reply(OK)
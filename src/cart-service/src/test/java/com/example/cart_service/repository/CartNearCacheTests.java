@@ -0,0 +1,170 @@
+package com.example.cart_service.repository;
+
+import com.example.cart_service.model.Cart;
+import com.example.cart_service.model.CartItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the near cache against a real Redis with keyspace notifications, and
+ * checks that writes from another replica drop cached carts, that the cache
+ * is bypassed while unsubscribed and emptied on subscribing, and that a
+ * change notified during a load is not lost.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CartNearCacheTests {
+
+    private static final RedisSerializer<String> STRING = RedisSerializer.string();
+
+    @Container
+    private static final GenericContainer<?> redis = TestRedis.container();
+
+    private static JedisConnectionFactory connectionFactory;
+    private static JedisConnectionFactory replicaConnectionFactory;
+    private static RedisMessageListenerContainer listenerContainer;
+    private static CartNearCache nearCache;
+    private static RedisCartRepository replica;
+
+    @BeforeAll
+    static void subscribe() throws InterruptedException {
+        connectionFactory = TestRedis.connectionFactory(redis);
+        RedisTemplate<String, Object> redisTemplate = TestRedis.template(connectionFactory);
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        nearCache = new CartNearCache(redisTemplate, listenerContainer, new SimpleMeterRegistry(), true, 100, 60000, true);
+        nearCache.subscribe();
+
+        // Another replica: its own connections, and no near cache
+        replicaConnectionFactory = TestRedis.connectionFactory(redis);
+        RedisTemplate<String, Object> replicaTemplate = TestRedis.template(replicaConnectionFactory);
+        CartNearCache uncached = new CartNearCache(replicaTemplate, new RedisMessageListenerContainer(),
+                new SimpleMeterRegistry(), false, 100, 60000, false);
+        replica = new RedisCartRepository(replicaTemplate, Runnable::run, uncached, 100);
+
+        CountingLoader probe = new CountingLoader();
+        // Loads every time until the subscription is up
+        awaitTrue(() -> cached("probe", probe));
+    }
+
+    @AfterAll
+    static void disconnect() throws Exception {
+        listenerContainer.destroy();
+        connectionFactory.destroy();
+        replicaConnectionFactory.destroy();
+    }
+
+    @Test
+    void writeByAnotherReplicaDropsTheCachedCart() throws InterruptedException {
+        CountingLoader loader = new CountingLoader();
+        nearCache.get("user-1", loader);
+        assertThat(cached("user-1", loader)).isTrue();
+
+        replica.addItem("user-1", "PRODUCT0", 1).join();
+
+        awaitTrue(() -> !cached("user-1", loader));
+    }
+
+    @Test
+    void cacheIsBypassedWhileUnsubscribed() {
+        CartNearCache unsubscribed = new CartNearCache(TestRedis.template(connectionFactory), listenerContainer,
+                new SimpleMeterRegistry(), true, 100, 60000, true);
+        CountingLoader loader = new CountingLoader();
+
+        unsubscribed.get("user-2", loader);
+        unsubscribed.get("user-2", loader);
+
+        assertThat(loader.loads).hasValue(2);
+    }
+
+    @Test
+    void subscribingAgainEmptiesTheCache() {
+        CountingLoader loader = new CountingLoader();
+        nearCache.get("user-3", loader);
+        assertThat(cached("user-3", loader)).isTrue();
+
+        byte[] pattern = STRING.serialize("__keyspace@*__:cart:*");
+        nearCache.onPatternUnsubscribed(pattern, 0);
+        try {
+            nearCache.get("user-3", loader);
+            assertThat(loader.loads).hasValue(2);
+        } finally {
+            nearCache.onPatternSubscribed(pattern, 1);
+        }
+        assertThat(cached("user-3", loader)).isFalse();
+    }
+
+    @Test
+    void changeNotifiedWhileLoadingDropsTheLoadedCart() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountingLoader loader = new CountingLoader();
+        Thread load = new Thread(() -> nearCache.get("user-4", userId -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return loader.apply(userId);
+        }));
+        load.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The notification for a write made after the loader read the cart
+        Thread notify = new Thread(() -> nearCache.onMessage(new DefaultMessage(
+                STRING.serialize("__keyspace@0__:cart:user-4"), STRING.serialize("hset")), null));
+        notify.start();
+        Thread.sleep(100);
+        release.countDown();
+        load.join(5000);
+        notify.join(5000);
+
+        assertThat(cached("user-4", loader)).isFalse();
+    }
+
+    // Whether the cart is served from the cache, without loading it
+    private static boolean cached(String userId, CountingLoader loader) {
+        int loads = loader.loads.get();
+        nearCache.get(userId, loader);
+        return loader.loads.get() == loads;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within 10s").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static final class CountingLoader implements Function<String, Cart> {
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public Cart apply(String userId) {
+            loads.incrementAndGet();
+            return new Cart(userId, List.of(new CartItem("PRODUCT0", 1)));
+        }
+    }
+}
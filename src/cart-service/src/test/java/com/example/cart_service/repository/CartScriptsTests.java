@@ -0,0 +1,158 @@
+package com.example.cart_service.repository;
+
+import com.example.cart_service.exception.CartServiceException;
+import com.example.cart_service.model.CartItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Runs the cart scripts against a real Redis and checks each status they
+ * reply with, both as the raw reply and as RedisCartRepository reads it,
+ * and that they still run once Redis has forgotten them.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SuppressWarnings("rawtypes")
+class CartScriptsTests {
+
+    private static final RedisSerializer<String> STRING = RedisSerializer.string();
+    private static final String TTL = "600";
+    private static final String MAX_DISTINCT_ITEMS = "2";
+
+    @Container
+    private static final GenericContainer<?> redis = TestRedis.container();
+
+    private static JedisConnectionFactory connectionFactory;
+    private static RedisTemplate<String, Object> redisTemplate;
+    private static RedisCartRepository repository;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = TestRedis.connectionFactory(redis);
+        redisTemplate = TestRedis.template(connectionFactory);
+        CartNearCache nearCache = new CartNearCache(redisTemplate, new RedisMessageListenerContainer(),
+                new SimpleMeterRegistry(), false, 100, 60000, false);
+        repository = new RedisCartRepository(redisTemplate, Runnable::run, nearCache, Integer.parseInt(MAX_DISTINCT_ITEMS));
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void flush() {
+        TestRedis.flushAll(redisTemplate);
+    }
+
+    @Test
+    void addPastTheLimitIsTooManyItems() {
+        run(CartScripts.ADD_ITEM, "A", "1", MAX_DISTINCT_ITEMS);
+        run(CartScripts.ADD_ITEM, "B", "1", MAX_DISTINCT_ITEMS);
+
+        List<Object> reply = run(CartScripts.ADD_ITEM, "C", "1", MAX_DISTINCT_ITEMS);
+        assertThat(reply).containsExactlyInAnyOrder(CartScripts.TOO_MANY_ITEMS, "A", "1", "B", "1");
+
+        // A product already in the cart does not count again
+        assertThat(run(CartScripts.ADD_ITEM, "A", "1", MAX_DISTINCT_ITEMS).get(0)).isEqualTo(CartScripts.OK);
+
+        assertThatThrownBy(() -> repository.addItem("user-1", "C", 1).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(CartServiceException.class);
+        assertThat(repository.getCart("user-1").join().getItems())
+                .extracting(CartItem::getProductId, CartItem::getQuantity)
+                .containsExactly(tuple("A", 2), tuple("B", 1));
+    }
+
+    @Test
+    void addBringingTheQuantityToZeroOrBelowRemovesTheItem() {
+        run(CartScripts.ADD_ITEM, "A", "2", MAX_DISTINCT_ITEMS);
+        run(CartScripts.ADD_ITEM, "B", "1", MAX_DISTINCT_ITEMS);
+
+        assertThat(run(CartScripts.ADD_ITEM, "A", "-2", MAX_DISTINCT_ITEMS)).containsExactly(CartScripts.OK, "B", "1");
+        assertThat(run(CartScripts.ADD_ITEM, "B", "-5", MAX_DISTINCT_ITEMS)).containsExactly(CartScripts.OK);
+        assertThat(redisTemplate.hasKey("cart:user-1")).isFalse();
+    }
+
+    @Test
+    void settingAnItemNotInTheCartIsNotInCart() {
+        run(CartScripts.ADD_ITEM, "A", "1", MAX_DISTINCT_ITEMS);
+
+        assertThat(run(CartScripts.SET_ITEM_QUANTITY, "B", "3")).containsExactly(CartScripts.NOT_IN_CART, "A", "1");
+        assertThat(repository.setItemQuantity("user-1", "B", 3).join()).isNull();
+
+        assertThat(run(CartScripts.SET_ITEM_QUANTITY, "A", "3")).containsExactly(CartScripts.OK, "A", "3");
+        assertThat(run(CartScripts.SET_ITEM_QUANTITY, "A", "0")).containsExactly(CartScripts.OK);
+    }
+
+    @Test
+    void replaceAddsUpRepeatedProductsAndDropsNonPositiveOnes() {
+        run(CartScripts.ADD_ITEM, "OLD", "1", MAX_DISTINCT_ITEMS);
+
+        List<Object> reply = run(CartScripts.REPLACE_ITEMS, MAX_DISTINCT_ITEMS, "A", "1", "B", "0", "A", "2", "C", "-1");
+        assertThat(reply).containsExactly(CartScripts.OK, "A", "3");
+
+        // Three different products are over the limit and leave the cart as it was
+        reply = run(CartScripts.REPLACE_ITEMS, MAX_DISTINCT_ITEMS, "A", "1", "B", "1", "C", "1");
+        assertThat(reply).containsExactly(CartScripts.TOO_MANY_ITEMS, "A", "3");
+    }
+
+    @Test
+    void scriptsAreLoadedAtStartupAndRunAgainAfterAFlush() {
+        flushScripts();
+        assertThat(scriptsExist()).containsOnly(false);
+
+        new CartScriptLoader(redisTemplate).loadScripts();
+        assertThat(scriptsExist()).containsOnly(true);
+
+        // EVALSHA answered NOSCRIPT: the script is sent with EVAL instead
+        flushScripts();
+        assertThat(repository.addItem("user-1", "A", 1).join().getItems())
+                .extracting(CartItem::getProductId, CartItem::getQuantity)
+                .containsExactly(tuple("A", 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> run(RedisScript<List> script, String... args) {
+        Object[] argv = new Object[args.length + 1];
+        argv[0] = TTL;
+        System.arraycopy(args, 0, argv, 1, args.length);
+        return redisTemplate.execute(script, STRING, (RedisSerializer) STRING, List.of("cart:user-1"), argv);
+    }
+
+    private static void flushScripts() {
+        scripting(scripting -> {
+            scripting.scriptFlush();
+            return null;
+        });
+    }
+
+    private static List<Boolean> scriptsExist() {
+        String[] shas = CartScripts.ALL.stream().map(RedisScript::getSha1).toArray(String[]::new);
+        return scripting(scripting -> scripting.scriptExists(shas));
+    }
+
+    private static <T> T scripting(Function<RedisScriptingCommands, T> command) {
+        return redisTemplate.execute((RedisCallback<T>) connection -> command.apply(connection.scriptingCommands()));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.cart_service.repository;
+
+import com.example.cart_service.model.Cart;
+import com.example.cart_service.model.CartItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Runs RedisCartRepository against a real Redis: concurrent changes to one
+ * cart, carts that end up empty, and carts left in the old JSON layout.
+ * The near cache is off, so every read goes to Redis.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisCartRepositoryTests {
+
+    private static final RedisSerializer<String> STRING = RedisSerializer.string();
+
+    @Container
+    private static final GenericContainer<?> redis = TestRedis.container();
+
+    private static JedisConnectionFactory connectionFactory;
+    private static RedisTemplate<String, Object> redisTemplate;
+    private static ExecutorService executor;
+    private static RedisCartRepository repository;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = TestRedis.connectionFactory(redis);
+        redisTemplate = TestRedis.template(connectionFactory);
+        executor = Executors.newFixedThreadPool(8);
+        CartNearCache nearCache = new CartNearCache(redisTemplate, new RedisMessageListenerContainer(),
+                new SimpleMeterRegistry(), false, 100, 60000, false);
+        repository = new RedisCartRepository(redisTemplate, executor, nearCache, 100);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        executor.shutdownNow();
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void flush() {
+        TestRedis.flushAll(redisTemplate);
+    }
+
+    @Test
+    void overlappingAddsLoseNoUpdate() {
+        List<CompletableFuture<Cart>> adds = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            adds.add(repository.addItem("user-1", "PRODUCT" + (i % 4), 1));
+        }
+        CompletableFuture.allOf(adds.toArray(new CompletableFuture[0])).join();
+
+        assertThat(repository.getCart("user-1").join().getItems())
+                .extracting(CartItem::getProductId, CartItem::getQuantity)
+                .containsExactly(
+                        tuple("PRODUCT0", 50),
+                        tuple("PRODUCT1", 50),
+                        tuple("PRODUCT2", 50),
+                        tuple("PRODUCT3", 50));
+    }
+
+    @Test
+    void emptiedOrDeletedCartLeavesNoKey() {
+        repository.addItem("user-1", "PRODUCT0", 2).join();
+        assertThat(repository.deleteCart("user-1").join()).isTrue();
+        assertThat(redisTemplate.hasKey("cart:user-1")).isFalse();
+
+        repository.addItem("user-2", "PRODUCT0", 2).join();
+        Cart emptied = repository.replaceItems("user-2", List.of()).join();
+        assertThat(emptied.getItems()).isEmpty();
+        assertThat(redisTemplate.hasKey("cart:user-2")).isFalse();
+    }
+
+    @Test
+    void legacyJsonCartIsConvertedOnFirstReadAndKeepsItsTtl() {
+        String legacy = "{\"userId\":\"user-1\",\"items\":[{\"productId\":\"PRODUCT1\",\"quantity\":3},"
+                + "{\"productId\":\"PRODUCT0\",\"quantity\":1}]}";
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.stringCommands().setEx(STRING.serialize("cart:user-1"), 3600, STRING.serialize(legacy));
+            return null;
+        });
+
+        Cart cart = repository.getCart("user-1").join();
+
+        assertThat(cart.getItems()).extracting(CartItem::getProductId, CartItem::getQuantity)
+                .containsExactly(
+                        tuple("PRODUCT0", 1),
+                        tuple("PRODUCT1", 3));
+        assertThat(redisTemplate.type("cart:user-1")).isEqualTo(DataType.HASH);
+        assertThat(redisTemplate.getExpire("cart:user-1", TimeUnit.SECONDS)).isBetween(3500L, 3600L);
+    }
+}
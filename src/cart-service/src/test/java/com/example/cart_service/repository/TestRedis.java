@@ -0,0 +1,49 @@
+package com.example.cart_service.repository;
+
+import com.example.cart_service.config.RedisConfig;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * A throwaway Redis in Docker for the repository tests, with templates set
+ * up the way RedisConfig sets up the application's.
+ */
+final class TestRedis {
+
+    private static final int PORT = 6379;
+
+    private TestRedis() {
+    }
+
+    static GenericContainer<?> container() {
+        return new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(PORT);
+    }
+
+    /**
+     * A connection pool of its own, as another replica of the service would have.
+     */
+    static JedisConnectionFactory connectionFactory(GenericContainer<?> redis) {
+        JedisConnectionFactory factory = new JedisConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(PORT)));
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+
+    static RedisTemplate<String, Object> template(RedisConnectionFactory connectionFactory) {
+        RedisConfig config = new RedisConfig();
+        return config.redisTemplate(connectionFactory, config.redisObjectMapper());
+    }
+
+    static void flushAll(RedisTemplate<String, Object> redisTemplate) {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+}
@@ -4,9 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 import org.springframework.core.env.Environment;
-import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 public class CheckoutServiceApplication {
@@ -24,10 +22,4 @@ public class CheckoutServiceApplication {
                     env.getProperty("server.servlet.context-path", ""),
                     java.time.LocalDateTime.now());
 	}
-
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
-
 }
@@ -0,0 +1,120 @@
+package com.example.checkout_service.config;
+
+/**
+ * Concurrency limit that adapts to measured latency, AIMD style: every request
+ * that finishes within the latency threshold while the limit is in use raises
+ * the limit by about one per limit's worth of requests, and every request that
+ * is slower, or ends in a timeout, cuts it by the backoff ratio.
+ * Bulk traffic may only hold a share of the limit, so interactive checkouts
+ * still get in while a batch or a wave of retries is running.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    public enum Priority {
+        INTERACTIVE,
+        BULK
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final double bulkShare;
+
+    private double limit;
+    private int inFlight;
+    private int bulkInFlight;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                      long latencyThresholdNanos, double bulkShare) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.bulkShare = bulkShare;
+        this.limit = initialLimit;
+    }
+
+    // Returns null when the request should be turned away
+    public synchronized Permit tryAcquire(Priority priority) {
+        int current = getLimit();
+        if (inFlight >= current) {
+            return null;
+        }
+        if (priority == Priority.BULK) {
+            if (bulkInFlight >= Math.max(1, (int) (current * bulkShare))) {
+                return null;
+            }
+            bulkInFlight++;
+        }
+        inFlight++;
+        return new Permit(priority, inFlight, System.nanoTime());
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private synchronized void release(Permit permit, boolean sample, boolean timedOut, long latencyNanos) {
+        inFlight--;
+        if (permit.priority == Priority.BULK) {
+            bulkInFlight--;
+        }
+        if (!sample) {
+            return;
+        }
+
+        if (timedOut || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (permit.inFlightAtStart * 2 >= limit) {
+            // Only grow while the limit is what holds requests back
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    /**
+     * One admitted request. Released exactly once, with or without a latency sample.
+     */
+    public final class Permit {
+        private final Priority priority;
+        private final int inFlightAtStart;
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(Priority priority, int inFlightAtStart, long startNanos) {
+            this.priority = priority;
+            this.inFlightAtStart = inFlightAtStart;
+            this.startNanos = startNanos;
+        }
+
+        // Feeds the request's latency, or its timeout, to the limit
+        public void release(boolean timedOut) {
+            release(true, timedOut);
+        }
+
+        // For requests whose latency says nothing about load, such as batches
+        public void releaseWithoutSample() {
+            release(false, false);
+        }
+
+        private void release(boolean sample, boolean timedOut) {
+            synchronized (AdaptiveConcurrencyLimiter.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                AdaptiveConcurrencyLimiter.this.release(this, sample, timedOut, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
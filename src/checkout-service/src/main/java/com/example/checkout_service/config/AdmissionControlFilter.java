@@ -0,0 +1,185 @@
+package com.example.checkout_service.config;
+
+import com.example.checkout_service.config.AdaptiveConcurrencyLimiter.Permit;
+import com.example.checkout_service.config.AdaptiveConcurrencyLimiter.Priority;
+import com.example.checkout_service.dto.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Admits checkout requests up to an adaptive concurrency limit and answers
+ * the rest with 503 and Retry-After straight away, instead of letting them
+ * queue on Tomcat. Batches and retries (an X-Retry-Attempt above zero) count
+ * as bulk traffic. Batch latency says nothing about load, so batches hold a
+ * slot until their stream ends but do not move the limit. A single order
+ * answered asynchronously, as on the reactive path, is sampled when its
+ * response completes.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "checkout.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private static final String CHECKOUT_PATH = "/api/v1/checkout/";
+    private static final String BATCH_PATH = "/api/v1/checkout/orders/batch";
+    private static final String RETRY_ATTEMPT_HEADER = "X-Retry-Attempt";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final String retryAfterSeconds;
+    private final Map<Priority, Counter> rejectedCounters = new EnumMap<>(Priority.class);
+
+    public AdmissionControlFilter(ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${checkout.admission.initial-limit:20}") int initialLimit,
+                                  @Value("${checkout.admission.min-limit:4}") int minLimit,
+                                  @Value("${checkout.admission.max-limit:200}") int maxLimit,
+                                  @Value("${checkout.admission.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${checkout.admission.latency-threshold-ms:2000}") long latencyThresholdMs,
+                                  @Value("${checkout.admission.bulk-share:0.5}") double bulkShare,
+                                  @Value("${checkout.admission.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio,
+                latencyThresholdMs * 1_000_000L, bulkShare);
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+
+        Gauge.builder("checkout.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current concurrency limit of checkout requests")
+                .register(meterRegistry);
+        Gauge.builder("checkout.admission.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Checkout requests being processed")
+                .register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            rejectedCounters.put(priority, Counter.builder("checkout.admission.rejected")
+                    .description("Checkout requests turned away because the concurrency limit was reached")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !request.getRequestURI().startsWith(CHECKOUT_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Priority priority = priorityOf(request);
+        Permit permit = limiter.tryAcquire(priority);
+        if (permit == null) {
+            rejectedCounters.get(priority).increment();
+            logger.debug("Rejecting {} {} ({}): concurrency limit {} reached",
+                    request.getMethod(), request.getRequestURI(), priority, limiter.getLimit());
+            reject(request, response);
+            return;
+        }
+
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                async = true;
+                request.getAsyncContext().addListener(
+                        new ReleaseOnCompletion(permit, !BATCH_PATH.equals(request.getRequestURI())));
+            }
+        } finally {
+            if (!async) {
+                permit.release(response.getStatus() == HttpStatus.GATEWAY_TIMEOUT.value());
+            }
+        }
+    }
+
+    private static Priority priorityOf(HttpServletRequest request) {
+        if (BATCH_PATH.equals(request.getRequestURI())) {
+            return Priority.BULK;
+        }
+        String attempt = request.getHeader(RETRY_ATTEMPT_HEADER);
+        if (attempt != null) {
+            try {
+                if (Integer.parseInt(attempt.trim()) > 0) {
+                    return Priority.BULK;
+                }
+            } catch (NumberFormatException e) {
+                // An unreadable attempt count is treated as a first attempt
+            }
+        }
+        return Priority.INTERACTIVE;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "OVERLOADED",
+                "Checkout is at capacity, retry later",
+                request.getRequestURI());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private static final class ReleaseOnCompletion implements AsyncListener {
+        private final Permit permit;
+        private final boolean sampled;
+
+        private ReleaseOnCompletion(Permit permit, boolean sampled) {
+            this.permit = permit;
+            this.sampled = sampled;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (sampled) {
+                HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+                permit.release(response.getStatus() == HttpStatus.GATEWAY_TIMEOUT.value());
+            } else {
+                permit.releaseWithoutSample();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            if (sampled) {
+                permit.release(true);
+            } else {
+                permit.releaseWithoutSample();
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.releaseWithoutSample();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.checkout_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executor used to fan out downstream calls while placing an order.
+ * The pool and its queue are bounded; when both are full the calling
+ * request thread runs the task itself instead of failing it.
+ * With spring.threads.virtual.enabled on Java 21 each task gets its own
+ * virtual thread instead, since the tasks only block on I/O.
+ * Either way tasks carry the caller's observation, so their spans and the
+ * trace headers on their downstream calls stay in the request's trace.
+ * Hedged reads get an executor of their own without a queue: their callers
+ * often run on the checkout executor and wait for them, so sharing its queue
+ * could leave every worker waiting on a task queued behind it.
+ * The outbox runs its post-payment steps on a third executor, so a backlog of
+ * retries never takes threads from orders being placed.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    @Value("${checkout.executor.core-size:16}")
+    private int corePoolSize;
+
+    @Value("${checkout.executor.max-size:64}")
+    private int maxPoolSize;
+
+    @Value("${checkout.executor.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${checkout.hedge.max-threads:64}")
+    private int hedgeMaxThreads;
+
+    @Value("${checkout.outbox.concurrency:8}")
+    private int outboxConcurrency;
+
+    @Bean(name = "checkoutExecutor")
+    public Executor checkoutExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("CheckoutThread-");
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("CheckoutThread-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        executor.initialize();
+        return executor;
+    }
+
+    // Rejects once all threads are busy, and the read then runs unhedged on its caller
+    @Bean(name = "hedgeExecutor")
+    public Executor hedgeExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("HedgeThread-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(hedgeMaxThreads);
+            executor.setRejectTasksWhenLimitReached(true);
+            executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(0);
+        executor.setMaxPoolSize(hedgeMaxThreads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("HedgeThread-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        executor.initialize();
+        return executor;
+    }
+
+    // The dispatcher hands over at most one batch at a time, so the queue stays bounded by the batch size
+    @Bean(name = "outboxExecutor")
+    public Executor outboxExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("OutboxThread-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(outboxConcurrency);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(outboxConcurrency);
+        executor.setMaxPoolSize(outboxConcurrency);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("OutboxThread-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.checkout_service.config;
+
+import com.example.checkout_service.util.RequestDeadline;
+import io.micrometer.context.ContextRegistry;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Deadline propagation: the request deadline follows tasks onto the checkout
+ * executor through the same context snapshot that carries the trace, and
+ * every RestTemplate built from the shared builder sends it downstream.
+ */
+@Configuration
+public class DeadlineConfig {
+
+    public DeadlineConfig() {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(RequestDeadline.CONTEXT_KEY,
+                RequestDeadline::get, RequestDeadline::set, RequestDeadline::clear);
+    }
+
+    @Bean
+    public RestTemplateCustomizer deadlineRestTemplateCustomizer() {
+        return restTemplate -> restTemplate.getInterceptors().add(new DeadlineInterceptor());
+    }
+}
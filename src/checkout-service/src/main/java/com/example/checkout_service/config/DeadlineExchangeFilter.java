@@ -0,0 +1,44 @@
+package com.example.checkout_service.config;
+
+import com.example.checkout_service.exception.DeadlineExceededException;
+import com.example.checkout_service.util.RequestDeadline;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * The WebClient counterpart of DeadlineInterceptor. The deadline comes from
+ * the Reactor context rather than the thread, and the wait for a response is
+ * cut to what is left of it, since no call on the reactive path holds a
+ * thread that a socket timeout could release.
+ */
+public class DeadlineExchangeFilter implements ExchangeFilterFunction {
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.deferContextual(context -> {
+            Long deadline = context.getOrDefault(RequestDeadline.CONTEXT_KEY, null);
+            if (deadline == null) {
+                return next.exchange(request);
+            }
+
+            String call = request.method() + " " + request.url().getPath();
+            long remainingMs = deadline - System.currentTimeMillis();
+            if (remainingMs <= 0) {
+                return Mono.error(new DeadlineExceededException("Request deadline passed before " + call));
+            }
+
+            ClientRequest withDeadline = ClientRequest.from(request)
+                    .header(RequestDeadline.HEADER, Long.toString(deadline))
+                    .build();
+            return next.exchange(withDeadline)
+                    .timeout(Duration.ofMillis(remainingMs))
+                    .onErrorMap(e -> !(e instanceof DeadlineExceededException) && System.currentTimeMillis() >= deadline,
+                            e -> new DeadlineExceededException("Request deadline passed during " + call, e));
+        });
+    }
+}
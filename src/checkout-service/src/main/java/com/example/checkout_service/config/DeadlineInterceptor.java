@@ -0,0 +1,40 @@
+package com.example.checkout_service.config;
+
+import com.example.checkout_service.exception.DeadlineExceededException;
+import com.example.checkout_service.util.RequestDeadline;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Sends the current request's deadline with each downstream call and refuses
+ * to start a call once it has passed. A call that fails after the deadline,
+ * typically because its response timeout was cut to the remaining budget,
+ * is reported as a missed deadline rather than as a failure of the service.
+ */
+public class DeadlineInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Long deadline = RequestDeadline.get();
+        if (deadline == null) {
+            return execution.execute(request, body);
+        }
+
+        RequestDeadline.check(request.getMethod() + " " + request.getURI().getPath());
+        request.getHeaders().set(RequestDeadline.HEADER, Long.toString(deadline));
+        try {
+            return execution.execute(request, body);
+        } catch (IOException e) {
+            if (RequestDeadline.isExpired()) {
+                throw new DeadlineExceededException(
+                        "Request deadline passed during " + request.getMethod() + " " + request.getURI().getPath(), e);
+            }
+            throw e;
+        }
+    }
+}
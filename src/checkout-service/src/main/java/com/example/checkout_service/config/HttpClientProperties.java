@@ -0,0 +1,91 @@
+package com.example.checkout_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the HTTP client shared by every downstream service client.
+ * read from application.properties (http.client.*)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientProperties {
+
+    private int maxTotal = 200;
+    private int maxPerRoute = 50;
+    private long connectTimeoutMs = 1000;
+    private long readTimeoutMs = 5000;
+    private long leaseTimeoutMs = 500;
+    private long idleTimeoutMs = 30000;
+    private boolean http2 = false;
+
+    // Pool limit per downstream service, keyed by the name used in services.<name>.url
+    private Map<String, Integer> routeLimits = new HashMap<>();
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(long connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public long getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+
+    public void setReadTimeoutMs(long readTimeoutMs) {
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    public long getLeaseTimeoutMs() {
+        return leaseTimeoutMs;
+    }
+
+    public void setLeaseTimeoutMs(long leaseTimeoutMs) {
+        this.leaseTimeoutMs = leaseTimeoutMs;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    public Map<String, Integer> getRouteLimits() {
+        return routeLimits;
+    }
+
+    public void setRouteLimits(Map<String, Integer> routeLimits) {
+        this.routeLimits = routeLimits;
+    }
+}
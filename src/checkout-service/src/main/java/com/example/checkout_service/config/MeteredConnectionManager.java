@@ -0,0 +1,59 @@
+package com.example.checkout_service.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Connection pool that records how long callers wait to lease a connection
+ * and how often a lease gives up because the pool is exhausted.
+ */
+class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private final Timer leaseTimer;
+    private final Counter exhaustedCounter;
+
+    MeteredConnectionManager(MeterRegistry meterRegistry) {
+        this.leaseTimer = Timer.builder("http.client.pool.lease")
+                .description("Time spent waiting for a pooled connection")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("http.client.pool.exhausted")
+                .description("Lease attempts that timed out because every connection was in use")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        LeaseRequest delegate = super.lease(id, route, requestTimeout, state);
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                long start = System.nanoTime();
+                try {
+                    return delegate.get(timeout);
+                } catch (TimeoutException e) {
+                    exhaustedCounter.increment();
+                    throw e;
+                } finally {
+                    leaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return delegate.cancel();
+            }
+        };
+    }
+}
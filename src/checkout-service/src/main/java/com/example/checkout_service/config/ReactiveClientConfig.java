@@ -0,0 +1,78 @@
+package com.example.checkout_service.config;
+
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * WebClient used by the reactive service clients, on a Reactor Netty pool
+ * sized from the same http.client properties as the blocking client. Reactor
+ * Netty keeps one pool per destination, so max-per-route and the route limits
+ * apply as they do there; there is no cap across destinations.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveClientConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveClientConfig.class);
+
+    private final HttpClientProperties properties;
+
+    public ReactiveClientConfig(HttpClientProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider reactiveConnectionProvider(Environment env) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("downstream")
+                .maxConnections(properties.getMaxPerRoute())
+                .pendingAcquireTimeout(Duration.ofMillis(properties.getLeaseTimeoutMs()))
+                .maxIdleTime(Duration.ofMillis(properties.getIdleTimeoutMs()))
+                .metrics(true);
+
+        for (Map.Entry<String, Integer> limit : properties.getRouteLimits().entrySet()) {
+            String url = env.getProperty("services." + limit.getKey() + ".url");
+            if (url == null) {
+                logger.warn("Ignoring pool limit for unknown service '{}'", limit.getKey());
+                continue;
+            }
+            URI uri = URI.create(url);
+            int port = uri.getPort() != -1 ? uri.getPort() : "https".equals(uri.getScheme()) ? 443 : 80;
+            builder.forRemoteHost(InetSocketAddress.createUnresolved(uri.getHost(), port),
+                    spec -> spec.maxConnections(limit.getValue()));
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public WebClient webClient(WebClient.Builder builder, ConnectionProvider reactiveConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(reactiveConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeoutMs())
+                .responseTimeout(Duration.ofMillis(properties.getReadTimeoutMs()));
+        if (properties.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        // Load the event loops, transport and resolver now rather than on the first orders
+        httpClient.warmup().block();
+
+        logger.info("Reactive downstream HTTP client: {} ({} connections per route)",
+                properties.isHttp2() ? "HTTP/2" : "pooled HTTP/1.1", properties.getMaxPerRoute());
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(new DeadlineExchangeFilter())
+                .build();
+    }
+}
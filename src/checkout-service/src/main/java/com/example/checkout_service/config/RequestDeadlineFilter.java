@@ -0,0 +1,78 @@
+package com.example.checkout_service.config;
+
+import com.example.checkout_service.dto.ErrorResponse;
+import com.example.checkout_service.util.RequestDeadline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Gives every request a deadline: checkout's own budget from arrival, or the
+ * caller's deadline when that is sooner. Batches of orders get a larger budget.
+ * A request whose caller's deadline has already passed is answered with 504
+ * without doing any work.
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RequestDeadlineFilter.class);
+
+    private static final String BATCH_PATH = "/api/v1/checkout/orders/batch";
+
+    private final ObjectMapper objectMapper;
+    private final long budgetMs;
+    private final long batchBudgetMs;
+
+    public RequestDeadlineFilter(ObjectMapper objectMapper,
+                                 @Value("${checkout.deadline.budget-ms:10000}") long budgetMs,
+                                 @Value("${checkout.deadline.batch-budget-ms:120000}") long batchBudgetMs) {
+        this.objectMapper = objectMapper;
+        this.budgetMs = budgetMs;
+        this.batchBudgetMs = batchBudgetMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        long deadline = now + (BATCH_PATH.equals(request.getRequestURI()) ? batchBudgetMs : budgetMs);
+        Long callerDeadline = RequestDeadline.parse(request.getHeader(RequestDeadline.HEADER));
+        if (callerDeadline != null) {
+            if (callerDeadline <= now) {
+                logger.warn("Rejecting {} {}: caller's deadline passed {} ms ago",
+                        request.getMethod(), request.getRequestURI(), now - callerDeadline);
+                reject(request, response);
+                return;
+            }
+            deadline = Math.min(deadline, callerDeadline);
+        }
+
+        RequestDeadline.set(deadline);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.GATEWAY_TIMEOUT.value(),
+                "DEADLINE_EXCEEDED",
+                "Request deadline has already passed",
+                request.getRequestURI());
+        response.setStatus(HttpStatus.GATEWAY_TIMEOUT.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
@@ -1,32 +1,58 @@
 package com.example.checkout_service.controller;
 
+import com.example.checkout_service.dto.BatchOrderResult;
+import com.example.checkout_service.dto.BatchPlaceOrderRequest;
 import com.example.checkout_service.dto.PlaceOrderRequest;
-import com.example.checkout_service.dto.PlaceOrderResponse;
+import com.example.checkout_service.dto.QuoteRequest;
+import com.example.checkout_service.dto.QuoteResponse;
 import com.example.checkout_service.dto.ErrorResponse;
+import com.example.checkout_service.exception.InvalidRequestException;
+import com.example.checkout_service.exception.OrderNotFoundException;
 import com.example.checkout_service.service.CheckoutService;
+import com.example.checkout_service.service.order.OrderRecord;
+import com.example.checkout_service.service.order.OrderStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 @RestController
 @RequestMapping("/api/v1")
 public class CheckoutController {
     private static final Logger logger = LoggerFactory.getLogger(CheckoutController.class);
 
+    private static final byte[] NEWLINE = {'\n'};
+    private static final int MAX_ORDER_HISTORY = 100;
+
     private final CheckoutService checkoutService;
+    private final OrderStore orderStore;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchOrders;
+    private final long batchTimeoutMs;
 
-    public CheckoutController(CheckoutService checkoutService) {
+    public CheckoutController(CheckoutService checkoutService, OrderStore orderStore, ObjectMapper objectMapper,
+                              @Value("${checkout.batch.max-orders:500}") int maxBatchOrders,
+                              @Value("${checkout.deadline.batch-budget-ms:120000}") long batchTimeoutMs) {
         this.checkoutService = checkoutService;
+        this.orderStore = orderStore;
+        this.objectMapper = objectMapper;
+        this.maxBatchOrders = maxBatchOrders;
+        this.batchTimeoutMs = batchTimeoutMs;
     }
 
     /**
@@ -46,6 +72,10 @@ public class CheckoutController {
         endpoints.put("GET /api/v1/checkoutservice", "API information");
         endpoints.put("GET /api/v1/health", "Health check");
         endpoints.put("POST /api/v1/checkout/orders", "Place an order");
+        endpoints.put("POST /api/v1/checkout/orders/batch", "Place many orders, streaming a result per order");
+        endpoints.put("POST /api/v1/checkout/quote", "Price a cart and get a quote token to place the order with");
+        endpoints.put("GET /api/v1/checkout/orders/{orderId}", "Get a placed order");
+        endpoints.put("GET /api/v1/checkout/orders?userId={userId}&limit={limit}", "Get a user's recent orders, newest first");
         
         info.put("endpoints", endpoints);
         
@@ -62,12 +92,81 @@ public class CheckoutController {
         return ResponseEntity.ok(info);
     }
 
-    @PostMapping("checkout/orders")
-    public ResponseEntity<PlaceOrderResponse> placeOrder(@Validated @RequestBody PlaceOrderRequest request) {
-        logger.info("Received order request for user: {}", request.getUserId());
-        
-        PlaceOrderResponse response = checkoutService.placeOrder(request);
-        return ResponseEntity.ok(response);
+    /**
+     * POST /checkout/quote
+     * Prices a cart without charging it. Placing the order with the returned
+     * quoteToken before it expires charges the quoted prices without pricing again.
+     */
+    @PostMapping("checkout/quote")
+    public ResponseEntity<QuoteResponse> quote(@Validated @RequestBody QuoteRequest request) {
+        return ResponseEntity.ok(checkoutService.quote(request));
+    }
+
+    /**
+     * POST /checkout/orders/batch
+     * Places up to checkout.batch.max-orders orders and streams one NDJSON line
+     * per order as it completes, in completion order. Orders that were charged
+     * go through even if the client disconnects before reading their result.
+     */
+    @PostMapping(value = "checkout/orders/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> placeOrders(@RequestBody BatchPlaceOrderRequest request) {
+        List<PlaceOrderRequest> orders = request.getOrders();
+        if (orders == null || orders.isEmpty()) {
+            throw new InvalidRequestException("At least one order must be specified");
+        }
+        if (orders.size() > maxBatchOrders) {
+            throw new InvalidRequestException("At most " + maxBatchOrders + " orders can be placed at once");
+        }
+        logger.info("Received batch of {} orders", orders.size());
+
+        // Give the last results time to arrive after the batch deadline
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeoutMs + 10_000);
+        checkoutService.placeOrders(orders, result -> send(emitter, result))
+                .whenComplete((ignored, e) -> {
+                    if (e == null) {
+                        emitter.complete();
+                    } else {
+                        logger.error("Batch of {} orders failed", orders.size(), e);
+                        emitter.completeWithError(e);
+                    }
+                });
+        // The emitter commits the response before the first line is written, so the type is set here
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    private void send(ResponseBodyEmitter emitter, BatchOrderResult result) {
+        try {
+            byte[] line = objectMapper.writeValueAsBytes(result);
+            synchronized (emitter) {
+                emitter.send(line, MediaType.APPLICATION_NDJSON);
+                emitter.send(NEWLINE, MediaType.APPLICATION_NDJSON);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the response timed out; the order itself is unaffected
+            logger.warn("Could not send the result of batch order {}: {}", result.getIndex(), e.getMessage());
+        }
+    }
+
+    /**
+     * GET /checkout/orders/{orderId}
+     * A placed order from the order history.
+     */
+    @GetMapping("checkout/orders/{orderId}")
+    public ResponseEntity<OrderRecord> getOrder(@PathVariable String orderId) {
+        return ResponseEntity.ok(orderStore.findById(orderId).orElseThrow(() -> new OrderNotFoundException(orderId)));
+    }
+
+    /**
+     * GET /checkout/orders?userId={userId}&limit={limit}
+     * The user's most recent orders, newest first, at most 100.
+     */
+    @GetMapping("checkout/orders")
+    public ResponseEntity<List<OrderRecord>> getOrders(@RequestParam String userId,
+                                                       @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_ORDER_HISTORY) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_ORDER_HISTORY);
+        }
+        return ResponseEntity.ok(orderStore.findByUserId(userId, limit));
     }
 
     @GetMapping("/health")
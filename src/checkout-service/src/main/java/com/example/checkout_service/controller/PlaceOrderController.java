@@ -0,0 +1,61 @@
+package com.example.checkout_service.controller;
+
+import com.example.checkout_service.dto.PlaceOrderRequest;
+import com.example.checkout_service.dto.PlaceOrderResponse;
+import com.example.checkout_service.service.CheckoutService;
+import com.example.checkout_service.service.IdempotencyStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Places single orders on the request thread. With the reactive profile,
+ * ReactivePlaceOrderController serves the same endpoint instead.
+ */
+@RestController
+@RequestMapping("/api/v1")
+@Profile("!reactive")
+public class PlaceOrderController {
+    private static final Logger logger = LoggerFactory.getLogger(PlaceOrderController.class);
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final CheckoutService checkoutService;
+    private final IdempotencyStore idempotencyStore;
+
+    public PlaceOrderController(CheckoutService checkoutService, IdempotencyStore idempotencyStore) {
+        this.checkoutService = checkoutService;
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    /**
+     * POST /checkout/orders
+     * With an Idempotency-Key header, a retried request returns the original
+     * response instead of placing (and charging) the order again.
+     */
+    @PostMapping("checkout/orders")
+    public ResponseEntity<PlaceOrderResponse> placeOrder(
+            @Validated @RequestBody PlaceOrderRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        logger.info("Received order request for user: {}", request.getUserId());
+
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            PlaceOrderResponse response = checkoutService.placeOrder(request);
+            return ResponseEntity.ok(response);
+        }
+
+        IdempotencyStore.Result result =
+                idempotencyStore.execute(idempotencyKey, request, () -> checkoutService.placeOrder(request));
+        return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.isReplayed()))
+                .body(result.getResponse());
+    }
+}
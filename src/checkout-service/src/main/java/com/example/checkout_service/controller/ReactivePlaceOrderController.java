@@ -0,0 +1,65 @@
+package com.example.checkout_service.controller;
+
+import com.example.checkout_service.dto.PlaceOrderRequest;
+import com.example.checkout_service.dto.PlaceOrderResponse;
+import com.example.checkout_service.service.IdempotencyStore;
+import com.example.checkout_service.service.ReactiveCheckoutService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import static com.example.checkout_service.controller.PlaceOrderController.IDEMPOTENCY_KEY_HEADER;
+import static com.example.checkout_service.controller.PlaceOrderController.IDEMPOTENT_REPLAYED_HEADER;
+
+/**
+ * Places single orders with the reactive checkout. The request thread returns
+ * as soon as the order is started and the response is written when the Mono
+ * completes. The request's deadline and trace are captured from the request
+ * thread into the Reactor context here.
+ */
+@RestController
+@RequestMapping("/api/v1")
+@Profile("reactive")
+public class ReactivePlaceOrderController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactivePlaceOrderController.class);
+
+    private final ReactiveCheckoutService checkoutService;
+    private final IdempotencyStore idempotencyStore;
+
+    public ReactivePlaceOrderController(ReactiveCheckoutService checkoutService, IdempotencyStore idempotencyStore) {
+        this.checkoutService = checkoutService;
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    /**
+     * POST /checkout/orders
+     * With an Idempotency-Key header, a retried request returns the original
+     * response instead of placing (and charging) the order again.
+     */
+    @PostMapping("checkout/orders")
+    public Mono<ResponseEntity<PlaceOrderResponse>> placeOrder(
+            @Validated @RequestBody PlaceOrderRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        logger.info("Received order request for user: {}", request.getUserId());
+
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return checkoutService.placeOrder(request)
+                    .map(ResponseEntity::ok)
+                    .contextCapture();
+        }
+
+        return idempotencyStore.executeReactive(idempotencyKey, request, () -> checkoutService.placeOrder(request))
+                .map(result -> ResponseEntity.ok()
+                        .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.isReplayed()))
+                        .body(result.getResponse()))
+                .contextCapture();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.checkout_service.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for batch conversion response from the Currency Service API.
+ */
+public class BatchCurrencyConversionResponse {
+    private String to;
+    private List<CurrencyConversionResponse> results;
+
+    public BatchCurrencyConversionResponse() {
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public List<CurrencyConversionResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<CurrencyConversionResponse> results) {
+        this.results = results;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchCurrencyConversionResponse{" +
+                "to='" + to + '\'' +
+                ", results=" + results +
+                '}';
+    }
+}
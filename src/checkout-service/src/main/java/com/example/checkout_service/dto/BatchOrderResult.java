@@ -0,0 +1,89 @@
+package com.example.checkout_service.dto;
+
+import com.example.checkout_service.exception.ServiceException;
+import com.example.checkout_service.model.OrderResult;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Outcome of one order of a batch, streamed back as soon as that order completes.
+ * {@code index} is the order's position in the request, since results arrive in
+ * completion order; {@code status} is the HTTP status the order would have had
+ * on its own.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchOrderResult {
+    private int index;
+    private int status;
+    private String error;
+    private String message;
+    private OrderResult order;
+
+    public BatchOrderResult() {
+    }
+
+    private BatchOrderResult(int index, int status, String error, String message, OrderResult order) {
+        this.index = index;
+        this.status = status;
+        this.error = error;
+        this.message = message;
+        this.order = order;
+    }
+
+    public static BatchOrderResult success(int index, OrderResult order) {
+        return new BatchOrderResult(index, HttpStatus.OK.value(), null, "Your order is successfull", order);
+    }
+
+    public static BatchOrderResult failure(int index, int status, String error, String message) {
+        return new BatchOrderResult(index, status, error, message, null);
+    }
+
+    public static BatchOrderResult failure(int index, Throwable cause) {
+        if (cause instanceof ServiceException) {
+            ServiceException e = (ServiceException) cause;
+            return failure(index, e.getStatusCode(), e.getErrorType(), e.getMessage());
+        }
+        return failure(index, HttpStatus.INTERNAL_SERVER_ERROR.value(), "INTERNAL_SERVER_ERROR",
+                "An unexpected error occurred. Please try again later.");
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public OrderResult getOrder() {
+        return order;
+    }
+
+    public void setOrder(OrderResult order) {
+        this.order = order;
+    }
+}
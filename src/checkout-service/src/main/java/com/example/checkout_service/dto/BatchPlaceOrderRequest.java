@@ -0,0 +1,26 @@
+package com.example.checkout_service.dto;
+
+import java.util.List;
+
+/**
+ * Orders placed together through the batch endpoint. Each order is validated
+ * on its own, so one bad order does not reject the others.
+ */
+public class BatchPlaceOrderRequest {
+    private List<PlaceOrderRequest> orders;
+
+    public BatchPlaceOrderRequest() {
+    }
+
+    public BatchPlaceOrderRequest(List<PlaceOrderRequest> orders) {
+        this.orders = orders;
+    }
+
+    public List<PlaceOrderRequest> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<PlaceOrderRequest> orders) {
+        this.orders = orders;
+    }
+}
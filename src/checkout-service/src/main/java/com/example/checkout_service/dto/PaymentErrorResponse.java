@@ -0,0 +1,25 @@
+package com.example.checkout_service.dto;
+
+/**
+ * The body the payment service answers a refused charge with.
+ */
+public class PaymentErrorResponse {
+    private String error;
+    private int status;
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+}
@@ -27,6 +27,9 @@ public class PlaceOrderRequest {
     @Size(min = 1, message = "At least one item must be specified")
     private List<CartItem> items;
 
+    // From POST /checkout/quote; while it holds, the order is charged at the quoted prices
+    private String quoteToken;
+
     public PlaceOrderRequest() {
     }
 
@@ -88,6 +91,14 @@ public class PlaceOrderRequest {
         this.items = items;
     }
 
+    public String getQuoteToken() {
+        return quoteToken;
+    }
+
+    public void setQuoteToken(String quoteToken) {
+        this.quoteToken = quoteToken;
+    }
+
     @Override
     public String toString() {
         return "PlaceOrderRequest{" +
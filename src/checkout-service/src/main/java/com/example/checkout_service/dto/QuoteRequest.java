@@ -0,0 +1,62 @@
+package com.example.checkout_service.dto;
+
+import java.util.List;
+
+import com.example.checkout_service.model.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class QuoteRequest {
+    @NotBlank(message = "User currency cannot be empty")
+    private String userCurrency;
+
+    @NotNull(message = "Address cannot be null")
+    private Address address;
+
+    @NotNull(message = "Items list cannot be null")
+    @Size(min = 1, message = "At least one item must be specified")
+    private List<CartItem> items;
+
+    public QuoteRequest() {
+    }
+
+    public QuoteRequest(String userCurrency, Address address, List<CartItem> items) {
+        this.userCurrency = userCurrency;
+        this.address = address;
+        this.items = items;
+    }
+
+    public String getUserCurrency() {
+        return userCurrency;
+    }
+
+    public void setUserCurrency(String userCurrency) {
+        this.userCurrency = userCurrency;
+    }
+
+    public Address getAddress() {
+        return address;
+    }
+
+    public void setAddress(Address address) {
+        this.address = address;
+    }
+
+    public List<CartItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CartItem> items) {
+        this.items = items;
+    }
+
+    @Override
+    public String toString() {
+        return "QuoteRequest{" +
+                "userCurrency='" + userCurrency + '\'' +
+                ", address=" + address +
+                ", items=" + items +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.checkout_service.dto;
+
+import java.util.List;
+
+import com.example.checkout_service.model.*;
+
+public class QuoteResponse {
+
+    private String quoteToken;
+    private long expiresAt;
+    private List<OrderItem> items;
+    private Money shippingCost;
+    private Money totalCost;
+
+    public QuoteResponse() {
+    }
+
+    public QuoteResponse(String quoteToken, long expiresAt, List<OrderItem> items, Money shippingCost, Money totalCost) {
+        this.quoteToken = quoteToken;
+        this.expiresAt = expiresAt;
+        this.items = items;
+        this.shippingCost = shippingCost;
+        this.totalCost = totalCost;
+    }
+
+    public String getQuoteToken() {
+        return quoteToken;
+    }
+
+    public void setQuoteToken(String quoteToken) {
+        this.quoteToken = quoteToken;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public List<OrderItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderItem> items) {
+        this.items = items;
+    }
+
+    public Money getShippingCost() {
+        return shippingCost;
+    }
+
+    public void setShippingCost(Money shippingCost) {
+        this.shippingCost = shippingCost;
+    }
+
+    public Money getTotalCost() {
+        return totalCost;
+    }
+
+    public void setTotalCost(Money totalCost) {
+        this.totalCost = totalCost;
+    }
+
+    @Override
+    public String toString() {
+        return "QuoteResponse{" +
+                "expiresAt=" + expiresAt +
+                ", totalCost=" + totalCost +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.checkout_service.dto;
+
+import java.util.Map;
+
+/**
+ * Data Transfer Object for the versioned rate table returned by the Currency Service API.
+ */
+public class RatesSnapshotResponse {
+    private String version;
+    private String base;
+    private Map<String, Double> rates;
+
+    public RatesSnapshotResponse() {
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getBase() {
+        return base;
+    }
+
+    public void setBase(String base) {
+        this.base = base;
+    }
+
+    public Map<String, Double> getRates() {
+        return rates;
+    }
+
+    public void setRates(Map<String, Double> rates) {
+        this.rates = rates;
+    }
+
+    @Override
+    public String toString() {
+        return "RatesSnapshotResponse{" +
+                "version='" + version + '\'' +
+                ", base='" + base + '\'' +
+                ", rates=" + (rates != null ? rates.size() : 0) +
+                '}';
+    }
+}
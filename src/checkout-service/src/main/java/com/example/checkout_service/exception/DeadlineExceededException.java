@@ -0,0 +1,16 @@
+package com.example.checkout_service.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when the request's deadline passes before checkout could finish the order.
+ */
+public class DeadlineExceededException extends ServiceException {
+    public DeadlineExceededException(String message) {
+        super(message, "DEADLINE_EXCEEDED", HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, "DEADLINE_EXCEEDED", HttpStatus.GATEWAY_TIMEOUT.value(), cause);
+    }
+}
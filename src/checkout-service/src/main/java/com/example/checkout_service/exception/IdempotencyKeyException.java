@@ -0,0 +1,13 @@
+package com.example.checkout_service.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception for an Idempotency-Key that cannot be honoured: reused with a
+ * different request, or still in progress after the wait timeout.
+ */
+public class IdempotencyKeyException extends ServiceException {
+    public IdempotencyKeyException(String message, HttpStatus status) {
+        super(message, "IDEMPOTENCY_ERROR", status.value());
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.checkout_service.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception for orders missing from the order history.
+ */
+public class OrderNotFoundException extends ServiceException {
+    public OrderNotFoundException(String orderId) {
+        super("Order not found with ID: " + orderId, "ORDER_NOT_FOUND", HttpStatus.NOT_FOUND.value());
+    }
+}
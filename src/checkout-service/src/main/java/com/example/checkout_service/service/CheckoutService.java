@@ -1,8 +1,28 @@
 package com.example.checkout_service.service;
 
+import com.example.checkout_service.dto.BatchOrderResult;
 import com.example.checkout_service.dto.PlaceOrderRequest;
 import com.example.checkout_service.dto.PlaceOrderResponse;
+import com.example.checkout_service.dto.QuoteRequest;
+import com.example.checkout_service.dto.QuoteResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface CheckoutService {
     PlaceOrderResponse placeOrder(PlaceOrderRequest request);
+
+    /**
+     * Places every order of a batch, handing each order's result to {@code results}
+     * as soon as it is known, possibly from several threads at once. The returned
+     * future completes once every order has a result.
+     */
+    CompletableFuture<Void> placeOrders(List<PlaceOrderRequest> requests, Consumer<BatchOrderResult> results);
+
+    /**
+     * Prices a cart the way placeOrder would, without charging it, and signs
+     * the prices into a token that placeOrder accepts instead of pricing again.
+     */
+    QuoteResponse quote(QuoteRequest request);
 }
\ No newline at end of file
@@ -3,24 +3,61 @@ package com.example.checkout_service.service;
 import com.example.checkout_service.model.*;
 import com.example.checkout_service.dto.*;
 import com.example.checkout_service.exception.CurrencyConversionException;
-import com.example.checkout_service.exception.InvalidRequestException;
-import com.example.checkout_service.exception.ProductNotFoundException;
+import com.example.checkout_service.exception.DeadlineExceededException;
+import com.example.checkout_service.exception.ExternalServiceException;
+import com.example.checkout_service.exception.ServiceException;
 import com.example.checkout_service.exception.ShippingException;
-import com.example.checkout_service.util.MoneyUtil;
+import com.example.checkout_service.service.outbox.OutboxEntry;
+import com.example.checkout_service.service.outbox.OutboxStore;
+import com.example.checkout_service.service.order.OrderRecord;
+import com.example.checkout_service.service.order.OrderStore;
+import com.example.checkout_service.service.OrderPricing.Pricing;
+import com.example.checkout_service.service.quote.Quote;
+import com.example.checkout_service.service.quote.QuoteTokens;
+import com.example.checkout_service.util.RequestDeadline;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static com.example.checkout_service.service.OrderPricing.indexProducts;
+import static com.example.checkout_service.service.OrderPricing.productIds;
+import static com.example.checkout_service.service.OrderPricing.redeemQuote;
+import static com.example.checkout_service.service.OrderPricing.resolvePrices;
+import static com.example.checkout_service.service.OrderPricing.toConvert;
+import static com.example.checkout_service.service.OrderPricing.toOrderItems;
+import static com.example.checkout_service.service.OrderPricing.total;
+import static com.example.checkout_service.service.OrderPricing.totalCost;
+import static com.example.checkout_service.service.OrderPricing.withConverted;
+
 @Service
 public class CheckoutServiceImpl implements CheckoutService {
     private static final Logger logger = LoggerFactory.getLogger(CheckoutServiceImpl.class);
-    private static final String DEFAULT_CURRENCY = "USD";
+    private static final String PARALLEL_MODE = "parallel";
 
 
     private final CartService cartService;
@@ -29,156 +66,658 @@ public class CheckoutServiceImpl implements CheckoutService {
     private final ShippingService shippingService;
     private final PaymentService paymentService;
     private final EmailService emailService;
+    private final Executor checkoutExecutor;
+    private final OutboxStore outboxStore;
+    private final OrderStore orderStore;
+    private final QuoteTokens quoteTokens;
+    private final CheckoutStageObserver stages;
+    private final Validator validator;
+    private final boolean parallel;
+    private final long callTimeoutMs;
+    private final boolean outboxEnabled;
+    private final int batchConcurrency;
 
     public CheckoutServiceImpl(CartService cartService,
                              ProductCatalogService productService,
                              CurrencyService currencyService,
                              ShippingService shippingService,
                              PaymentService paymentService,
-                             EmailService emailService) {
+                             EmailService emailService,
+                             @Qualifier("checkoutExecutor") Executor checkoutExecutor,
+                             OutboxStore outboxStore,
+                             OrderStore orderStore,
+                             QuoteTokens quoteTokens,
+                             CheckoutStageObserver stages,
+                             Validator validator,
+                             @Value("${checkout.execution.mode:sequential}") String executionMode,
+                             @Value("${checkout.execution.call-timeout-ms:5000}") long callTimeoutMs,
+                             @Value("${checkout.outbox.enabled:true}") boolean outboxEnabled,
+                             @Value("${checkout.batch.concurrency:8}") int batchConcurrency) {
         this.cartService = cartService;
         this.productService = productService;
         this.currencyService = currencyService;
         this.shippingService = shippingService;
         this.paymentService = paymentService;
         this.emailService = emailService;
+        this.checkoutExecutor = checkoutExecutor;
+        this.outboxStore = outboxStore;
+        this.orderStore = orderStore;
+        this.quoteTokens = quoteTokens;
+        this.stages = stages;
+        this.validator = validator;
+        this.parallel = PARALLEL_MODE.equalsIgnoreCase(executionMode);
+        this.callTimeoutMs = callTimeoutMs;
+        this.outboxEnabled = outboxEnabled;
+        this.batchConcurrency = batchConcurrency;
+        logger.info("Checkout execution mode: {}, post-payment outbox {}",
+                parallel ? PARALLEL_MODE : "sequential", outboxEnabled ? "enabled" : "disabled");
     }
 
     @Override
     public PlaceOrderResponse placeOrder(PlaceOrderRequest request) {
-        logger.info("PlaceOrder called by userId: {}, with currency: {}", 
+        logger.info("PlaceOrder called by userId: {}, with currency: {}",
                    request.getUserId(), request.getUserCurrency());
 
-        // Generate a random order ID
-        String orderId = UUID.randomUUID().toString();
-
-        // Extract product IDs from cart items
-        List<String> productIds = request.getItems().stream()
-                    .map(CartItem::getProductId)
-                    .collect(Collectors.toList());
-            
-            // 2. Get products using batch endpoint
-            List<Product> products = productService.getMultipleProducts(productIds);
-            
-            // Create a map for easy lookup of products by ID
-            Map<String, Product> productMap = products.stream()
-                    .collect(Collectors.toMap(Product::getId, p -> p));
-            
-            // Create order items with product information
-            List<OrderItem> orderItems = new ArrayList<>();
-            List<CartItem> cartItems = request.getItems();
-            
-            // 3. Calculate total cost using quantity from request and money from products
-            Money total = new Money(0, 0, request.getUserCurrency());
-            
-            for (CartItem cartItem : cartItems) {
-                Product product = productMap.get(cartItem.getProductId());
-                if (product == null) {
-                    logger.warn("Product not found for ID: {}", cartItem.getProductId());
-                    throw new ProductNotFoundException(cartItem.getProductId());
-                }
-                
-                // Ensure the product's price has a currency code
-                Money productPrice = product.getPriceUsd();
-                if (productPrice == null) {
-                    logger.warn("Product price is null for ID: {}", cartItem.getProductId());
-                    throw new InvalidRequestException("Product price is null for ID: " + cartItem.getProductId());
-                }
-                
-                // Set default currency code if it's null
-                if (productPrice.getCurrencyCode() == null) {
-                    logger.warn("Product price currency code is null for ID: {}, defaulting to USD", cartItem.getProductId());
-                    productPrice.setCurrencyCode(DEFAULT_CURRENCY);
-                }
-                
-                // Convert product price to user currency if needed
-                Money itemPrice;
-                if (!productPrice.getCurrencyCode().equals(request.getUserCurrency())) {
-                    try {
-                        itemPrice = currencyService.convertCurrency(productPrice, request.getUserCurrency());
-                    } catch (Exception e) {
-                        throw new CurrencyConversionException("Failed to convert currency from " + 
-                                                            productPrice.getCurrencyCode() + " to " + 
-                                                            request.getUserCurrency(), e);
-                    }
-                } else {
-                    itemPrice = productPrice;
-                }
-                
-                // Create order item
-                OrderItem orderItem = new OrderItem();
-                orderItem.setItem(cartItem);
-                orderItem.setCost(itemPrice);
-                orderItems.add(orderItem);
-                
-                // Add to total
-                Money itemTotal = MoneyUtil.multiply(itemPrice, cartItem.getQuantity());
-                total = MoneyUtil.sum(total, itemTotal);
+        return underDeadline("placing the order",
+                () -> parallel ? placeOrderParallel(request) : placeOrderSequential(request));
+    }
+
+    @Override
+    public QuoteResponse quote(QuoteRequest request) {
+        logger.info("Quote requested in currency: {}", request.getUserCurrency());
+
+        // Pricing only looks at the currency, address and items
+        PlaceOrderRequest cart = new PlaceOrderRequest(null, request.getUserCurrency(), request.getAddress(),
+                null, null, request.getItems());
+        Pricing pricing = underDeadline("quoting the order",
+                () -> parallel ? priceParallel(cart) : priceSequential(cart));
+
+        Quote quote = new Quote(
+                QuoteTokens.cartKey(request.getUserCurrency(), request.getAddress(), request.getItems()),
+                pricing.items.stream().map(OrderItem::getCost).collect(Collectors.toList()),
+                pricing.shippingCost,
+                pricing.total);
+        String token = quoteTokens.issue(quote);
+        return new QuoteResponse(token, quote.getExpiresAt(), pricing.items, pricing.shippingCost, pricing.total);
+    }
+
+    private <T> T underDeadline(String action, Supplier<T> task) {
+        try {
+            return task.get();
+        } catch (RuntimeException e) {
+            // Whichever call gave up first, the cause is the missed deadline
+            if (!(e instanceof DeadlineExceededException) && RequestDeadline.isExpired()) {
+                throw new DeadlineExceededException("Request deadline passed while " + action, e);
             }
-            
-            // 4. Get shipping quote
-            Money shippingCostUSD;
+            throw e;
+        }
+    }
+
+    /**
+     * Runs every stage one after another on the request thread.
+     */
+    private PlaceOrderResponse placeOrderSequential(PlaceOrderRequest request) {
+        int lines = request.getItems().size();
+
+        // 1. Generate a random order ID
+        String orderId = stages.observe(CheckoutStage.PREPARE_ORDER, lines, () -> UUID.randomUUID().toString());
+
+        // 2-5. Price the order, unless it comes with a quote that still holds
+        Pricing quoted = redeemQuote(quoteTokens, stages, request);
+        Pricing pricing = quoted != null ? quoted : priceSequential(request);
+        Money total = pricing.total;
+
+        // 6. Process payment
+        String transactionId = stages.observe(CheckoutStage.CHARGE_PAYMENT, lines,
+                () -> paymentService.chargeCard(total, request.getCreditCard()));
+        logger.info("Payment went through (transaction_id: {})", transactionId);
+        commitOrder();
+
+        // 9. Create the order result; the tracking ID is set once the order ships
+        OrderResult orderResult = stages.observe(CheckoutStage.CREATE_RESULT, lines, () -> new OrderResult(
+                orderId,
+                null,
+                total,
+                pricing.shippingCost,
+                request.getAddress(),
+                pricing.items));
+
+        // 7, 8, 10. Ship, empty the cart and send the confirmation
+        finishOrder(request, orderResult);
+
+        return placed(request, orderResult);
+    }
+
+    private Pricing priceSequential(PlaceOrderRequest request) {
+        String userCurrency = request.getUserCurrency();
+        List<CartItem> cartItems = request.getItems();
+        int lines = cartItems.size();
+
+        // 2. Get products using batch endpoint
+        Map<String, Product> productMap = stages.observe(CheckoutStage.GET_PRODUCTS, lines,
+                () -> indexProducts(productService.getMultipleProducts(productIds(cartItems))));
+
+        // 4. Get shipping quote
+        Money shippingCostUSD = stages.observe(CheckoutStage.QUOTE_SHIPPING, lines, () -> quoteShipping(request));
+
+        // 3. Convert every line price and the shipping cost to user currency in one call
+        List<Money> converted = stages.observe(CheckoutStage.CONVERT_CURRENCY, lines, () -> {
+            List<Money> prices = resolvePrices(cartItems, productMap);
+            prices.add(shippingCostUSD);
+            return convertAll(prices, userCurrency);
+        });
+        return total(stages, cartItems, converted, userCurrency);
+    }
+
+    /**
+     * Runs the same stages as a dependency graph on the checkout executor.
+     * The product batch and the shipping quote start together, all prices are
+     * converted as soon as both arrive. Without the outbox, the cart is emptied
+     * after payment while the order ships, and then the confirmation is sent.
+     */
+    private PlaceOrderResponse placeOrderParallel(PlaceOrderRequest request) {
+        int lines = request.getItems().size();
+
+        // 1. Generate a random order ID
+        String orderId = stages.observe(CheckoutStage.PREPARE_ORDER, lines, () -> UUID.randomUUID().toString());
+
+        // 2-5. Price the order, unless it comes with a quote that still holds
+        Pricing quoted = redeemQuote(quoteTokens, stages, request);
+        Pricing pricing = quoted != null ? quoted : priceParallel(request);
+        Money total = pricing.total;
+
+        // 6. Process payment
+        String transactionId = stages.observe(CheckoutStage.CHARGE_PAYMENT, lines,
+                () -> paymentService.chargeCard(total, request.getCreditCard()));
+        logger.info("Payment went through (transaction_id: {})", transactionId);
+        commitOrder();
+
+        // 9. Create the order result; the tracking ID is set once the order ships
+        OrderResult orderResult = stages.observe(CheckoutStage.CREATE_RESULT, lines, () -> new OrderResult(
+                orderId,
+                null,
+                total,
+                pricing.shippingCost,
+                request.getAddress(),
+                pricing.items));
+
+        // 7, 8, 10. Leave shipping, cart and email to the outbox when it takes the order
+        if (enqueuePostPayment(request, orderResult)) {
+            return placed(request, orderResult);
+        }
+
+        // 8. Empty the cart while the order ships
+        CompletableFuture<Void> emptyCartFuture = call("Cart", () -> {
+            emptyCart(request.getUserId(), lines);
+            return null;
+        });
+
+        // 7. Ship order
+        orderResult.setShippingTrackingId(await(call("Shipping",
+                () -> stages.observe(CheckoutStage.SHIP_ORDER, lines, () -> shipOrder(request)))));
+
+        // 10. Send confirmation email
+        CompletableFuture<Void> emailFuture = call("Email", () -> {
+            sendConfirmation(request.getEmail(), orderResult);
+            return null;
+        });
+
+        // Cart and email are best effort; wait for them but never fail the order
+        CompletableFuture.allOf(emptyCartFuture, emailFuture)
+                .exceptionally(ex -> {
+                    logger.warn("Post-payment step did not complete for order {}: {}", orderId, ex.getMessage());
+                    return null;
+                })
+                .join();
+
+        return placed(request, orderResult);
+    }
+
+    private Pricing priceParallel(PlaceOrderRequest request) {
+        String userCurrency = request.getUserCurrency();
+        List<CartItem> cartItems = request.getItems();
+        int lines = cartItems.size();
+
+        // 2. Product batch, in parallel with the shipping quote below
+        CompletableFuture<Map<String, Product>> productsFuture = call("ProductCatalog",
+                () -> stages.observe(CheckoutStage.GET_PRODUCTS, lines,
+                        () -> indexProducts(productService.getMultipleProducts(productIds(cartItems)))));
+
+        // 4. Shipping quote
+        CompletableFuture<Money> shippingQuoteFuture = call("Shipping",
+                () -> stages.observe(CheckoutStage.QUOTE_SHIPPING, lines, () -> quoteShipping(request)));
+
+        // 3. One conversion call for every line price and the shipping cost, once both are known
+        CompletableFuture<List<Money>> convertedFuture = productsFuture
+                .thenCombine(shippingQuoteFuture, (productMap, shippingCostUSD) -> {
+                    List<Money> prices = resolvePrices(cartItems, productMap);
+                    prices.add(shippingCostUSD);
+                    return prices;
+                })
+                .thenCompose(prices -> call("Currency",
+                        () -> stages.observe(CheckoutStage.CONVERT_CURRENCY, lines, () -> convertAll(prices, userCurrency))));
+
+        return total(stages, cartItems, await(convertedFuture), userCurrency);
+    }
+
+    /**
+     * Prices the whole batch on the calling thread with shared lookups: one
+     * catalog batch for every distinct product, one shipping quote for every
+     * distinct address and cart, and one conversion of every amount with the
+     * same rates. The orders are then charged in the background through
+     * batchConcurrency lanes, each order finishing and reporting as soon as
+     * its charge goes through. A failed order is reported on its own and does
+     * not stop the others.
+     */
+    @Override
+    public CompletableFuture<Void> placeOrders(List<PlaceOrderRequest> requests, Consumer<BatchOrderResult> results) {
+        logger.info("PlaceOrders called with {} orders", requests.size());
+
+        List<BatchOrder> orders = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            String violations = validate(requests.get(i));
+            if (violations != null) {
+                results.accept(BatchOrderResult.failure(i, HttpStatus.BAD_REQUEST.value(), "VALIDATION_ERROR",
+                        "Validation failed: " + violations));
+            } else {
+                orders.add(new BatchOrder(i, requests.get(i)));
+            }
+        }
+
+        priceBatch(orders);
+
+        List<BatchOrder> priced = new ArrayList<>(orders.size());
+        for (BatchOrder order : orders) {
+            if (order.failure != null) {
+                results.accept(batchFailure(order.index, order.failure));
+            } else {
+                priced.add(order);
+            }
+        }
+
+        Long deadline = RequestDeadline.get();
+        return inLanes(priced, order -> results.accept(placeBatchOrder(order, deadline)))
+                .thenRun(() -> logger.info("Batch of {} orders done", requests.size()));
+    }
+
+    // Sets the converted prices, shipping cost and total of each order, or its failure
+    private void priceBatch(List<BatchOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        // 2. One catalog lookup for every product in the batch
+        List<String> productIds = orders.stream()
+                .flatMap(order -> order.request.getItems().stream())
+                .map(CartItem::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, Product> productMap;
+        try {
+            productMap = stages.observe(CheckoutStage.GET_PRODUCTS, productIds.size(),
+                    () -> indexProducts(productService.getMultipleProducts(productIds)));
+        } catch (RuntimeException e) {
+            orders.forEach(order -> order.failure = e);
+            return;
+        }
+
+        // 4. One quote for each distinct address and cart
+        Map<String, CompletableFuture<Money>> quotes = new HashMap<>();
+        List<BatchOrder> quoted = new ArrayList<>();
+        for (BatchOrder order : orders) {
+            order.shippingQuote = quotes.computeIfAbsent(shippingKey(order.request), key -> {
+                quoted.add(order);
+                return new CompletableFuture<>();
+            });
+        }
+        inLanes(quoted, order -> {
             try {
-                shippingCostUSD = shippingService.getShippingQuote(request.getAddress(), cartItems);
-            } catch (Exception e) {
-                throw new ShippingException("Failed to get shipping quote", e);
+                order.shippingQuote.complete(stages.observe(CheckoutStage.QUOTE_SHIPPING, order.lines(),
+                        () -> quoteShipping(order.request)));
+            } catch (RuntimeException e) {
+                order.shippingQuote.completeExceptionally(e);
             }
-            
-            // Convert shipping cost to user currency if needed
-            Money shippingCost;
-            if (!shippingCostUSD.getCurrencyCode().equals(request.getUserCurrency())) {
-                try {
-                    shippingCost = currencyService.convertCurrency(shippingCostUSD, request.getUserCurrency());
-                } catch (Exception e) {
-                    throw new CurrencyConversionException("Failed to convert shipping cost currency", e);
+        }).join();
+
+        // 3. Every price and shipping cost not already in the user's currency, grouped by that currency
+        Map<String, List<Money>> pending = new HashMap<>();
+        for (BatchOrder order : orders) {
+            try {
+                order.prices = resolvePrices(order.request.getItems(), productMap);
+                order.prices.add(await(order.shippingQuote));
+            } catch (RuntimeException e) {
+                order.failure = e;
+                continue;
+            }
+            String userCurrency = order.request.getUserCurrency();
+            for (Money price : order.prices) {
+                if (!price.getCurrencyCode().equals(userCurrency)) {
+                    pending.computeIfAbsent(userCurrency, currency -> new ArrayList<>()).add(price);
+                }
+            }
+        }
+
+        int amounts = pending.values().stream().mapToInt(List::size).sum();
+        Map<String, Iterator<Money>> converted = new HashMap<>();
+        try {
+            stages.observe(CheckoutStage.CONVERT_CURRENCY, amounts,
+                    () -> pending.isEmpty() ? Map.<String, List<Money>>of() : currencyService.convertCurrencies(pending))
+                    .forEach((currency, results) -> converted.put(currency, results.iterator()));
+        } catch (RuntimeException e) {
+            CurrencyConversionException failure = new CurrencyConversionException(
+                    "Failed to convert " + amounts + " amounts for the batch", e);
+            orders.stream().filter(order -> order.failure == null).forEach(order -> order.failure = failure);
+            return;
+        }
+
+        // 5. Put the converted amounts back in the order they were taken out, then total each order
+        for (BatchOrder order : orders) {
+            if (order.failure != null) {
+                continue;
+            }
+            String userCurrency = order.request.getUserCurrency();
+            for (int i = 0; i < order.prices.size(); i++) {
+                if (!order.prices.get(i).getCurrencyCode().equals(userCurrency)) {
+                    order.prices.set(i, converted.get(userCurrency).next());
                 }
-            } else {
-                shippingCost = shippingCostUSD;
             }
-            
-            // 5. Add shipping cost to total
-            total = MoneyUtil.sum(total, shippingCost);
-            
-            // 6. Process payment
-            String transactionId = paymentService.chargeCard(total, request.getCreditCard());
-            logger.info("Payment went through (transaction_id: {})", transactionId);
-            
-            // 7. Ship order
-            String shippingTrackingId;
             try {
-                shippingTrackingId = shippingService.shipOrder(request.getAddress(), cartItems);
-            } catch (Exception e) {
-                throw new ShippingException("Failed to ship order", e);
-            }  
+                order.shippingCost = order.prices.remove(order.prices.size() - 1);
+                order.items = toOrderItems(order.request.getItems(), order.prices);
+                order.total = stages.observe(CheckoutStage.TOTAL_COST, order.lines(),
+                        () -> totalCost(order.items, order.shippingCost, userCurrency));
+            } catch (RuntimeException e) {
+                order.failure = e;
+            }
+        }
+    }
+
+    private BatchOrderResult placeBatchOrder(BatchOrder order, Long deadline) {
+        try {
+            return BatchOrderResult.success(order.index, chargeAndFinish(order));
+        } catch (RuntimeException e) {
+            return batchFailure(order.index, e);
+        } finally {
+            // Charging lifted the deadline for this order only; the next order in the lane still has it
+            RequestDeadline.set(deadline);
+        }
+    }
 
-            // 8. Empty the user's cart if we were using it
-            if (request.getUserId() != null && !request.getUserId().isEmpty()) {
+    private OrderResult chargeAndFinish(BatchOrder order) {
+        PlaceOrderRequest request = order.request;
+
+        // 6. Process payment
+        String transactionId = stages.observe(CheckoutStage.CHARGE_PAYMENT, order.lines(),
+                () -> paymentService.chargeCard(order.total, request.getCreditCard()));
+        logger.info("Payment went through for batch order {} (transaction_id: {})", order.index, transactionId);
+        commitOrder();
+
+        // 9. Create the order result; the tracking ID is set once the order ships
+        OrderResult orderResult = stages.observe(CheckoutStage.CREATE_RESULT, order.lines(), () -> new OrderResult(
+                UUID.randomUUID().toString(),
+                null,
+                order.total,
+                order.shippingCost,
+                request.getAddress(),
+                order.items));
+
+        // 7, 8, 10. Ship, empty the cart and send the confirmation
+        finishOrder(request, orderResult);
+        orderStore.submit(new OrderRecord(request.getUserId(), orderResult));
+        return orderResult;
+    }
+
+    // Queues the finished order for the order history, which is written in the background
+    private PlaceOrderResponse placed(PlaceOrderRequest request, OrderResult orderResult) {
+        orderStore.submit(new OrderRecord(request.getUserId(), orderResult));
+        return new PlaceOrderResponse("Your order is successfull", orderResult);
+    }
+
+    /**
+     * Leaves shipping, the cart and the email to the outbox when it takes the
+     * order, and otherwise runs them in turn on the calling thread.
+     */
+    private void finishOrder(PlaceOrderRequest request, OrderResult orderResult) {
+        if (enqueuePostPayment(request, orderResult)) {
+            return;
+        }
+        int lines = request.getItems().size();
+
+        // 7. Ship order
+        orderResult.setShippingTrackingId(stages.observe(CheckoutStage.SHIP_ORDER, lines, () -> shipOrder(request)));
+
+        // 8. Empty the user's cart if we were using it
+        emptyCart(request.getUserId(), lines);
+
+        // 10. Send confirmation email
+        sendConfirmation(request.getEmail(), orderResult);
+    }
+
+    /**
+     * Runs the task for every item on the checkout executor, batchConcurrency
+     * at a time. Each lane starts its next item when the previous one is done,
+     * so no thread is held waiting for a free slot. The task handles its own failures.
+     */
+    private <T> CompletableFuture<Void> inLanes(List<T> items, Consumer<T> task) {
+        Queue<T> queue = new ConcurrentLinkedQueue<>(items);
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(batchConcurrency, items.size())];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = nextInLane(queue, task);
+        }
+        return CompletableFuture.allOf(lanes);
+    }
+
+    private <T> CompletableFuture<Void> nextInLane(Queue<T> queue, Consumer<T> task) {
+        T item = queue.poll();
+        if (item == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> task.accept(item), checkoutExecutor)
+                .thenCompose(ignored -> nextInLane(queue, task));
+    }
+
+    private String validate(PlaceOrderRequest request) {
+        if (request == null) {
+            return "order cannot be null";
+        }
+        Set<ConstraintViolation<PlaceOrderRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private BatchOrderResult batchFailure(int index, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (!(cause instanceof DeadlineExceededException) && RequestDeadline.isExpired()) {
+            cause = new DeadlineExceededException("Request deadline passed while placing the order", cause);
+        }
+        if (!(cause instanceof ServiceException)) {
+            logger.error("Batch order {} failed unexpectedly", index, cause);
+        }
+        return BatchOrderResult.failure(index, cause);
+    }
+
+    // Orders with the same address and cart get the same quote
+    private static String shippingKey(PlaceOrderRequest request) {
+        return request.getAddress() + "|" + request.getItems();
+    }
+
+    /**
+     * One order of a batch as it moves through pricing and payment.
+     */
+    private static final class BatchOrder {
+        private final int index;
+        private final PlaceOrderRequest request;
+        private CompletableFuture<Money> shippingQuote;
+        private List<Money> prices;
+        private Money shippingCost;
+        private List<OrderItem> items;
+        private Money total;
+        private RuntimeException failure;
+
+        private BatchOrder(int index, PlaceOrderRequest request) {
+            this.index = index;
+            this.request = request;
+        }
+
+        private int lines() {
+            return request.getItems().size();
+        }
+    }
+
+    // Convert the amounts that are not already in user currency with a single batch call
+    private List<Money> convertAll(List<Money> amounts, String userCurrency) {
+        List<Money> pending = toConvert(amounts, userCurrency);
+        if (pending.isEmpty()) {
+            return new ArrayList<>(amounts);
+        }
+
+        List<Money> converted;
+        try {
+            converted = currencyService.convertCurrencies(pending, userCurrency);
+        } catch (Exception e) {
+            throw new CurrencyConversionException("Failed to convert " + pending.size() +
+                                                " amounts to " + userCurrency, e);
+        }
+        return withConverted(amounts, converted, userCurrency);
+    }
+
+    private Money quoteShipping(PlaceOrderRequest request) {
+        try {
+            return shippingService.getShippingQuote(request.getAddress(), request.getItems());
+        } catch (Exception e) {
+            throw new ShippingException("Failed to get shipping quote", e);
+        }
+    }
+
+    /**
+     * Records the post-payment steps in the outbox for the dispatcher to run.
+     * Returns false when the outbox is disabled or the record could not be
+     * written, in which case the caller runs the steps itself.
+     */
+    private boolean enqueuePostPayment(PlaceOrderRequest request, OrderResult orderResult) {
+        if (!outboxEnabled) {
+            return false;
+        }
+        try {
+            stages.run(CheckoutStage.ENQUEUE_POST_PAYMENT, request.getItems().size(), () -> {
                 try {
-                    cartService.emptyCart(request.getUserId());
-                    logger.info("Cart emptied for user: {}", request.getUserId());
-                } catch (Exception e) {
-                    logger.warn("Failed to empty cart for user: {}", request.getUserId(), e);
+                    outboxStore.enqueue(new OutboxEntry(
+                            request.getUserId(),
+                            request.getEmail(),
+                            request.getAddress(),
+                            request.getItems(),
+                            orderResult));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-            }
-            
-            // 9. Create the order result
-            OrderResult orderResult = new OrderResult(
-                    orderId,
-                    shippingTrackingId,
-                    total,
-                    shippingCost,
-                    request.getAddress(),
-                    orderItems);
-            
-            
-            // 10. Send confirmation email
+            });
+            logger.info("Post-payment steps queued for order {}", orderResult.getOrderId());
+            return true;
+        } catch (UncheckedIOException e) {
+            logger.error("Failed to queue post-payment steps for order {}, running them inline",
+                    orderResult.getOrderId(), e.getCause());
+            return false;
+        }
+    }
+
+    private String shipOrder(PlaceOrderRequest request) {
+        try {
+            return shippingService.shipOrder(request.getAddress(), request.getItems());
+        } catch (Exception e) {
+            throw new ShippingException("Failed to ship order", e);
+        }
+    }
+
+    private void emptyCart(String userId, int cartLines) {
+        if (userId == null || userId.isEmpty()) {
+            return;
+        }
+        try {
+            stages.run(CheckoutStage.EMPTY_CART, cartLines, () -> cartService.emptyCart(userId));
+            logger.info("Cart emptied for user: {}", userId);
+        } catch (Exception e) {
+            logger.warn("Failed to empty cart for user: {}", userId, e);
+        }
+    }
+
+    private void sendConfirmation(String email, OrderResult orderResult) {
+        try {
+            stages.run(CheckoutStage.SEND_CONFIRMATION, orderResult.getItems().size(),
+                    () -> emailService.sendOrderConfirmation(email, orderResult));
+            logger.info("Order confirmation email sent to: {}", email);
+        } catch (Exception e) {
+            logger.warn("Failed to send order confirmation to: {}", email, e);
+        }
+    }
+
+    /**
+     * Once the card is charged the order has to go through, so the remaining
+     * steps run without the request's deadline even if the caller gives up.
+     */
+    private void commitOrder() {
+        RequestDeadline.clear();
+    }
+
+    /**
+     * Runs a downstream call on the checkout executor, failing it after the
+     * call timeout or at the request's deadline, whichever comes first. Before
+     * payment the task itself runs under that tighter deadline, so the HTTP
+     * client cuts its response timeout to it and the request is abandoned with
+     * the future rather than holding a connection and a thread, including when
+     * the executor is saturated and the caller runs the task itself. Once the
+     * order is committed there is no deadline to tighten: the call is only
+     * bounded by the client's read timeout, and is never told to give up.
+     */
+    private <T> CompletableFuture<T> call(String serviceName, Supplier<T> task) {
+        long timeoutMs = Math.max(Math.min(callTimeoutMs, RequestDeadline.remainingMillis()), 0);
+        Long requestDeadline = RequestDeadline.get();
+        Supplier<T> bounded = requestDeadline == null ? task : withinCallTimeout(serviceName, task, requestDeadline);
+        return CompletableFuture.supplyAsync(bounded, checkoutExecutor)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof TimeoutException) {
+                        if (timeoutMs < callTimeoutMs) {
+                            throw new DeadlineExceededException("Request deadline passed waiting for " + serviceName);
+                        }
+                        throw new ExternalServiceException(serviceName, "No response within " + callTimeoutMs + " ms");
+                    }
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+                });
+    }
+
+    // A call that fails once its timeout, not the request's deadline, has passed timed out, however it was wrapped
+    private <T> Supplier<T> withinCallTimeout(String serviceName, Supplier<T> task, long requestDeadline) {
+        long callDeadline = Math.min(requestDeadline, System.currentTimeMillis() + callTimeoutMs);
+        return () -> {
+            Long previous = RequestDeadline.get();
+            RequestDeadline.set(callDeadline);
             try {
-                emailService.sendOrderConfirmation(request.getEmail(), orderResult);
-                logger.info("Order confirmation email sent to: {}", request.getEmail());
-            } catch (Exception e) {
-                logger.warn("Failed to send order confirmation to: {}", request.getEmail(), e);
+                return task.get();
+            } catch (RuntimeException e) {
+                if (callDeadline < requestDeadline && System.currentTimeMillis() >= callDeadline) {
+                    throw new ExternalServiceException(serviceName, "No response within " + callTimeoutMs + " ms");
+                }
+                throw e;
+            } finally {
+                RequestDeadline.set(previous);
+            }
+        };
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
-    
-            return new PlaceOrderResponse("Your order is successfull", orderResult);
+            throw e;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package com.example.checkout_service.service;
+
+/**
+ * The numbered stages of placing an order, as they appear in CheckoutServiceImpl.
+ * The tag is what metrics and spans are labelled with.
+ */
+public enum CheckoutStage {
+    PREPARE_ORDER(1, "prepare_order"),
+    GET_PRODUCTS(2, "get_products"),
+    CONVERT_CURRENCY(3, "convert_currency"),
+    QUOTE_SHIPPING(4, "quote_shipping"),
+    TOTAL_COST(5, "total_cost"),
+    CHARGE_PAYMENT(6, "charge_payment"),
+    SHIP_ORDER(7, "ship_order"),
+    EMPTY_CART(8, "empty_cart"),
+    CREATE_RESULT(9, "create_result"),
+    SEND_CONFIRMATION(10, "send_confirmation"),
+    // Not numbered: hands stages 7, 8 and 10 to the outbox when it is enabled
+    ENQUEUE_POST_PAYMENT(0, "enqueue_post_payment"),
+    // Not numbered: takes the place of stages 2 to 5 when the order comes with a quote that holds
+    REDEEM_QUOTE(0, "redeem_quote");
+
+    private final int number;
+    private final String tag;
+
+    CheckoutStage(int number, String tag) {
+        this.number = number;
+        this.tag = tag;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.checkout_service.service;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Wraps each checkout stage in a Micrometer observation.
+ * Every observation becomes a checkout.stage timer and a span that is a child
+ * of the current request's span, tagged with the stage, its outcome and a
+ * bucket of the number of cart lines so that large carts can be told apart.
+ */
+@Component
+public class CheckoutStageObserver {
+    public static final String OBSERVATION_NAME = "checkout.stage";
+
+    private final ObservationRegistry observationRegistry;
+
+    public CheckoutStageObserver(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    public <T> T observe(CheckoutStage stage, int cartLines, Supplier<T> body) {
+        Observation observation = observation(stage, cartLines).start();
+        try (Observation.Scope scope = observation.openScope()) {
+            T result = body.get();
+            observation.lowCardinalityKeyValue("outcome", "success");
+            return result;
+        } catch (RuntimeException e) {
+            observation.lowCardinalityKeyValue("outcome", "error");
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    /**
+     * The same for a stage that completes later. The observation starts when
+     * the Mono is subscribed to, as a child of the observation in the Reactor
+     * context, and stops when the Mono completes, fails or is cancelled.
+     */
+    public <T> Mono<T> observe(CheckoutStage stage, int cartLines, Mono<T> body) {
+        return Mono.deferContextual(context -> {
+            Observation observation = observation(stage, cartLines)
+                    .parentObservation(context.getOrDefault(ObservationThreadLocalAccessor.KEY, null))
+                    .start();
+            return body
+                    .doOnSuccess(result -> observation.lowCardinalityKeyValue("outcome", "success"))
+                    .doOnError(e -> {
+                        observation.lowCardinalityKeyValue("outcome", "error");
+                        observation.error(e);
+                    })
+                    .doOnCancel(() -> observation.lowCardinalityKeyValue("outcome", "cancelled"))
+                    .doFinally(signal -> observation.stop())
+                    .contextWrite(inner -> inner.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    public void run(CheckoutStage stage, int cartLines, Runnable body) {
+        observe(stage, cartLines, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    private Observation observation(CheckoutStage stage, int cartLines) {
+        return Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+                .contextualName("checkout " + stage.getTag())
+                .lowCardinalityKeyValue("stage", stage.getTag())
+                .lowCardinalityKeyValue("cart.size", cartSizeBucket(cartLines));
+    }
+
+    // Few enough buckets to keep the timer's tag cardinality low
+    static String cartSizeBucket(int cartLines) {
+        if (cartLines <= 1) {
+            return "1";
+        }
+        if (cartLines <= 5) {
+            return "2-5";
+        }
+        if (cartLines <= 20) {
+            return "6-20";
+        }
+        return "21+";
+    }
+}
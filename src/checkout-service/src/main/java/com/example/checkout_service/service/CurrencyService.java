@@ -2,6 +2,15 @@ package com.example.checkout_service.service;
 
 import com.example.checkout_service.model.Money;
 
+import java.util.List;
+import java.util.Map;
+
 public interface CurrencyService {
     Money convertCurrency(Money from, String toCurrency);
-}
\ No newline at end of file
+    List<Money> convertCurrencies(List<Money> from, String toCurrency);
+
+    /**
+     * Converts the amounts listed under each target currency, all with the same rates.
+     */
+    Map<String, List<Money>> convertCurrencies(Map<String, List<Money>> fromByTargetCurrency);
+}
@@ -0,0 +1,232 @@
+package com.example.checkout_service.service;
+
+import com.example.checkout_service.dto.PlaceOrderRequest;
+import com.example.checkout_service.dto.PlaceOrderResponse;
+import com.example.checkout_service.exception.DeadlineExceededException;
+import com.example.checkout_service.exception.IdempotencyKeyException;
+import com.example.checkout_service.exception.InvalidRequestException;
+import com.example.checkout_service.util.ChargeAttempt;
+import com.example.checkout_service.util.RequestDeadline;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers PlaceOrder outcomes by Idempotency-Key.
+ * The first request with a key runs the order; concurrent duplicates wait on
+ * its result and later duplicates get the stored response replayed. An
+ * attempt that failed before the charge request went out is forgotten so
+ * the client can retry it. One that failed later, when the card may have
+ * been charged, is kept and its error replayed, since running it again
+ * could charge twice. Keys are scoped to the user and expire after a TTL;
+ * the store is bounded in size.
+ */
+@Component
+public class IdempotencyStore {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<String, Attempt> attempts;
+    private final ObjectMapper objectMapper;
+    private final long waitTimeoutMs;
+    private final Counter executedCounter;
+    private final Counter replayedCounter;
+    private final Counter conflictCounter;
+
+    public IdempotencyStore(ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${checkout.idempotency.ttl-ms:86400000}") long ttlMs,
+                            @Value("${checkout.idempotency.max-keys:100000}") long maxKeys,
+                            @Value("${checkout.idempotency.wait-timeout-ms:30000}") long waitTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.attempts = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxKeys)
+                .build();
+        this.executedCounter = outcomeCounter(meterRegistry, "executed");
+        this.replayedCounter = outcomeCounter(meterRegistry, "replayed");
+        this.conflictCounter = outcomeCounter(meterRegistry, "conflict");
+    }
+
+    /**
+     * Runs the order once per key and returns its response, or the stored one for a duplicate.
+     */
+    public Result execute(String key, PlaceOrderRequest request, Supplier<PlaceOrderResponse> placeOrder) {
+        String scopedKey = scopedKey(key, request);
+        Attempt attempt = new Attempt(fingerprint(request));
+        Attempt existing = attempts.asMap().putIfAbsent(scopedKey, attempt);
+
+        if (existing == null) {
+            executedCounter.increment();
+            ChargeAttempt charge = ChargeAttempt.open();
+            try {
+                PlaceOrderResponse response = placeOrder.get();
+                attempt.result.complete(response);
+                return new Result(response, false);
+            } catch (RuntimeException e) {
+                failed(key, scopedKey, attempt, charge, e);
+                throw e;
+            } finally {
+                ChargeAttempt.close();
+            }
+        }
+
+        replaying(key, request, existing, attempt);
+        return new Result(await(existing), true);
+    }
+
+    /**
+     * The same for the reactive checkout. A duplicate waits for the original
+     * without holding a thread, and the original runs to the end even if its
+     * caller goes away, as it would on a request thread, so a retry finds its outcome.
+     */
+    public Mono<Result> executeReactive(String key, PlaceOrderRequest request,
+                                        Supplier<Mono<PlaceOrderResponse>> placeOrder) {
+        return Mono.deferContextual(context -> {
+            String scopedKey = scopedKey(key, request);
+            Attempt attempt = new Attempt(fingerprint(request));
+            Attempt existing = attempts.asMap().putIfAbsent(scopedKey, attempt);
+
+            if (existing == null) {
+                executedCounter.increment();
+                ChargeAttempt charge = new ChargeAttempt();
+                placeOrder.get()
+                        .contextWrite(Context.of(context).put(ChargeAttempt.CONTEXT_KEY, charge))
+                        .subscribe(attempt.result::complete, e -> failed(key, scopedKey, attempt, charge, e));
+                return Mono.fromFuture(attempt.result, true).map(response -> new Result(response, false));
+            }
+
+            replaying(key, request, existing, attempt);
+            long timeoutMs = Math.max(Math.min(waitTimeoutMs, RequestDeadline.remainingMillis(context)), 0);
+            return Mono.fromFuture(existing.result, true)
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .onErrorMap(TimeoutException.class, e -> waitTimedOut(timeoutMs))
+                    .map(response -> new Result(response, true));
+        });
+    }
+
+    private String scopedKey(String key, PlaceOrderRequest request) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidRequestException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        return request.getUserId() + ":" + key;
+    }
+
+    /**
+     * Forgets a failed attempt unless the card may have been charged, and
+     * hands its error to any duplicate waiting on it.
+     */
+    private void failed(String key, String scopedKey, Attempt attempt, ChargeAttempt charge, Throwable e) {
+        if (charge.mayHaveCharged()) {
+            logger.warn("Order for Idempotency-Key {} failed after the charge was sent; retries get the same error", key);
+        } else {
+            attempts.asMap().remove(scopedKey, attempt);
+        }
+        attempt.result.completeExceptionally(e);
+    }
+
+    private void replaying(String key, PlaceOrderRequest request, Attempt existing, Attempt attempt) {
+        if (!Arrays.equals(existing.fingerprint, attempt.fingerprint)) {
+            conflictCounter.increment();
+            throw new IdempotencyKeyException(
+                    "Idempotency-Key was already used with a different request", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        logger.info("Replaying order for Idempotency-Key {} (user: {})", key, request.getUserId());
+        replayedCounter.increment();
+    }
+
+    private PlaceOrderResponse await(Attempt attempt) {
+        long timeoutMs = Math.max(Math.min(waitTimeoutMs, RequestDeadline.remainingMillis()), 0);
+        try {
+            return attempt.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw waitTimedOut(timeoutMs);
+        } catch (ExecutionException e) {
+            // The duplicate shares the outcome of the attempt it waited on
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private RuntimeException waitTimedOut(long timeoutMs) {
+        if (timeoutMs < waitTimeoutMs) {
+            return new DeadlineExceededException("Request deadline passed waiting for the original request");
+        }
+        conflictCounter.increment();
+        return new IdempotencyKeyException(
+                "A request with this Idempotency-Key is still in progress", HttpStatus.CONFLICT);
+    }
+
+    private byte[] fingerprint(PlaceOrderRequest request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to fingerprint order request", e);
+        }
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("checkout.idempotency.requests")
+                .description("PlaceOrder requests carrying an Idempotency-Key")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static final class Attempt {
+        private final byte[] fingerprint;
+        private final CompletableFuture<PlaceOrderResponse> result = new CompletableFuture<>();
+
+        private Attempt(byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * The response for a request, and whether it was replayed from an earlier attempt.
+     */
+    public static final class Result {
+        private final PlaceOrderResponse response;
+        private final boolean replayed;
+
+        private Result(PlaceOrderResponse response, boolean replayed) {
+            this.response = response;
+            this.replayed = replayed;
+        }
+
+        public PlaceOrderResponse getResponse() {
+            return response;
+        }
+
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.checkout_service.service;
+
+import com.example.checkout_service.dto.PlaceOrderRequest;
+import com.example.checkout_service.exception.InvalidRequestException;
+import com.example.checkout_service.exception.ProductNotFoundException;
+import com.example.checkout_service.model.CartItem;
+import com.example.checkout_service.model.Money;
+import com.example.checkout_service.model.OrderItem;
+import com.example.checkout_service.model.Product;
+import com.example.checkout_service.service.quote.Quote;
+import com.example.checkout_service.service.quote.QuoteTokens;
+import com.example.checkout_service.util.MoneyAccumulator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The steps of pricing an order that need no downstream call, shared by the
+ * blocking and the reactive checkout.
+ */
+final class OrderPricing {
+    private static final Logger logger = LoggerFactory.getLogger(OrderPricing.class);
+    private static final String DEFAULT_CURRENCY = "USD";
+
+    private OrderPricing() {
+    }
+
+    static List<String> productIds(List<CartItem> cartItems) {
+        return cartItems.stream()
+                .map(CartItem::getProductId)
+                .collect(Collectors.toList());
+    }
+
+    // Create a map for easy lookup of products by ID
+    static Map<String, Product> indexProducts(List<Product> products) {
+        return products.stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+    }
+
+    static List<Money> resolvePrices(List<CartItem> cartItems, Map<String, Product> productMap) {
+        List<Money> prices = new ArrayList<>(cartItems.size() + 1);
+        for (CartItem cartItem : cartItems) {
+            prices.add(resolvePrice(cartItem, productMap));
+        }
+        return prices;
+    }
+
+    private static Money resolvePrice(CartItem cartItem, Map<String, Product> productMap) {
+        Product product = productMap.get(cartItem.getProductId());
+        if (product == null) {
+            logger.warn("Product not found for ID: {}", cartItem.getProductId());
+            throw new ProductNotFoundException(cartItem.getProductId());
+        }
+
+        // Ensure the product's price has a currency code
+        Money productPrice = product.getPriceUsd();
+        if (productPrice == null) {
+            logger.warn("Product price is null for ID: {}", cartItem.getProductId());
+            throw new InvalidRequestException("Product price is null for ID: " + cartItem.getProductId());
+        }
+
+        // Set default currency code if it's null
+        if (productPrice.getCurrencyCode() == null) {
+            logger.warn("Product price currency code is null for ID: {}, defaulting to USD", cartItem.getProductId());
+            productPrice.setCurrencyCode(DEFAULT_CURRENCY);
+        }
+        return productPrice;
+    }
+
+    // The amounts that are not already in user currency, in order
+    static List<Money> toConvert(List<Money> amounts, String userCurrency) {
+        List<Money> pending = new ArrayList<>();
+        for (Money amount : amounts) {
+            if (!amount.getCurrencyCode().equals(userCurrency)) {
+                pending.add(amount);
+            }
+        }
+        return pending;
+    }
+
+    // Puts the converted amounts back where toConvert took them from
+    static List<Money> withConverted(List<Money> amounts, List<Money> converted, String userCurrency) {
+        List<Money> result = new ArrayList<>(amounts);
+        Iterator<Money> next = converted.iterator();
+        for (int i = 0; i < result.size(); i++) {
+            if (!result.get(i).getCurrencyCode().equals(userCurrency)) {
+                result.set(i, next.next());
+            }
+        }
+        return result;
+    }
+
+    static List<OrderItem> toOrderItems(List<CartItem> cartItems, List<Money> itemPrices) {
+        List<OrderItem> orderItems = new ArrayList<>(cartItems.size());
+        for (int i = 0; i < cartItems.size(); i++) {
+            orderItems.add(toOrderItem(cartItems.get(i), itemPrices.get(i)));
+        }
+        return orderItems;
+    }
+
+    private static OrderItem toOrderItem(CartItem cartItem, Money itemPrice) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(cartItem);
+        orderItem.setCost(itemPrice);
+        return orderItem;
+    }
+
+    static Money totalCost(List<OrderItem> orderItems, Money shippingCost, String userCurrency) {
+        MoneyAccumulator total = new MoneyAccumulator(userCurrency);
+        for (OrderItem orderItem : orderItems) {
+            total.add(orderItem.getCost(), orderItem.getItem().getQuantity());
+        }
+        return total.add(shippingCost).toMoney();
+    }
+
+    // The converted line prices followed by the converted shipping cost
+    static Pricing total(CheckoutStageObserver stages, List<CartItem> cartItems, List<Money> converted,
+                         String userCurrency) {
+        Money shippingCost = converted.remove(converted.size() - 1);
+        List<OrderItem> orderItems = toOrderItems(cartItems, converted);
+
+        // 5. Add shipping cost to total
+        Money total = stages.observe(CheckoutStage.TOTAL_COST, cartItems.size(),
+                () -> totalCost(orderItems, shippingCost, userCurrency));
+        return new Pricing(orderItems, shippingCost, total);
+    }
+
+    // The quoted prices if the order has a quote that is genuine, unexpired and for this cart
+    static Pricing redeemQuote(QuoteTokens quoteTokens, CheckoutStageObserver stages, PlaceOrderRequest request) {
+        String token = request.getQuoteToken();
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        List<CartItem> cartItems = request.getItems();
+        return stages.observe(CheckoutStage.REDEEM_QUOTE, cartItems.size(), () -> {
+            Quote quote = quoteTokens.redeem(token,
+                    QuoteTokens.cartKey(request.getUserCurrency(), request.getAddress(), cartItems));
+            if (quote == null) {
+                return null;
+            }
+            return new Pricing(toOrderItems(cartItems, quote.getItemPrices()), quote.getShippingCost(),
+                    quote.getTotalCost());
+        });
+    }
+
+    /**
+     * The prices of an order in the user's currency.
+     */
+    static final class Pricing {
+        final List<OrderItem> items;
+        final Money shippingCost;
+        final Money total;
+
+        private Pricing(List<OrderItem> items, Money shippingCost, Money total) {
+            this.items = items;
+            this.shippingCost = shippingCost;
+            this.total = total;
+        }
+    }
+}
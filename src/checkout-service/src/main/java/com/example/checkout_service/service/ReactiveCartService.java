@@ -0,0 +1,11 @@
+package com.example.checkout_service.service;
+
+import com.example.checkout_service.model.CartItem;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveCartService {
+    Mono<List<CartItem>> getCart(String userId);
+    Mono<Void> emptyCart(String userId);
+}
@@ -0,0 +1,15 @@
+package com.example.checkout_service.service;
+
+import com.example.checkout_service.dto.PlaceOrderRequest;
+import com.example.checkout_service.dto.PlaceOrderResponse;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCheckoutService {
+
+    /**
+     * Places an order like CheckoutService.placeOrder without holding a thread
+     * while downstream calls are in flight. The request's deadline is taken
+     * from the Reactor context.
+     */
+    Mono<PlaceOrderResponse> placeOrder(PlaceOrderRequest request);
+}
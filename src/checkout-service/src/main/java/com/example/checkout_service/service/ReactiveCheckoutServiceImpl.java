@@ -0,0 +1,290 @@
+package com.example.checkout_service.service;
+
+import com.example.checkout_service.dto.PlaceOrderRequest;
+import com.example.checkout_service.dto.PlaceOrderResponse;
+import com.example.checkout_service.exception.CurrencyConversionException;
+import com.example.checkout_service.exception.DeadlineExceededException;
+import com.example.checkout_service.exception.ExternalServiceException;
+import com.example.checkout_service.exception.ShippingException;
+import com.example.checkout_service.model.CartItem;
+import com.example.checkout_service.model.Money;
+import com.example.checkout_service.model.OrderResult;
+import com.example.checkout_service.model.Product;
+import com.example.checkout_service.service.OrderPricing.Pricing;
+import com.example.checkout_service.service.order.OrderRecord;
+import com.example.checkout_service.service.order.OrderStore;
+import com.example.checkout_service.service.outbox.OutboxEntry;
+import com.example.checkout_service.service.outbox.OutboxStore;
+import com.example.checkout_service.service.quote.QuoteTokens;
+import com.example.checkout_service.util.RequestDeadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+
+import static com.example.checkout_service.service.OrderPricing.productIds;
+import static com.example.checkout_service.service.OrderPricing.redeemQuote;
+import static com.example.checkout_service.service.OrderPricing.resolvePrices;
+import static com.example.checkout_service.service.OrderPricing.toConvert;
+import static com.example.checkout_service.service.OrderPricing.total;
+import static com.example.checkout_service.service.OrderPricing.withConverted;
+
+/**
+ * The parallel checkout as one non-blocking pipeline on WebClient. The product
+ * batch and the shipping quote start together and all prices are converted
+ * once both arrive; after payment the cart is emptied while the order ships,
+ * and then the confirmation is sent. No thread waits on a downstream call, so
+ * in-flight orders are bounded by the connection pools rather than by the
+ * request and checkout executor threads.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCheckoutServiceImpl implements ReactiveCheckoutService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCheckoutServiceImpl.class);
+
+    private final ReactiveProductCatalogService productService;
+    private final ReactiveCurrencyService currencyService;
+    private final ReactiveShippingService shippingService;
+    private final ReactivePaymentService paymentService;
+    private final ReactiveCartService cartService;
+    private final ReactiveEmailService emailService;
+    private final OutboxStore outboxStore;
+    private final OrderStore orderStore;
+    private final QuoteTokens quoteTokens;
+    private final CheckoutStageObserver stages;
+    private final long callTimeoutMs;
+    private final boolean outboxEnabled;
+
+    public ReactiveCheckoutServiceImpl(ReactiveProductCatalogService productService,
+                                       ReactiveCurrencyService currencyService,
+                                       ReactiveShippingService shippingService,
+                                       ReactivePaymentService paymentService,
+                                       ReactiveCartService cartService,
+                                       ReactiveEmailService emailService,
+                                       OutboxStore outboxStore,
+                                       OrderStore orderStore,
+                                       QuoteTokens quoteTokens,
+                                       CheckoutStageObserver stages,
+                                       @Value("${checkout.execution.call-timeout-ms:5000}") long callTimeoutMs,
+                                       @Value("${checkout.outbox.enabled:true}") boolean outboxEnabled) {
+        this.productService = productService;
+        this.currencyService = currencyService;
+        this.shippingService = shippingService;
+        this.paymentService = paymentService;
+        this.cartService = cartService;
+        this.emailService = emailService;
+        this.outboxStore = outboxStore;
+        this.orderStore = orderStore;
+        this.quoteTokens = quoteTokens;
+        this.stages = stages;
+        this.callTimeoutMs = callTimeoutMs;
+        this.outboxEnabled = outboxEnabled;
+        logger.info("Checkout execution mode: reactive, post-payment outbox {}", outboxEnabled ? "enabled" : "disabled");
+    }
+
+    @Override
+    public Mono<PlaceOrderResponse> placeOrder(PlaceOrderRequest request) {
+        return Mono.defer(() -> {
+            logger.info("PlaceOrder called by userId: {}, with currency: {}",
+                       request.getUserId(), request.getUserCurrency());
+            int lines = request.getItems().size();
+
+            // 1. Generate a random order ID
+            String orderId = stages.observe(CheckoutStage.PREPARE_ORDER, lines, () -> UUID.randomUUID().toString());
+
+            // 2-5. Price the order, unless it comes with a quote that still holds
+            Pricing quoted = redeemQuote(quoteTokens, stages, request);
+            Mono<Pricing> pricing = quoted != null ? Mono.just(quoted) : price(request);
+
+            return underDeadline(pricing).flatMap(priced -> committed(chargeAndFinish(orderId, request, priced)));
+        });
+    }
+
+    private Mono<Pricing> price(PlaceOrderRequest request) {
+        String userCurrency = request.getUserCurrency();
+        List<CartItem> cartItems = request.getItems();
+        int lines = cartItems.size();
+
+        // 2. Product batch, in parallel with the shipping quote below
+        Mono<Map<String, Product>> products = call("ProductCatalog",
+                stages.observe(CheckoutStage.GET_PRODUCTS, lines,
+                        productService.getMultipleProducts(productIds(cartItems)).map(OrderPricing::indexProducts)));
+
+        // 4. Shipping quote
+        Mono<Money> shippingQuote = call("Shipping",
+                stages.observe(CheckoutStage.QUOTE_SHIPPING, lines,
+                        shippingService.getShippingQuote(request.getAddress(), cartItems)
+                                .onErrorMap(e -> new ShippingException("Failed to get shipping quote", e))));
+
+        // 3. One conversion call for every line price and the shipping cost, once both are known
+        return Mono.zip(products, shippingQuote)
+                .flatMap(quotes -> {
+                    List<Money> prices = resolvePrices(cartItems, quotes.getT1());
+                    prices.add(quotes.getT2());
+                    return call("Currency",
+                            stages.observe(CheckoutStage.CONVERT_CURRENCY, lines, convertAll(prices, userCurrency)));
+                })
+                .map(converted -> total(stages, cartItems, converted, userCurrency));
+    }
+
+    private Mono<PlaceOrderResponse> chargeAndFinish(String orderId, PlaceOrderRequest request, Pricing pricing) {
+        int lines = request.getItems().size();
+
+        // 6. Process payment
+        Mono<String> charge = stages.observe(CheckoutStage.CHARGE_PAYMENT, lines,
+                paymentService.chargeCard(pricing.total, request.getCreditCard()));
+
+        return underDeadline(charge).flatMap(transactionId -> {
+            logger.info("Payment went through (transaction_id: {})", transactionId);
+
+            // 9. Create the order result; the tracking ID is set once the order ships
+            OrderResult orderResult = stages.observe(CheckoutStage.CREATE_RESULT, lines, () -> new OrderResult(
+                    orderId,
+                    null,
+                    pricing.total,
+                    pricing.shippingCost,
+                    request.getAddress(),
+                    pricing.items));
+
+            // 7, 8, 10. Leave shipping, cart and email to the outbox when it takes the order
+            return enqueuePostPayment(request, orderResult)
+                    .flatMap(queued -> queued ? Mono.<Void>empty() : finishOrder(request, orderResult))
+                    .then(Mono.fromSupplier(() -> placed(request, orderResult)))
+                    // Once the card is charged the remaining steps run without the request's deadline
+                    .contextWrite(context -> context.delete(RequestDeadline.CONTEXT_KEY));
+        });
+    }
+
+    private Mono<Void> finishOrder(PlaceOrderRequest request, OrderResult orderResult) {
+        int lines = request.getItems().size();
+
+        // 8. Empty the cart while the order ships
+        Mono<Void> emptyCart = emptyCart(request.getUserId(), lines);
+
+        // 7. Ship order, then 10. send the confirmation email
+        Mono<Void> shipAndConfirm = call("Shipping",
+                stages.observe(CheckoutStage.SHIP_ORDER, lines,
+                        shippingService.shipOrder(request.getAddress(), request.getItems())
+                                .onErrorMap(e -> new ShippingException("Failed to ship order", e))))
+                .doOnNext(orderResult::setShippingTrackingId)
+                .then(sendConfirmation(request.getEmail(), orderResult));
+
+        return Mono.when(emptyCart, shipAndConfirm);
+    }
+
+    // Queues the finished order for the order history, which is written in the background
+    private PlaceOrderResponse placed(PlaceOrderRequest request, OrderResult orderResult) {
+        orderStore.submit(new OrderRecord(request.getUserId(), orderResult));
+        return new PlaceOrderResponse("Your order is successfull", orderResult);
+    }
+
+    // Convert the amounts that are not already in user currency with a single batch call
+    private Mono<List<Money>> convertAll(List<Money> amounts, String userCurrency) {
+        List<Money> pending = toConvert(amounts, userCurrency);
+        if (pending.isEmpty()) {
+            return Mono.just(new ArrayList<>(amounts));
+        }
+        return currencyService.convertCurrencies(pending, userCurrency)
+                .map(converted -> withConverted(amounts, converted, userCurrency))
+                .onErrorMap(e -> new CurrencyConversionException("Failed to convert " + pending.size() +
+                                                                 " amounts to " + userCurrency, e));
+    }
+
+    /**
+     * Records the post-payment steps in the outbox for the dispatcher to run,
+     * on a thread that may block on the write. Emits false when the outbox is
+     * disabled or the record could not be written, in which case the caller
+     * runs the steps itself.
+     */
+    private Mono<Boolean> enqueuePostPayment(PlaceOrderRequest request, OrderResult orderResult) {
+        if (!outboxEnabled) {
+            return Mono.just(false);
+        }
+        return Mono.fromCallable(() -> {
+                    stages.run(CheckoutStage.ENQUEUE_POST_PAYMENT, request.getItems().size(), () -> {
+                        try {
+                            outboxStore.enqueue(new OutboxEntry(
+                                    request.getUserId(),
+                                    request.getEmail(),
+                                    request.getAddress(),
+                                    request.getItems(),
+                                    orderResult));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    logger.info("Post-payment steps queued for order {}", orderResult.getOrderId());
+                    return true;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(UncheckedIOException.class, e -> {
+                    logger.error("Failed to queue post-payment steps for order {}, running them inline",
+                            orderResult.getOrderId(), e.getCause());
+                    return Mono.just(false);
+                });
+    }
+
+    // Best effort: a failure is logged and never fails the order
+    private Mono<Void> emptyCart(String userId, int cartLines) {
+        if (userId == null || userId.isEmpty()) {
+            return Mono.empty();
+        }
+        return call("Cart", stages.observe(CheckoutStage.EMPTY_CART, cartLines, cartService.emptyCart(userId)))
+                .doOnSuccess(ignored -> logger.info("Cart emptied for user: {}", userId))
+                .onErrorResume(e -> {
+                    logger.warn("Failed to empty cart for user: {}", userId, e);
+                    return Mono.empty();
+                });
+    }
+
+    // Best effort: a failure is logged and never fails the order
+    private Mono<Void> sendConfirmation(String email, OrderResult orderResult) {
+        return call("Email", stages.observe(CheckoutStage.SEND_CONFIRMATION, orderResult.getItems().size(),
+                        emailService.sendOrderConfirmation(email, orderResult)))
+                .doOnSuccess(ignored -> logger.info("Order confirmation email sent to: {}", email))
+                .onErrorResume(e -> {
+                    logger.warn("Failed to send order confirmation to: {}", email, e);
+                    return Mono.empty();
+                });
+    }
+
+    // Whichever call gave up first, the cause is the missed deadline
+    private <T> Mono<T> underDeadline(Mono<T> body) {
+        return body.onErrorResume(e -> Mono.deferContextual(context -> {
+            if (!(e instanceof DeadlineExceededException) && RequestDeadline.remainingMillis(context) <= 0) {
+                return Mono.error(new DeadlineExceededException("Request deadline passed while placing the order", e));
+            }
+            return Mono.error(e);
+        }));
+    }
+
+    /**
+     * Once the card may be charged the order has to go through, so from there
+     * on it runs to the end even if the caller gives up and cancels.
+     */
+    private <T> Mono<T> committed(Mono<T> body) {
+        return Mono.deferContextual(context -> Mono.fromFuture(body.contextWrite(context).toFuture(), true));
+    }
+
+    private <T> Mono<T> call(String serviceName, Mono<T> call) {
+        return Mono.deferContextual(context -> {
+            long timeoutMs = Math.max(Math.min(callTimeoutMs, RequestDeadline.remainingMillis(context)), 0);
+            return call.timeout(Duration.ofMillis(timeoutMs))
+                    .onErrorMap(TimeoutException.class, e -> timeoutMs < callTimeoutMs
+                            ? new DeadlineExceededException("Request deadline passed waiting for " + serviceName)
+                            : new ExternalServiceException(serviceName, "No response within " + callTimeoutMs + " ms"));
+        });
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.checkout_service.service;
+
+import com.example.checkout_service.model.Money;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveCurrencyService {
+    Mono<List<Money>> convertCurrencies(List<Money> from, String toCurrency);
+}
@@ -0,0 +1,8 @@
+package com.example.checkout_service.service;
+
+import com.example.checkout_service.model.OrderResult;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveEmailService {
+    Mono<Void> sendOrderConfirmation(String email, OrderResult order);
+}
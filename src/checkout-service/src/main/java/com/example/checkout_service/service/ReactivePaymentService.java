@@ -0,0 +1,9 @@
+package com.example.checkout_service.service;
+
+import com.example.checkout_service.model.CreditCardInfo;
+import com.example.checkout_service.model.Money;
+import reactor.core.publisher.Mono;
+
+public interface ReactivePaymentService {
+    Mono<String> chargeCard(Money amount, CreditCardInfo creditCard);
+}
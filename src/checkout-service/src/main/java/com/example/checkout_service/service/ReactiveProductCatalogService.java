@@ -0,0 +1,10 @@
+package com.example.checkout_service.service;
+
+import com.example.checkout_service.model.Product;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveProductCatalogService {
+    Mono<List<Product>> getMultipleProducts(List<String> productIds);
+}
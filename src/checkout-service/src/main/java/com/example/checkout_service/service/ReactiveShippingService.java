@@ -0,0 +1,13 @@
+package com.example.checkout_service.service;
+
+import com.example.checkout_service.model.Address;
+import com.example.checkout_service.model.CartItem;
+import com.example.checkout_service.model.Money;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveShippingService {
+    Mono<Money> getShippingQuote(Address address, List<CartItem> items);
+    Mono<String> shipOrder(Address address, List<CartItem> items);
+}
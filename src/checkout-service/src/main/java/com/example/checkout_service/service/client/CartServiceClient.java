@@ -2,6 +2,8 @@ package com.example.checkout_service.service.client;
 
 import com.example.checkout_service.model.CartItem;
 import com.example.checkout_service.service.CartService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,6 +18,7 @@ import java.util.List;
 @Service
 public class CartServiceClient implements CartService {
     private static final Logger logger = LoggerFactory.getLogger(CartServiceClient.class);
+    private static final String SERVICE_NAME = "Cart";
 
     private final RestTemplate restTemplate;
     private final String cartServiceUrl;
@@ -26,6 +29,8 @@ public class CartServiceClient implements CartService {
     }
 
     @Override
+    @Bulkhead(name = "cart")
+    @CircuitBreaker(name = "cart", fallbackMethod = "getCartFallback")
     public List<CartItem> getCart(String userId) {
         logger.info("Getting cart for user: {}", userId);
         
@@ -39,8 +44,19 @@ public class CartServiceClient implements CartService {
     }
 
     @Override
+    @Bulkhead(name = "cart")
+    @CircuitBreaker(name = "cart", fallbackMethod = "emptyCartFallback")
     public void emptyCart(String userId) {
         logger.info("Emptying cart for user: {}", userId);
-        restTemplate.delete(cartServiceUrl + "api/v1/carts/" + userId);
+        restTemplate.delete(cartServiceUrl + "/api/v1/carts/" + userId);
     }
-}
\ No newline at end of file
+
+    private List<CartItem> getCartFallback(String userId, Throwable t) {
+        throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+    }
+
+    // Emptying the cart is best effort; the outbox retries it later
+    private void emptyCartFallback(String userId, Throwable t) {
+        throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.checkout_service.service.client;
+
+import com.example.checkout_service.exception.ExternalServiceException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * Shared fallback behaviour for the downstream clients guarded by a circuit breaker and bulkhead.
+ */
+final class ClientFallbacks {
+
+    private ClientFallbacks() {
+    }
+
+    /**
+     * Whether the failure says the service is down or unreachable, rather than that it
+     * rejected the request: an open breaker, a full bulkhead, an I/O failure or a 5xx.
+     * Only these may be answered from a cached or last known value.
+     */
+    static boolean isOutage(Throwable t) {
+        if (t instanceof CallNotPermittedException || t instanceof BulkheadFullException) {
+            return true;
+        }
+        if (t instanceof ResourceAccessException || t instanceof HttpServerErrorException) {
+            return true;
+        }
+        if (t instanceof WebClientRequestException) {
+            return true;
+        }
+        return t instanceof WebClientResponseException response && response.getStatusCode().is5xxServerError();
+    }
+
+    /**
+     * Turns an open breaker or a full bulkhead into an immediate ExternalServiceException;
+     * any other failure is passed through unchanged.
+     */
+    static RuntimeException unavailable(String serviceName, Throwable t) {
+        if (t instanceof CallNotPermittedException) {
+            return new ExternalServiceException(serviceName, "circuit breaker is open, failing fast");
+        }
+        if (t instanceof BulkheadFullException) {
+            return new ExternalServiceException(serviceName, "too many concurrent calls, failing fast");
+        }
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        return new ExternalServiceException(serviceName, t);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.checkout_service.service.client;
+
+import com.example.checkout_service.dto.RatesSnapshotResponse;
+import com.example.checkout_service.model.Money;
+import com.example.checkout_service.util.MoneyMath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local copy of the Currency Service rate table.
+ * Refreshed in the background with If-None-Match so an unchanged table costs
+ * an empty 304; conversions are done in-process while the copy is fresh.
+ */
+@Component
+public class CurrencyRateTable {
+    private static final Logger logger = LoggerFactory.getLogger(CurrencyRateTable.class);
+
+    private final RestTemplate restTemplate;
+    private final String currencyServiceUrl;
+    private final boolean enabled;
+    private final long maxAgeMs;
+    private final long staleLimitMs;
+
+    private volatile Snapshot snapshot;
+
+    public CurrencyRateTable(RestTemplate restTemplate,
+                             @Value("${services.currency.url}") String currencyServiceUrl,
+                             @Value("${checkout.fx.local-rates.enabled:true}") boolean enabled,
+                             @Value("${checkout.fx.max-age-ms:600000}") long maxAgeMs,
+                             @Value("${checkout.fx.stale-limit-ms:3600000}") long staleLimitMs) {
+        this.restTemplate = restTemplate;
+        this.currencyServiceUrl = currencyServiceUrl;
+        this.enabled = enabled;
+        this.maxAgeMs = maxAgeMs;
+        this.staleLimitMs = staleLimitMs;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${checkout.fx.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+
+        Snapshot current = snapshot;
+        HttpHeaders headers = new HttpHeaders();
+        if (current != null) {
+            headers.setIfNoneMatch("\"" + current.getVersion() + "\"");
+        }
+
+        try {
+            ResponseEntity<RatesSnapshotResponse> response = restTemplate.exchange(
+                    currencyServiceUrl + "/api/v1/rates",
+                    HttpMethod.GET,
+                    new HttpEntity<>(headers),
+                    RatesSnapshotResponse.class);
+
+            long now = System.currentTimeMillis();
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && current != null) {
+                snapshot = new Snapshot(current.getVersion(), current.rates, now);
+                logger.debug("Currency rates unchanged (version {})", current.getVersion());
+                return;
+            }
+
+            RatesSnapshotResponse body = response.getBody();
+            if (body == null || body.getVersion() == null || body.getRates() == null || body.getRates().isEmpty()) {
+                logger.warn("Currency service returned an empty rate snapshot, keeping current table");
+                return;
+            }
+
+            snapshot = new Snapshot(body.getVersion(), Map.copyOf(body.getRates()), now);
+            logger.info("Loaded currency rates version {} with {} currencies", body.getVersion(), body.getRates().size());
+        } catch (RestClientException e) {
+            logger.warn("Failed to refresh currency rates, keeping version {}: {}",
+                    current != null ? current.getVersion() : "none", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the current table, or null when it is missing, disabled or older than the allowed age.
+     */
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (!enabled || current == null || System.currentTimeMillis() - current.fetchedAt > maxAgeMs) {
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the last table loaded even when past the allowed age, or null when none was
+     * loaded or it is older than the stale limit. Meant for fallbacks while the Currency
+     * Service is unreachable; past the limit an order fails rather than use such old rates.
+     */
+    public Snapshot lastKnown() {
+        Snapshot current = snapshot;
+        if (!enabled || current == null || System.currentTimeMillis() - current.fetchedAt > staleLimitMs) {
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * An immutable version of the rate table. Rates are EUR based, as in the Currency Service.
+     */
+    public static final class Snapshot {
+        // The Currency Service rounds results to 0.0001
+        private static final long RESULT_STEP_NANOS = 100_000L;
+
+        private final String version;
+        private final Map<String, Double> rates;
+        private final long fetchedAt;
+
+        private Snapshot(String version, Map<String, Double> rates, long fetchedAt) {
+            this.version = version;
+            this.rates = rates;
+            this.fetchedAt = fetchedAt;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Converts with the same cross-rate as the Currency Service, rounded like it to four decimals.
+         *
+         * @return the converted amount in nanos, or null if either currency is unknown
+         */
+        public Long convert(String from, String to, long amountNanos) {
+            Double fromRate = rates.get(from.toUpperCase());
+            Double toRate = rates.get(to.toUpperCase());
+            if (fromRate == null || toRate == null) {
+                return null;
+            }
+            return MoneyMath.scale(amountNanos, toRate / fromRate, RESULT_STEP_NANOS);
+        }
+
+        /**
+         * Converts every amount, or returns null if any of the currencies is unknown.
+         */
+        public List<Money> convert(List<Money> from, String to) {
+            List<Money> converted = new ArrayList<>(from.size());
+            for (Money money : from) {
+                Long result = convert(money.getCurrencyCode(), to, MoneyMath.toNanos(money));
+                if (result == null) {
+                    return null;
+                }
+                converted.add(MoneyMath.toMoney(result, to));
+            }
+            return converted;
+        }
+    }
+}
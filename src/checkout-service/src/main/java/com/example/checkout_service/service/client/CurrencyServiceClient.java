@@ -1,8 +1,12 @@
 package com.example.checkout_service.service.client;
 
+import com.example.checkout_service.dto.BatchCurrencyConversionResponse;
 import com.example.checkout_service.dto.CurrencyConversionResponse;
 import com.example.checkout_service.model.Money;
 import com.example.checkout_service.service.CurrencyService;
+import com.example.checkout_service.util.MoneyMath;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,23 +15,50 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.http.ResponseEntity;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class CurrencyServiceClient implements CurrencyService {
     private static final Logger logger = LoggerFactory.getLogger(CurrencyServiceClient.class);
+    private static final String SERVICE_NAME = "Currency";
 
     private final RestTemplate restTemplate;
     private final String currencyServiceUrl;
+    private final CurrencyRateTable rateTable;
+    private final WireFormat wireFormat;
+    private final int maxBatchItems;
 
-    public CurrencyServiceClient(RestTemplate restTemplate, @Value("${services.currency.url}") String currencyServiceUrl) {
+    public CurrencyServiceClient(RestTemplate restTemplate, @Value("${services.currency.url}") String currencyServiceUrl,
+                                 CurrencyRateTable rateTable, WireFormat wireFormat,
+                                 @Value("${checkout.currency.max-batch-items:10000}") int maxBatchItems) {
         this.restTemplate = restTemplate;
         this.currencyServiceUrl = currencyServiceUrl;
+        this.rateTable = rateTable;
+        this.wireFormat = wireFormat;
+        this.maxBatchItems = maxBatchItems;
     }
 
     @Override
+    @Bulkhead(name = "currency")
+    @CircuitBreaker(name = "currency", fallbackMethod = "convertCurrencyFallback")
     public Money convertCurrency(Money from, String toCurrency) {
         String fromCurrency = from.getCurrencyCode();
-        // Calculate total amount in dollars and cents
-        double amount = from.getUnits() + (from.getNanos() / 1_000_000_000.0);
+        long amountNanos = MoneyMath.toNanos(from);
+
+        // Convert in-process while the local rate table is fresh
+        CurrencyRateTable.Snapshot rates = rateTable.current();
+        Long localResult = rates != null ? rates.convert(fromCurrency, toCurrency, amountNanos) : null;
+        if (localResult != null) {
+            Money converted = MoneyMath.toMoney(localResult, toCurrency);
+            logger.debug("Converted {} to {} with local rates {}", from, converted, rates.getVersion());
+            return converted;
+        }
+
+        // The Currency Service takes and returns plain decimal amounts
+        double amount = MoneyMath.toDouble(amountNanos);
 
         logger.info("Converting {} {} to {}", amount, fromCurrency, toCurrency);
 
@@ -39,20 +70,161 @@ public class CurrencyServiceClient implements CurrencyService {
                 .toUriString();
 
         ResponseEntity<CurrencyConversionResponse> response = restTemplate.getForEntity(url, CurrencyConversionResponse.class);
-        
+
         if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
             logger.error("Failed to convert currency from {} {} to {}", amount, fromCurrency, toCurrency);
             throw new RuntimeException("Currency conversion failed");
         }
-        
+
         double convertedAmount = response.getBody().getResult();
-        
-        // Convert to Money format (units and nanos)
-        long units = (long) convertedAmount;
-        int nanos = (int) ((convertedAmount - units) * 1_000_000_000);
-        
+
         logger.info("Conversion result: {} {} = {} {}", amount, fromCurrency, convertedAmount, toCurrency);
-        
-        return new Money(units, nanos, toCurrency);
+
+        return toMoney(convertedAmount, toCurrency);
+    }
+
+    @Override
+    @Bulkhead(name = "currency")
+    @CircuitBreaker(name = "currency", fallbackMethod = "convertCurrenciesFallback")
+    public List<Money> convertCurrencies(List<Money> from, String toCurrency) {
+        if (from.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Money> local = convertLocally(from, toCurrency);
+        if (local != null) {
+            return local;
+        }
+        return convertRemotely(from, toCurrency);
+    }
+
+    /**
+     * Converts every list with one snapshot of the local rate table, so that a
+     * refresh in the middle cannot price two orders of a batch differently.
+     * Without a usable table each target currency takes one batch call.
+     */
+    @Override
+    @Bulkhead(name = "currency")
+    @CircuitBreaker(name = "currency", fallbackMethod = "convertCurrenciesByTargetFallback")
+    public Map<String, List<Money>> convertCurrencies(Map<String, List<Money>> fromByTargetCurrency) {
+        CurrencyRateTable.Snapshot rates = rateTable.current();
+        Map<String, List<Money>> converted = new HashMap<>();
+        for (Map.Entry<String, List<Money>> target : fromByTargetCurrency.entrySet()) {
+            List<Money> local = convertLocally(target.getValue(), target.getKey(), rates);
+            converted.put(target.getKey(), local != null ? local : convertRemotely(target.getValue(), target.getKey()));
+        }
+        return converted;
+    }
+
+    // One batch call per max-batch-items amounts, the most the Currency Service takes at once
+    private List<Money> convertRemotely(List<Money> from, String toCurrency) {
+        List<Money> converted = new ArrayList<>(from.size());
+        for (int start = 0; start < from.size(); start += maxBatchItems) {
+            converted.addAll(convertBatch(from.subList(start, Math.min(from.size(), start + maxBatchItems)), toCurrency));
+        }
+        return converted;
+    }
+
+    private List<Money> convertBatch(List<Money> from, String toCurrency) {
+        logger.info("Converting {} amounts to {}", from.size(), toCurrency);
+
+        ResponseEntity<BatchCurrencyConversionResponse> response = restTemplate.postForEntity(
+                currencyServiceUrl + "/api/v1/convert/batch",
+                wireFormat.entity(batchRequest(from, toCurrency)),
+                BatchCurrencyConversionResponse.class);
+
+        BatchCurrencyConversionResponse body = response.getBody();
+        if (!response.getStatusCode().is2xxSuccessful() || body == null
+                || body.getResults() == null || body.getResults().size() != from.size()) {
+            logger.error("Failed to convert {} amounts to {}", from.size(), toCurrency);
+            throw new RuntimeException("Currency conversion failed");
+        }
+
+        List<Money> converted = toMoney(body, toCurrency);
+
+        logger.info("Converted {} amounts to {}", converted.size(), toCurrency);
+
+        return converted;
+    }
+
+    static Map<String, Object> batchRequest(List<Money> from, String toCurrency) {
+        List<Map<String, Object>> items = new ArrayList<>(from.size());
+        for (Money money : from) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("from", money.getCurrencyCode());
+            item.put("amount", MoneyMath.toDouble(MoneyMath.toNanos(money)));
+            items.add(item);
+        }
+
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("to", toCurrency);
+        requestMap.put("items", items);
+        return requestMap;
+    }
+
+    static List<Money> toMoney(BatchCurrencyConversionResponse body, String toCurrency) {
+        List<Money> converted = new ArrayList<>(body.getResults().size());
+        for (CurrencyConversionResponse result : body.getResults()) {
+            converted.add(toMoney(result.getResult(), toCurrency));
+        }
+        return converted;
+    }
+
+    // While the Currency Service is down, fall back to the last rate table we loaded unless it is
+    // past checkout.fx.stale-limit-ms; any other failure fails the order as it is
+    private Money convertCurrencyFallback(Money from, String toCurrency, Throwable t) {
+        List<Money> converted = convertLocally(List.of(from), toCurrency, fallbackRates(t));
+        if (converted == null) {
+            throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+        }
+        logger.warn("Currency service unavailable ({}), converted with last known rates", t.getMessage());
+        return converted.get(0);
+    }
+
+    private List<Money> convertCurrenciesFallback(List<Money> from, String toCurrency, Throwable t) {
+        List<Money> converted = convertLocally(from, toCurrency, fallbackRates(t));
+        if (converted == null) {
+            throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+        }
+        logger.warn("Currency service unavailable ({}), converted {} amounts with last known rates", t.getMessage(), from.size());
+        return converted;
+    }
+
+    private Map<String, List<Money>> convertCurrenciesByTargetFallback(Map<String, List<Money>> fromByTargetCurrency,
+                                                                      Throwable t) {
+        CurrencyRateTable.Snapshot rates = fallbackRates(t);
+        Map<String, List<Money>> converted = new HashMap<>();
+        for (Map.Entry<String, List<Money>> target : fromByTargetCurrency.entrySet()) {
+            List<Money> local = convertLocally(target.getValue(), target.getKey(), rates);
+            if (local == null) {
+                throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+            }
+            converted.put(target.getKey(), local);
+        }
+        logger.warn("Currency service unavailable ({}), converted {} currencies with last known rates",
+                t.getMessage(), converted.size());
+        return converted;
+    }
+
+    private CurrencyRateTable.Snapshot fallbackRates(Throwable t) {
+        return ClientFallbacks.isOutage(t) ? rateTable.lastKnown() : null;
+    }
+
+    private List<Money> convertLocally(List<Money> from, String toCurrency) {
+        return convertLocally(from, toCurrency, rateTable.current());
+    }
+
+    // Returns null when the table is missing or lacks one of the currencies
+    private List<Money> convertLocally(List<Money> from, String toCurrency, CurrencyRateTable.Snapshot rates) {
+        List<Money> converted = rates != null ? rates.convert(from, toCurrency) : null;
+        if (converted != null) {
+            logger.debug("Converted {} amounts to {} with local rates {}", converted.size(), toCurrency, rates.getVersion());
+        }
+        return converted;
+    }
+
+    // Convert to Money format (units and nanos), rounding to the nearest nano rather than truncating
+    private static Money toMoney(double amount, String currencyCode) {
+        return MoneyMath.toMoney(MoneyMath.fromDouble(amount), currencyCode);
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,11 @@
 package com.example.checkout_service.service.client;
 
+import com.example.checkout_service.exception.DeadlineExceededException;
 import com.example.checkout_service.exception.ExternalServiceException;
 import com.example.checkout_service.model.OrderResult;
 import com.example.checkout_service.service.EmailService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -32,6 +35,8 @@ public class EmailServiceClient implements EmailService {
     }
 
     @Override
+    @Bulkhead(name = "email")
+    @CircuitBreaker(name = "email", fallbackMethod = "sendOrderConfirmationFallback")
     public void sendOrderConfirmation(String email, OrderResult order) {
         logger.info("Sending order confirmation email to: {}", email);
         
@@ -62,9 +67,16 @@ public class EmailServiceClient implements EmailService {
         } catch (HttpStatusCodeException ex) {
             logger.error("Email service error ({}): {}", ex.getStatusCode(), ex.getResponseBodyAsString());
             throw new ExternalServiceException(SERVICE_NAME, "Email service error: " + ex.getMessage());
+        } catch (DeadlineExceededException ex) {
+            throw ex;
         } catch (Exception ex) {
             logger.error("Failed to send email", ex);
             throw new ExternalServiceException(SERVICE_NAME, ex.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Skip the send without waiting on the email service; the outbox retries it later
+    private void sendOrderConfirmationFallback(String email, OrderResult order, Throwable t) {
+        throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+    }
+}
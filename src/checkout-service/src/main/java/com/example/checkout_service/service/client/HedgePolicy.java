@@ -0,0 +1,76 @@
+package com.example.checkout_service.service.client;
+
+import java.util.Arrays;
+
+/**
+ * When to hedge one kind of read, and whether a hedge may be sent.
+ * The delay is a percentile of the latencies of the last reads, estimated
+ * again after every tenth of the window. Every read earns max-ratio of a
+ * hedge and every hedge spends a whole one, so hedges stay below that share
+ * of reads however slow the service gets.
+ */
+final class HedgePolicy {
+
+    // Unspent hedges are kept up to this many, so a quiet spell cannot turn into a burst
+    private static final double MAX_BUDGET = 10;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final double maxRatio;
+
+    private final long[] window;
+    private int next;
+    private int count;
+    private int sinceEstimate;
+    private long delayNanos = -1;
+    private double budget;
+
+    HedgePolicy(double percentile, long minDelayNanos, int windowSize, int minSamples, double maxRatio) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("Hedge percentile must be between 0 and 1: " + percentile);
+        }
+        if (maxRatio < 0 || maxRatio > 1) {
+            throw new IllegalArgumentException("Hedge ratio must be between 0 and 1: " + maxRatio);
+        }
+        this.percentile = percentile;
+        this.minDelayNanos = minDelayNanos;
+        this.window = new long[windowSize];
+        this.minSamples = Math.min(Math.max(1, minSamples), windowSize);
+        this.maxRatio = maxRatio;
+    }
+
+    synchronized void record(long latencyNanos) {
+        window[next] = latencyNanos;
+        next = (next + 1) % window.length;
+        if (count < window.length) {
+            count++;
+        }
+        if (count < minSamples || (delayNanos >= 0 && ++sinceEstimate < Math.max(1, window.length / 10))) {
+            return;
+        }
+        sinceEstimate = 0;
+        long[] sorted = Arrays.copyOf(window, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * count) - 1;
+        delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, rank)]);
+    }
+
+    // How long to wait for a read before hedging it, or -1 while too few reads have been seen
+    synchronized long onRead() {
+        budget = Math.min(MAX_BUDGET, budget + maxRatio);
+        return delayNanos;
+    }
+
+    synchronized boolean tryHedge() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+
+    synchronized long getDelayNanos() {
+        return delayNanos;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.checkout_service.service.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests for idempotent reads. A read that has not answered by the
+ * observed percentile of its latency (p95 by default) is sent a second time,
+ * and whichever answer arrives first is used; a failure only counts once both
+ * have failed. The second request leases another pooled connection, which a
+ * load-balanced service URL routes independently of the first. Both run on the
+ * hedge executor with the caller's deadline and trace; when it is busy the read
+ * runs unhedged on the calling thread. Hedges are capped per read by
+ * {@link HedgePolicy}, and the slower request is left to finish so its latency
+ * still counts towards the percentile.
+ */
+@Component
+class HedgedReads {
+    private static final Logger logger = LoggerFactory.getLogger(HedgedReads.class);
+
+    private final boolean enabled;
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final Supplier<HedgePolicy> policies;
+    private final Map<String, Hedge> hedges = new ConcurrentHashMap<>();
+
+    HedgedReads(@Value("${checkout.hedge.enabled:true}") boolean enabled,
+                @Qualifier("hedgeExecutor") Executor executor,
+                MeterRegistry meterRegistry,
+                @Value("${checkout.hedge.percentile:0.95}") double percentile,
+                @Value("${checkout.hedge.min-delay-ms:5}") long minDelayMs,
+                @Value("${checkout.hedge.window-size:1000}") int windowSize,
+                @Value("${checkout.hedge.min-samples:100}") int minSamples,
+                @Value("${checkout.hedge.max-ratio:0.05}") double maxRatio) {
+        this.enabled = enabled;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.policies = () -> new HedgePolicy(percentile, minDelayMs * 1_000_000L, windowSize, minSamples, maxRatio);
+        // Fails startup on settings no policy can be made from
+        policies.get();
+    }
+
+    /**
+     * Runs {@code request}, hedging it if it is slow. {@code call} names the
+     * kind of read; each has its own latency window, cap and metrics.
+     */
+    <T> T read(String call, Supplier<T> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        Hedge hedge = hedges.computeIfAbsent(call, this::register);
+        hedge.reads.increment();
+        long delayNanos = hedge.policy.onRead();
+
+        // Until there is a percentile to wait for, the read runs unhedged on the calling thread
+        CompletableFuture<T> primary = delayNanos < 0 ? null : submit(request, hedge);
+        if (primary == null) {
+            long start = System.nanoTime();
+            try {
+                return request.get();
+            } finally {
+                hedge.policy.record(System.nanoTime() - start);
+            }
+        }
+
+        try {
+            return primary.get(delayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Slower than the percentile: hedge below
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+
+        if (!hedge.policy.tryHedge()) {
+            hedge.capped.increment();
+            return join(primary);
+        }
+        CompletableFuture<T> second;
+        try {
+            second = CompletableFuture.supplyAsync(request, executor);
+        } catch (RejectedExecutionException e) {
+            return join(primary);
+        }
+        hedge.sent.increment();
+        logger.debug("Hedged {} read after {} ms", call, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+        return join(firstSuccess(primary, second, hedge.won));
+    }
+
+    // The read started on the hedge executor and timed, or null if the executor is busy
+    private <T> CompletableFuture<T> submit(Supplier<T> request, Hedge hedge) {
+        long start = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(request, executor)
+                    .whenComplete((result, error) -> hedge.policy.record(System.nanoTime() - start));
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    private Hedge register(String call) {
+        Hedge hedge = new Hedge(policies.get(),
+                counter("checkout.hedge.reads", "Hedgeable reads", call),
+                counter("checkout.hedge.sent", "Hedges sent for reads slower than the hedge delay", call),
+                counter("checkout.hedge.won", "Hedges that answered before the read they hedged", call),
+                counter("checkout.hedge.capped", "Slow reads not hedged because the hedge budget was spent", call));
+        TimeGauge.builder("checkout.hedge.delay", hedge.policy, TimeUnit.NANOSECONDS,
+                        policy -> policy.getDelayNanos() < 0 ? Double.NaN : policy.getDelayNanos())
+                .description("How long a read is waited for before it is hedged")
+                .tag("call", call)
+                .register(meterRegistry);
+        return hedge;
+    }
+
+    private Counter counter(String name, String description, String call) {
+        return Counter.builder(name).description(description).tag("call", call).register(meterRegistry);
+    }
+
+    private static <T> CompletableFuture<T> firstSuccess(CompletableFuture<T> primary, CompletableFuture<T> second,
+                                                         Counter won) {
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((result, error) -> {
+            if (error == null) {
+                first.complete(result);
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        });
+        second.whenComplete((result, error) -> {
+            if (error == null) {
+                if (first.complete(result)) {
+                    won.increment();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        });
+        return first;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error instanceof RuntimeException ? (RuntimeException) error : new CompletionException(error);
+    }
+
+    private static final class Hedge {
+        private final HedgePolicy policy;
+        private final Counter reads;
+        private final Counter sent;
+        private final Counter won;
+        private final Counter capped;
+
+        private Hedge(HedgePolicy policy, Counter reads, Counter sent, Counter won, Counter capped) {
+            this.policy = policy;
+            this.reads = reads;
+            this.sent = sent;
+            this.won = won;
+            this.capped = capped;
+        }
+    }
+}
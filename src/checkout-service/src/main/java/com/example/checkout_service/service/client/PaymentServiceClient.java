@@ -1,11 +1,17 @@
 package com.example.checkout_service.service.client;
 
+import com.example.checkout_service.dto.PaymentErrorResponse;
 import com.example.checkout_service.dto.PaymentServiceCardDto;
+import com.example.checkout_service.exception.DeadlineExceededException;
 import com.example.checkout_service.exception.ExternalServiceException;
 import com.example.checkout_service.exception.PaymentProcessingException;
 import com.example.checkout_service.model.CreditCardInfo;
 import com.example.checkout_service.model.Money;
 import com.example.checkout_service.service.PaymentService;
+import com.example.checkout_service.util.ChargeAttempt;
+import com.example.checkout_service.util.RequestDeadline;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,8 +20,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.ConnectException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -26,13 +34,18 @@ public class PaymentServiceClient implements PaymentService {
 
     private final RestTemplate restTemplate;
     private final String paymentServiceUrl;
+    private final WireFormat wireFormat;
 
-    public PaymentServiceClient(RestTemplate restTemplate, @Value("${services.payment.url}") String paymentServiceUrl) {
+    public PaymentServiceClient(RestTemplate restTemplate, @Value("${services.payment.url}") String paymentServiceUrl,
+                                WireFormat wireFormat) {
         this.restTemplate = restTemplate;
         this.paymentServiceUrl = paymentServiceUrl;
+        this.wireFormat = wireFormat;
     }
 
     @Override
+    @Bulkhead(name = "payment")
+    @CircuitBreaker(name = "payment", fallbackMethod = "chargeCardFallback")
     public String chargeCard(Money amount, CreditCardInfo creditCard) {
         logger.info("Charging card for amount: {} {}", amount.getUnits(), amount.getCurrencyCode());
         
@@ -52,10 +65,16 @@ public class PaymentServiceClient implements PaymentService {
         requestMap.put("amount", amount);
         requestMap.put("creditCard", paymentCard);
         
+        // Checked here too so that a charge counts as sent only once nothing stops it going out
+        RequestDeadline.check("charging the card");
+        ChargeAttempt attempt = ChargeAttempt.get();
         try {
+            if (attempt != null) {
+                attempt.sent();
+            }
             Map<String, String> response = restTemplate.postForObject(
                     paymentServiceUrl + "/api/v1/charge",
-                    requestMap,
+                    wireFormat.entity(requestMap),
                     Map.class);
                     
             if (response == null || !response.containsKey("transactionId")) {
@@ -69,31 +88,29 @@ public class PaymentServiceClient implements PaymentService {
             
         } catch (HttpClientErrorException ex) {
             // 4xx hataları - genellikle istemci hatası (yani bizim hatamız)
-            logger.error("Payment service client error ({}): {}", ex.getStatusCode(), ex.getResponseBodyAsString());
-            
-            // Kredi kartı hatası durumunda
-            if (ex.getResponseBodyAsString().contains("Credit Card is not valid")) {
-                throw new PaymentProcessingException("The provided credit card information is invalid");
-            } 
-            // Yetersiz bakiye durumunda
-            else if (ex.getResponseBodyAsString().contains("Insufficient funds")) {
-                throw new PaymentProcessingException("Insufficient funds for payment");
-            }
-            // Diğer client hataları
-            else {
-                throw new PaymentProcessingException("Payment processing failed: " + ex.getMessage());
+            if (attempt != null) {
+                attempt.notCharged();
             }
+            String error = errorMessage(ex);
+            logger.error("Payment service client error ({}): {}", ex.getStatusCode(), error);
+            throw refused(ex.getStatusCode().value(), error);
             
         } catch (HttpServerErrorException ex) {
             // 5xx hataları - genellikle sunucu hatası
-            logger.error("Payment service server error ({}): {}", ex.getStatusCode(), ex.getResponseBodyAsString());
-            throw new ExternalServiceException(SERVICE_NAME, "Payment service unavailable or returned an error: " + ex.getMessage());
+            logger.error("Payment service server error ({}): {}", ex.getStatusCode(), errorMessage(ex));
+            throw new ExternalServiceException(SERVICE_NAME, "Payment service unavailable or returned an error: " + ex.getStatusCode());
             
         } catch (ResourceAccessException ex) {
             // Bağlantı hatası
+            if (attempt != null && ex.getCause() instanceof ConnectException) {
+                attempt.notCharged();
+            }
             logger.error("Cannot connect to payment service", ex);
             throw new ExternalServiceException(SERVICE_NAME, "Cannot connect to payment service: " + ex.getMessage());
             
+        } catch (DeadlineExceededException ex) {
+            throw ex;
+
         } catch (Exception ex) {
             // Diğer tüm hatalar
             logger.error("Unexpected error during payment processing", ex);
@@ -101,7 +118,39 @@ public class PaymentServiceClient implements PaymentService {
         }
     }
 
-    private PaymentServiceCardDto convertToPaymentServiceFormat(CreditCardInfo creditCard) {
+    // No fallback for a charge: fail fast while the breaker is open
+    private String chargeCardFallback(Money amount, CreditCardInfo creditCard, Throwable t) {
+        throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+    }
+
+    // The error the payment service answered with, decoded like any other response so that a
+    // Smile body is read as Smile; null when there is none or it cannot be read
+    private static String errorMessage(RestClientResponseException ex) {
+        try {
+            PaymentErrorResponse body = ex.getResponseBodyAs(PaymentErrorResponse.class);
+            return body != null ? body.getError() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Turns the error of a refused charge into the reason given to the customer.
+     */
+    static PaymentProcessingException refused(int status, String error) {
+        // Kredi kartı hatası durumunda
+        if (error != null && error.contains("Credit Card is not valid")) {
+            return new PaymentProcessingException("The provided credit card information is invalid");
+        }
+        // Yetersiz bakiye durumunda
+        if (error != null && error.contains("Insufficient funds")) {
+            return new PaymentProcessingException("Insufficient funds for payment");
+        }
+        // Diğer client hataları
+        return new PaymentProcessingException("Payment processing failed: " + status + (error != null ? " " + error : ""));
+    }
+
+    static PaymentServiceCardDto convertToPaymentServiceFormat(CreditCardInfo creditCard) {
         PaymentServiceCardDto paymentCard = new PaymentServiceCardDto();
         
         // Convert number field to cardNo
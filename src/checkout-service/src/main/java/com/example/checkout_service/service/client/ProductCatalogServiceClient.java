@@ -1,68 +1,274 @@
 package com.example.checkout_service.service.client;
 
 import com.example.checkout_service.dto.BatchProductsResponse;
+import com.example.checkout_service.exception.ExternalServiceException;
 import com.example.checkout_service.service.ProductCatalogService;
+import com.example.checkout_service.model.Money;
 import com.example.checkout_service.model.Product;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * Product Catalog client with a near cache of products.
+ * Batch lookups only ask the catalog for the IDs that are not cached, and
+ * concurrent misses for the same ID share one request. Every cached product
+ * is tagged with the catalog version it was read at; the version is polled in
+ * the background and read from every batch response, and products from an
+ * older version are refetched before they are used. Until the catalog has
+ * sent a version, lookups go straight to it.
+ */
 @Service
 public class ProductCatalogServiceClient implements ProductCatalogService {
     private static final Logger logger = LoggerFactory.getLogger(ProductCatalogServiceClient.class);
+    private static final String SERVICE_NAME = "ProductCatalog";
+    private static final String CATALOG_VERSION_HEADER = "X-Catalog-Version";
+
+    // The catalog rejects batch requests for more IDs than this
+    static final int MAX_BATCH_SIZE = 20;
+
+    // Orders are priced from these alone, so names, descriptions and pictures are left behind
+    static final String BATCH_FIELDS = "id,priceUsd";
 
     private final RestTemplate restTemplate;
     private final String productServiceUrl;
+    private final WireFormat wireFormat;
+    private final HedgedReads hedgedReads;
+    private final boolean cacheEnabled;
+    private final AsyncCache<String, CachedProduct> products;
+
+    private volatile String catalogVersion;
 
-    public ProductCatalogServiceClient(RestTemplate restTemplate, @Value("${services.product.url}") String productServiceUrl) {
+    public ProductCatalogServiceClient(RestTemplate restTemplate,
+                                       @Value("${services.product.url}") String productServiceUrl,
+                                       WireFormat wireFormat,
+                                       HedgedReads hedgedReads,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${checkout.product-cache.enabled:true}") boolean cacheEnabled,
+                                       @Value("${checkout.product-cache.ttl-ms:300000}") long ttlMs,
+                                       @Value("${checkout.product-cache.max-size:10000}") long maxSize) {
         this.restTemplate = restTemplate;
         this.productServiceUrl = productServiceUrl;
+        this.wireFormat = wireFormat;
+        this.hedgedReads = hedgedReads;
+        this.cacheEnabled = cacheEnabled;
+        this.products = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxSize)
+                .recordStats()
+                .buildAsync(), "products");
     }
 
     @Override
+    @Bulkhead(name = "productCatalog")
+    @CircuitBreaker(name = "productCatalog", fallbackMethod = "getProductFallback")
     public Product getProduct(String productId) {
         logger.info("Getting product: {}", productId);
         return restTemplate.getForObject(
-                productServiceUrl + "/api/v1/products/" + productId, 
+                productServiceUrl + "/api/v1/products/" + productId,
                 Product.class);
     }
 
     @Override
+    @Bulkhead(name = "productCatalog")
+    @CircuitBreaker(name = "productCatalog", fallbackMethod = "getMultipleProductsFallback")
     public List<Product> getMultipleProducts(List<String> productIds) {
         if (productIds == null || productIds.isEmpty()) {
             logger.warn("Empty product ID list provided to getMultipleProducts");
             return new ArrayList<>();
         }
-        
+
+        // Products from a catalog that sends no version could never be used, so they are not cached
+        if (!cacheEnabled || catalogVersion == null) {
+            return copies(productIds, fetch(new LinkedHashSet<>(productIds)));
+        }
+
+        Map<String, CachedProduct> found = lookup(productIds);
+
+        // Products read at an older catalog version are dropped and read again
+        List<String> stale = new ArrayList<>();
+        for (Map.Entry<String, CachedProduct> entry : found.entrySet()) {
+            if (!isCurrent(entry.getValue())) {
+                stale.add(entry.getKey());
+            }
+        }
+        if (!stale.isEmpty()) {
+            logger.debug("Refreshing {} products cached at an older catalog version", stale.size());
+            products.synchronous().invalidateAll(stale);
+            found.putAll(lookup(stale));
+        }
+
+        return copies(productIds, found);
+    }
+
+    /**
+     * Polls the catalog version so price changes reach the cache without waiting for the TTL.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${checkout.product-cache.version-check-interval-ms:5000}")
+    public void refreshCatalogVersion() {
+        if (!cacheEnabled) {
+            return;
+        }
+        try {
+            ResponseEntity<Map> response = restTemplate.getForEntity(
+                    productServiceUrl + "/api/v1/products/version",
+                    Map.class);
+            observeVersion(response.getHeaders().getFirst(CATALOG_VERSION_HEADER));
+        } catch (RestClientException e) {
+            logger.debug("Failed to check catalog version, keeping {}: {}", catalogVersion, e.getMessage());
+        }
+    }
+
+    // Orders cannot be priced without the catalog, so both lookups fail fast
+    private Product getProductFallback(String productId, Throwable t) {
+        throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+    }
+
+    // Unless every product is already cached at the current catalog version
+    private List<Product> getMultipleProductsFallback(List<String> productIds, Throwable t) {
+        if (!cacheEnabled || productIds == null) {
+            throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+        }
+
+        Map<String, CachedProduct> found = new HashMap<>();
+        for (String productId : productIds) {
+            CompletableFuture<CachedProduct> cached = products.getIfPresent(productId);
+            CachedProduct product = cached != null && cached.isDone() && !cached.isCompletedExceptionally()
+                    ? cached.join() : null;
+            if (product == null || !isCurrent(product)) {
+                throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+            }
+            found.put(productId, product);
+        }
+
+        logger.warn("Product catalog unavailable ({}), using {} cached products", t.getMessage(), found.size());
+        return copies(productIds, found);
+    }
+
+    // Cached products for the IDs, loading the missing ones in batches on the calling thread.
+    // IDs the catalog does not know are left out of the result.
+    private Map<String, CachedProduct> lookup(List<String> productIds) {
+        try {
+            return new HashMap<>(products.getAll(productIds, (missing, executor) -> {
+                try {
+                    return CompletableFuture.completedFuture(fetch(missing));
+                } catch (RuntimeException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }).join());
+        } catch (CompletionException e) {
+            // Also thrown to callers that waited on another request's load
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ExternalServiceException(SERVICE_NAME, cause);
+        }
+    }
+
+    private Map<String, CachedProduct> fetch(Set<? extends String> productIds) {
         logger.info("Getting multiple products: {}", productIds);
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        
-        // Create the request entity with the product IDs list as the body
-        HttpEntity<List<String>> requestEntity = new HttpEntity<>(productIds, headers);
-        
-        BatchProductsResponse response = restTemplate.postForObject(
-                productServiceUrl + "/api/v1/products/batch",
-                requestEntity,
-                BatchProductsResponse.class);
-        
-        if (response == null || response.getProducts() == null) {
-            logger.warn("No products returned from batch request");
-            return new ArrayList<>();
+
+        List<String> ids = new ArrayList<>(productIds);
+        Map<String, CachedProduct> fetched = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_SIZE) {
+            // Create the request entity with the product IDs list as the body
+            HttpEntity<List<String>> requestEntity = wireFormat.entity(
+                    ids.subList(from, Math.min(ids.size(), from + MAX_BATCH_SIZE)));
+
+            ResponseEntity<BatchProductsResponse> response = hedgedReads.read("product-batch",
+                    () -> restTemplate.postForEntity(
+                            productServiceUrl + "/api/v1/products/batch?fields=" + BATCH_FIELDS,
+                            requestEntity,
+                            BatchProductsResponse.class));
+
+            String version = response.getHeaders().getFirst(CATALOG_VERSION_HEADER);
+            observeVersion(version);
+
+            BatchProductsResponse body = response.getBody();
+            if (body == null || body.getProducts() == null) {
+                logger.warn("No products returned from batch request");
+                continue;
+            }
+            for (Product product : body.getProducts()) {
+                fetched.put(product.getId(), new CachedProduct(product, version));
+            }
+        }
+
+        logger.info("Retrieved {} products from batch request", fetched.size());
+
+        return fetched;
+    }
+
+    private void observeVersion(String version) {
+        String previous = catalogVersion;
+        if (version == null || version.equals(previous)) {
+            return;
+        }
+        catalogVersion = version;
+        if (previous != null) {
+            logger.info("Catalog version changed from {} to {}, dropping cached products", previous, version);
+            products.synchronous().invalidateAll();
+        }
+    }
+
+    // A product read without a version is never served from the cache
+    private boolean isCurrent(CachedProduct product) {
+        return product.version != null && product.version.equals(catalogVersion);
+    }
+
+    // One copy per distinct ID, since callers may fill in the price's currency code
+    private List<Product> copies(List<String> productIds, Map<String, CachedProduct> found) {
+        List<Product> result = new ArrayList<>(found.size());
+        for (String productId : new LinkedHashSet<>(productIds)) {
+            CachedProduct cached = found.get(productId);
+            if (cached != null) {
+                result.add(copy(cached.product));
+            }
+        }
+        if (result.size() < productIds.size()) {
+            logger.debug("Catalog returned {} of {} requested products", result.size(), productIds.size());
+        }
+        return result;
+    }
+
+    private Product copy(Product product) {
+        Money price = product.getPriceUsd();
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getPicture(),
+                price != null ? new Money(price.getUnits(), price.getNanos(), price.getCurrencyCode()) : null);
+    }
+
+    private static final class CachedProduct {
+        private final Product product;
+        private final String version;
+
+        private CachedProduct(Product product, String version) {
+            this.product = product;
+            this.version = version;
         }
-        
-        logger.info("Retrieved {} products from batch request", response.getProducts().size());
-        
-        return response.getProducts();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package com.example.checkout_service.service.client;
+
+import com.example.checkout_service.model.CartItem;
+import com.example.checkout_service.service.ReactiveCartService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Service
+@Profile("reactive")
+public class ReactiveCartServiceClient implements ReactiveCartService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCartServiceClient.class);
+    private static final String SERVICE_NAME = "Cart";
+
+    private final WebClient webClient;
+    private final String cartServiceUrl;
+
+    public ReactiveCartServiceClient(WebClient webClient, @Value("${services.cart.url}") String cartServiceUrl) {
+        this.webClient = webClient;
+        this.cartServiceUrl = cartServiceUrl;
+    }
+
+    @Override
+    @Bulkhead(name = "cart")
+    @CircuitBreaker(name = "cart", fallbackMethod = "getCartFallback")
+    public Mono<List<CartItem>> getCart(String userId) {
+        logger.info("Getting cart for user: {}", userId);
+
+        return webClient.get()
+                .uri(cartServiceUrl + "/api/v1/carts/" + userId)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<List<CartItem>>() {});
+    }
+
+    @Override
+    @Bulkhead(name = "cart")
+    @CircuitBreaker(name = "cart", fallbackMethod = "emptyCartFallback")
+    public Mono<Void> emptyCart(String userId) {
+        logger.info("Emptying cart for user: {}", userId);
+
+        return webClient.delete()
+                .uri(cartServiceUrl + "/api/v1/carts/" + userId)
+                .retrieve()
+                .toBodilessEntity()
+                .then();
+    }
+
+    private Mono<List<CartItem>> getCartFallback(String userId, Throwable t) {
+        return Mono.error(ClientFallbacks.unavailable(SERVICE_NAME, t));
+    }
+
+    private Mono<Void> emptyCartFallback(String userId, Throwable t) {
+        return Mono.error(ClientFallbacks.unavailable(SERVICE_NAME, t));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.checkout_service.service.client;
+
+import com.example.checkout_service.dto.BatchCurrencyConversionResponse;
+import com.example.checkout_service.model.Money;
+import com.example.checkout_service.service.ReactiveCurrencyService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CurrencyServiceClient on WebClient. Conversions are done in-process with
+ * the shared local rate table whenever it has the currencies, exactly as
+ * on the blocking path, so the call is only made without one.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCurrencyServiceClient implements ReactiveCurrencyService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCurrencyServiceClient.class);
+    private static final String SERVICE_NAME = "Currency";
+
+    private final WebClient webClient;
+    private final String currencyServiceUrl;
+    private final CurrencyRateTable rateTable;
+    private final WireFormat wireFormat;
+
+    public ReactiveCurrencyServiceClient(WebClient webClient, @Value("${services.currency.url}") String currencyServiceUrl,
+                                         CurrencyRateTable rateTable, WireFormat wireFormat) {
+        this.webClient = webClient;
+        this.currencyServiceUrl = currencyServiceUrl;
+        this.rateTable = rateTable;
+        this.wireFormat = wireFormat;
+    }
+
+    @Override
+    @Bulkhead(name = "currency")
+    @CircuitBreaker(name = "currency", fallbackMethod = "convertCurrenciesFallback")
+    public Mono<List<Money>> convertCurrencies(List<Money> from, String toCurrency) {
+        if (from.isEmpty()) {
+            return Mono.just(new ArrayList<>());
+        }
+
+        List<Money> local = convertLocally(from, toCurrency, rateTable.current());
+        if (local != null) {
+            return Mono.just(local);
+        }
+
+        logger.info("Converting {} amounts to {}", from.size(), toCurrency);
+        return webClient.post()
+                .uri(currencyServiceUrl + "/api/v1/convert/batch")
+                .headers(wireFormat::headers)
+                .bodyValue(CurrencyServiceClient.batchRequest(from, toCurrency))
+                .retrieve()
+                .bodyToMono(BatchCurrencyConversionResponse.class)
+                .filter(body -> body.getResults() != null && body.getResults().size() == from.size())
+                .switchIfEmpty(Mono.error(() -> {
+                    logger.error("Failed to convert {} amounts to {}", from.size(), toCurrency);
+                    return new RuntimeException("Currency conversion failed");
+                }))
+                .map(body -> {
+                    List<Money> converted = CurrencyServiceClient.toMoney(body, toCurrency);
+                    logger.info("Converted {} amounts to {}", converted.size(), toCurrency);
+                    return converted;
+                });
+    }
+
+    // While the Currency Service is down, fall back to the last rate table we loaded unless it is
+    // past checkout.fx.stale-limit-ms; any other failure fails the order as it is
+    private Mono<List<Money>> convertCurrenciesFallback(List<Money> from, String toCurrency, Throwable t) {
+        List<Money> converted = convertLocally(from, toCurrency, ClientFallbacks.isOutage(t) ? rateTable.lastKnown() : null);
+        if (converted == null) {
+            return Mono.error(ClientFallbacks.unavailable(SERVICE_NAME, t));
+        }
+        logger.warn("Currency service unavailable ({}), converted {} amounts with last known rates", t.getMessage(), from.size());
+        return Mono.just(converted);
+    }
+
+    // Returns null when the table is missing or lacks one of the currencies
+    private List<Money> convertLocally(List<Money> from, String toCurrency, CurrencyRateTable.Snapshot rates) {
+        List<Money> converted = rates != null ? rates.convert(from, toCurrency) : null;
+        if (converted != null) {
+            logger.debug("Converted {} amounts to {} with local rates {}", converted.size(), toCurrency, rates.getVersion());
+        }
+        return converted;
+    }
+}
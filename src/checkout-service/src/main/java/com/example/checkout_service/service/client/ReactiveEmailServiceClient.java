@@ -0,0 +1,71 @@
+package com.example.checkout_service.service.client;
+
+import com.example.checkout_service.exception.DeadlineExceededException;
+import com.example.checkout_service.exception.ExternalServiceException;
+import com.example.checkout_service.model.OrderResult;
+import com.example.checkout_service.service.ReactiveEmailService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Service
+@Profile("reactive")
+public class ReactiveEmailServiceClient implements ReactiveEmailService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveEmailServiceClient.class);
+    private static final String SERVICE_NAME = "Email";
+
+    private final WebClient webClient;
+    private final String emailServiceUrl;
+
+    public ReactiveEmailServiceClient(WebClient webClient, @Value("${services.email.url}") String emailServiceUrl) {
+        this.webClient = webClient;
+        this.emailServiceUrl = emailServiceUrl;
+    }
+
+    @Override
+    @Bulkhead(name = "email")
+    @CircuitBreaker(name = "email", fallbackMethod = "sendOrderConfirmationFallback")
+    public Mono<Void> sendOrderConfirmation(String email, OrderResult order) {
+        logger.info("Sending order confirmation email to: {}", email);
+
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("email", email);
+        requestMap.put("order", order);
+
+        return webClient.post()
+                .uri(emailServiceUrl + "/api/v1/send-order-confirmation")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requestMap)
+                .retrieve()
+                .bodyToMono(String.class)
+                .doOnNext(body -> logger.info("Email sent successfully: {}", body))
+                .onErrorMap(ex -> {
+                    if (ex instanceof WebClientResponseException response) {
+                        logger.error("Email service error ({}): {}", response.getStatusCode(), response.getResponseBodyAsString());
+                        return new ExternalServiceException(SERVICE_NAME, "Email service error: " + ex.getMessage());
+                    }
+                    if (ex instanceof DeadlineExceededException) {
+                        return ex;
+                    }
+                    logger.error("Failed to send email", ex);
+                    return new ExternalServiceException(SERVICE_NAME, ex.getMessage());
+                })
+                .then();
+    }
+
+    // Skip the send without waiting on the email service; the outbox retries it later
+    private Mono<Void> sendOrderConfirmationFallback(String email, OrderResult order, Throwable t) {
+        return Mono.error(ClientFallbacks.unavailable(SERVICE_NAME, t));
+    }
+}
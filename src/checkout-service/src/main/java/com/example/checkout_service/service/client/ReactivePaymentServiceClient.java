@@ -0,0 +1,137 @@
+package com.example.checkout_service.service.client;
+
+import com.example.checkout_service.dto.PaymentErrorResponse;
+import com.example.checkout_service.exception.DeadlineExceededException;
+import com.example.checkout_service.exception.ExternalServiceException;
+import com.example.checkout_service.exception.PaymentProcessingException;
+import com.example.checkout_service.model.CreditCardInfo;
+import com.example.checkout_service.model.Money;
+import com.example.checkout_service.service.ReactivePaymentService;
+import com.example.checkout_service.util.ChargeAttempt;
+import com.example.checkout_service.util.RequestDeadline;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PaymentServiceClient on WebClient, with the same errors for the same failures.
+ */
+@Service
+@Profile("reactive")
+public class ReactivePaymentServiceClient implements ReactivePaymentService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactivePaymentServiceClient.class);
+    private static final String SERVICE_NAME = "Payment";
+
+    private final WebClient webClient;
+    private final String paymentServiceUrl;
+    private final WireFormat wireFormat;
+
+    public ReactivePaymentServiceClient(WebClient webClient, @Value("${services.payment.url}") String paymentServiceUrl,
+                                        WireFormat wireFormat) {
+        this.webClient = webClient;
+        this.paymentServiceUrl = paymentServiceUrl;
+        this.wireFormat = wireFormat;
+    }
+
+    @Override
+    @Bulkhead(name = "payment")
+    @CircuitBreaker(name = "payment", fallbackMethod = "chargeCardFallback")
+    public Mono<String> chargeCard(Money amount, CreditCardInfo creditCard) {
+        if (amount == null) {
+            return Mono.error(new PaymentProcessingException("Payment amount cannot be null"));
+        }
+        if (creditCard == null) {
+            return Mono.error(new PaymentProcessingException("Credit card information cannot be null"));
+        }
+        logger.info("Charging card for amount: {} {}", amount.getUnits(), amount.getCurrencyCode());
+
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("amount", amount);
+        requestMap.put("creditCard", PaymentServiceClient.convertToPaymentServiceFormat(creditCard));
+
+        return Mono.deferContextual(context -> {
+            // Checked here too so that a charge counts as sent only once nothing stops it going out
+            if (RequestDeadline.remainingMillis(context) <= 0) {
+                return Mono.error(new DeadlineExceededException("Request deadline passed before charging the card"));
+            }
+            ChargeAttempt attempt = ChargeAttempt.get(context);
+            return webClient.post()
+                    .uri(paymentServiceUrl + "/api/v1/charge")
+                    .headers(wireFormat::headers)
+                    .bodyValue(requestMap)
+                    .retrieve()
+                    .bodyToMono(Map.class)
+                    .doOnSubscribe(subscription -> {
+                        if (attempt != null) {
+                            attempt.sent();
+                        }
+                    })
+                    .defaultIfEmpty(Map.of())
+                    .map(response -> {
+                        Object transactionId = response.get("transactionId");
+                        if (transactionId == null) {
+                            logger.error("Payment service returned an invalid response: {}", response);
+                            throw new ExternalServiceException(SERVICE_NAME, "Payment service returned an invalid response");
+                        }
+                        logger.info("Successfully processed payment with transaction ID: {}", transactionId);
+                        return (String) transactionId;
+                    })
+                    .onErrorMap(ex -> chargeFailure(ex, attempt));
+        });
+    }
+
+    private Throwable chargeFailure(Throwable ex, ChargeAttempt attempt) {
+        if (ex instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+            if (attempt != null) {
+                attempt.notCharged();
+            }
+            String error = errorMessage(response);
+            logger.error("Payment service client error ({}): {}", response.getStatusCode(), error);
+            return PaymentServiceClient.refused(response.getStatusCode().value(), error);
+        }
+        if (ex instanceof WebClientResponseException response) {
+            logger.error("Payment service server error ({}): {}", response.getStatusCode(), errorMessage(response));
+            return new ExternalServiceException(SERVICE_NAME, "Payment service unavailable or returned an error: " + response.getStatusCode());
+        }
+        if (ex instanceof WebClientRequestException) {
+            if (attempt != null && ex.getCause() instanceof ConnectException) {
+                attempt.notCharged();
+            }
+            logger.error("Cannot connect to payment service", ex);
+            return new ExternalServiceException(SERVICE_NAME, "Cannot connect to payment service: " + ex.getMessage());
+        }
+        if (ex instanceof DeadlineExceededException || ex instanceof ExternalServiceException) {
+            return ex;
+        }
+        logger.error("Unexpected error during payment processing", ex);
+        return new ExternalServiceException(SERVICE_NAME, "Unexpected error during payment processing: " + ex.getMessage());
+    }
+
+    // No fallback for a charge: fail fast while the breaker is open
+    private Mono<String> chargeCardFallback(Money amount, CreditCardInfo creditCard, Throwable t) {
+        return Mono.error(ClientFallbacks.unavailable(SERVICE_NAME, t));
+    }
+
+    // The error the payment service answered with, decoded by the WebClient codecs so that a
+    // Smile body is read as Smile; null when there is none or it cannot be read
+    private static String errorMessage(WebClientResponseException ex) {
+        try {
+            PaymentErrorResponse body = ex.getResponseBodyAs(PaymentErrorResponse.class);
+            return body != null ? body.getError() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
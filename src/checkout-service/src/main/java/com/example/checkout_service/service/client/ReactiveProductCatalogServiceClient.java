@@ -0,0 +1,85 @@
+package com.example.checkout_service.service.client;
+
+import com.example.checkout_service.dto.BatchProductsResponse;
+import com.example.checkout_service.model.Product;
+import com.example.checkout_service.service.ReactiveProductCatalogService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Product Catalog client on WebClient. The batches of one lookup are sent
+ * together rather than in turn. There is no near cache and no hedging on this
+ * path: every lookup asks the catalog for the projected fields.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveProductCatalogServiceClient implements ReactiveProductCatalogService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveProductCatalogServiceClient.class);
+    private static final String SERVICE_NAME = "ProductCatalog";
+
+    private final WebClient webClient;
+    private final String productServiceUrl;
+    private final WireFormat wireFormat;
+
+    public ReactiveProductCatalogServiceClient(WebClient webClient,
+                                               @Value("${services.product.url}") String productServiceUrl,
+                                               WireFormat wireFormat) {
+        this.webClient = webClient;
+        this.productServiceUrl = productServiceUrl;
+        this.wireFormat = wireFormat;
+    }
+
+    @Override
+    @Bulkhead(name = "productCatalog")
+    @CircuitBreaker(name = "productCatalog", fallbackMethod = "getMultipleProductsFallback")
+    public Mono<List<Product>> getMultipleProducts(List<String> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            logger.warn("Empty product ID list provided to getMultipleProducts");
+            return Mono.just(new ArrayList<>());
+        }
+        logger.info("Getting multiple products: {}", productIds);
+
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        List<List<String>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += ProductCatalogServiceClient.MAX_BATCH_SIZE) {
+            batches.add(ids.subList(from, Math.min(ids.size(), from + ProductCatalogServiceClient.MAX_BATCH_SIZE)));
+        }
+
+        return Flux.fromIterable(batches)
+                .flatMap(this::fetch)
+                .collectList()
+                .doOnNext(products -> logger.info("Retrieved {} products from batch request", products.size()));
+    }
+
+    private Flux<Product> fetch(List<String> batch) {
+        return webClient.post()
+                .uri(productServiceUrl + "/api/v1/products/batch?fields=" + ProductCatalogServiceClient.BATCH_FIELDS)
+                .headers(wireFormat::headers)
+                .bodyValue(batch)
+                .retrieve()
+                .bodyToMono(BatchProductsResponse.class)
+                .flatMapIterable(body -> {
+                    if (body.getProducts() == null) {
+                        logger.warn("No products returned from batch request");
+                        return List.of();
+                    }
+                    return body.getProducts();
+                });
+    }
+
+    private Mono<List<Product>> getMultipleProductsFallback(List<String> productIds, Throwable t) {
+        return Mono.error(ClientFallbacks.unavailable(SERVICE_NAME, t));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.checkout_service.service.client;
+
+import com.example.checkout_service.dto.ShippingQuoteResponse;
+import com.example.checkout_service.exception.ExternalServiceException;
+import com.example.checkout_service.model.Address;
+import com.example.checkout_service.model.CartItem;
+import com.example.checkout_service.model.Money;
+import com.example.checkout_service.service.ReactiveShippingService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ShippingServiceClient on WebClient, including the fallback to a recent
+ * quote for the same item count. Quotes are not hedged here.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveShippingServiceClient implements ReactiveShippingService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveShippingServiceClient.class);
+    private static final String SERVICE_NAME = "Shipping";
+
+    private final WebClient webClient;
+    private final String shippingServiceUrl;
+    private final WireFormat wireFormat;
+
+    // Last quote seen per total item count, which is all the shipping service prices on
+    private final Cache<Integer, Money> recentQuotes = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .build();
+
+    public ReactiveShippingServiceClient(WebClient webClient, @Value("${services.shipping.url}") String shippingServiceUrl,
+                                         WireFormat wireFormat) {
+        this.webClient = webClient;
+        this.shippingServiceUrl = shippingServiceUrl;
+        this.wireFormat = wireFormat;
+    }
+
+    @Override
+    @Bulkhead(name = "shipping")
+    @CircuitBreaker(name = "shipping", fallbackMethod = "getShippingQuoteFallback")
+    public Mono<Money> getShippingQuote(Address address, List<CartItem> items) {
+        logger.info("Getting shipping quote for address: {} and {} items", address, items.size());
+
+        return webClient.post()
+                .uri(shippingServiceUrl + "/api/v1/shipping/quote")
+                .headers(wireFormat::headers)
+                .bodyValue(shippingRequest(address, items))
+                .retrieve()
+                .bodyToMono(ShippingQuoteResponse.class)
+                .filter(response -> response.getCostUsd() != null)
+                .switchIfEmpty(Mono.error(() -> {
+                    logger.error("Shipping service returned null response or cost");
+                    return new ExternalServiceException(SERVICE_NAME, "Invalid response from shipping service");
+                }))
+                .map(response -> {
+                    Money cost = response.getCostUsd();
+                    if (cost.getCurrencyCode() == null) {
+                        logger.info("Setting default USD currency code for shipping cost");
+                        cost.setCurrencyCode("USD");
+                    }
+                    recentQuotes.put(ShippingServiceClient.totalQuantity(items), ShippingServiceClient.copy(cost));
+                    return cost;
+                });
+    }
+
+    // Quote from the last successful answer for the same number of items, if there is one,
+    // when the shipping service is down; a rejected request or bad answer fails as it is
+    private Mono<Money> getShippingQuoteFallback(Address address, List<CartItem> items, Throwable t) {
+        int quantity = ShippingServiceClient.totalQuantity(items);
+        Money cached = ClientFallbacks.isOutage(t) ? recentQuotes.getIfPresent(quantity) : null;
+        if (cached == null) {
+            return Mono.error(ClientFallbacks.unavailable(SERVICE_NAME, t));
+        }
+        logger.warn("Shipping quote unavailable ({}), using cached quote for {} items", t.getMessage(), quantity);
+        return Mono.just(ShippingServiceClient.copy(cached));
+    }
+
+    @Override
+    @Bulkhead(name = "shipping")
+    @CircuitBreaker(name = "shipping", fallbackMethod = "shipOrderFallback")
+    public Mono<String> shipOrder(Address address, List<CartItem> items) {
+        logger.info("Shipping order to address: {} with {} items", address, items.size());
+
+        return webClient.post()
+                .uri(shippingServiceUrl + "/api/v1/shipping/ship")
+                .headers(wireFormat::headers)
+                .bodyValue(shippingRequest(address, items))
+                .retrieve()
+                .bodyToMono(Map.class)
+                .mapNotNull(response -> (String) response.get("trackingId"));
+    }
+
+    private Mono<String> shipOrderFallback(Address address, List<CartItem> items, Throwable t) {
+        return Mono.error(ClientFallbacks.unavailable(SERVICE_NAME, t));
+    }
+
+    private Map<String, Object> shippingRequest(Address address, List<CartItem> items) {
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put("address", address);
+        requestMap.put("items", items);
+        return requestMap;
+    }
+}
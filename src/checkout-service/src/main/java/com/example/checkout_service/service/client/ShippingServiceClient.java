@@ -6,6 +6,10 @@ import com.example.checkout_service.model.Address;
 import com.example.checkout_service.model.CartItem;
 import com.example.checkout_service.model.Money;
 import com.example.checkout_service.service.ShippingService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -19,16 +23,29 @@ import java.util.Map;
 @Service
 public class ShippingServiceClient implements ShippingService {
     private static final Logger logger = LoggerFactory.getLogger(ShippingServiceClient.class);
+    private static final String SERVICE_NAME = "Shipping";
 
     private final RestTemplate restTemplate;
     private final String shippingServiceUrl;
+    private final WireFormat wireFormat;
+    private final HedgedReads hedgedReads;
 
-    public ShippingServiceClient(RestTemplate restTemplate, @Value("${services.shipping.url}") String shippingServiceUrl) {
+    // Last quote seen per total item count, which is all the shipping service prices on
+    private final Cache<Integer, Money> recentQuotes = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .build();
+
+    public ShippingServiceClient(RestTemplate restTemplate, @Value("${services.shipping.url}") String shippingServiceUrl,
+                                 WireFormat wireFormat, HedgedReads hedgedReads) {
         this.restTemplate = restTemplate;
         this.shippingServiceUrl = shippingServiceUrl;
+        this.wireFormat = wireFormat;
+        this.hedgedReads = hedgedReads;
     }
 
     @Override
+    @Bulkhead(name = "shipping")
+    @CircuitBreaker(name = "shipping", fallbackMethod = "getShippingQuoteFallback")
     public Money getShippingQuote(Address address, List<CartItem> items) {
         logger.info("Getting shipping quote for address: {} and {} items", address, items.size());
         
@@ -36,10 +53,11 @@ public class ShippingServiceClient implements ShippingService {
         requestMap.put("address", address);
         requestMap.put("items", items);
 
-        ShippingQuoteResponse response = restTemplate.postForObject(
+        // A quote changes nothing, so a slow one is hedged
+        ShippingQuoteResponse response = hedgedReads.read("shipping-quote", () -> restTemplate.postForObject(
                 shippingServiceUrl + "/api/v1/shipping/quote",
-                requestMap,
-                ShippingQuoteResponse.class);
+                wireFormat.entity(requestMap),
+                ShippingQuoteResponse.class));
 
         if (response == null || response.getCostUsd() == null) {
             logger.error("Shipping service returned null response or cost");
@@ -52,10 +70,24 @@ public class ShippingServiceClient implements ShippingService {
             cost.setCurrencyCode("USD");
         }
 
+        recentQuotes.put(totalQuantity(items), copy(cost));
         return cost;
     }
 
+    // Quote from the last successful answer for the same number of items, if there is one,
+    // when the shipping service is down; a rejected request or bad answer fails as it is
+    private Money getShippingQuoteFallback(Address address, List<CartItem> items, Throwable t) {
+        Money cached = ClientFallbacks.isOutage(t) ? recentQuotes.getIfPresent(totalQuantity(items)) : null;
+        if (cached == null) {
+            throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+        }
+        logger.warn("Shipping quote unavailable ({}), using cached quote for {} items", t.getMessage(), totalQuantity(items));
+        return copy(cached);
+    }
+
     @Override
+    @Bulkhead(name = "shipping")
+    @CircuitBreaker(name = "shipping", fallbackMethod = "shipOrderFallback")
     public String shipOrder(Address address, List<CartItem> items) {
         logger.info("Shipping order to address: {} with {} items", address, items.size());
         
@@ -65,9 +97,25 @@ public class ShippingServiceClient implements ShippingService {
         
         Map<String, String> response = restTemplate.postForObject(
                 shippingServiceUrl + "/api/v1/shipping/ship",
-                requestMap,
+                wireFormat.entity(requestMap),
                 Map.class);
                 
         return response.get("trackingId");
     }
-}
\ No newline at end of file
+
+    private String shipOrderFallback(Address address, List<CartItem> items, Throwable t) {
+        throw ClientFallbacks.unavailable(SERVICE_NAME, t);
+    }
+
+    static int totalQuantity(List<CartItem> items) {
+        int total = 0;
+        for (CartItem item : items) {
+            total += item.getQuantity();
+        }
+        return total;
+    }
+
+    static Money copy(Money money) {
+        return new Money(money.getUnits(), money.getNanos(), money.getCurrencyCode());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.checkout_service.service.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Encoding of the calls on the hot path of an order: charge, convert,
+ * products/batch, and shipping quote and ship. With checkout.wire-format=smile
+ * the request body is sent as Smile and Smile is asked for back, with JSON as
+ * the fallback for a service that does not speak it.
+ */
+@Component
+class WireFormat {
+    static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final boolean smile;
+
+    WireFormat(@Value("${checkout.wire-format:smile}") String format) {
+        if (!format.equals("smile") && !format.equals("json")) {
+            throw new IllegalArgumentException("checkout.wire-format must be smile or json, not " + format);
+        }
+        this.smile = format.equals("smile");
+    }
+
+    <T> HttpEntity<T> entity(T body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers(headers);
+        return new HttpEntity<>(body, headers);
+    }
+
+    // For WebClient requests, which take their headers from a callback
+    void headers(HttpHeaders headers) {
+        if (smile) {
+            headers.setContentType(SMILE);
+            headers.setAccept(List.of(SMILE, MediaType.APPLICATION_JSON));
+        } else {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        }
+    }
+}
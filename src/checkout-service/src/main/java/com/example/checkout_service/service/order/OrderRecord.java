@@ -0,0 +1,55 @@
+package com.example.checkout_service.service.order;
+
+import com.example.checkout_service.model.OrderResult;
+
+/**
+ * A placed order as kept in the order history.
+ */
+public class OrderRecord {
+    private String orderId;
+    private String userId;
+    private long placedAt;
+    private OrderResult order;
+
+    public OrderRecord() {
+    }
+
+    public OrderRecord(String userId, OrderResult order) {
+        this.orderId = order.getOrderId();
+        this.userId = userId;
+        this.placedAt = System.currentTimeMillis();
+        this.order = order;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public long getPlacedAt() {
+        return placedAt;
+    }
+
+    public void setPlacedAt(long placedAt) {
+        this.placedAt = placedAt;
+    }
+
+    public OrderResult getOrder() {
+        return order;
+    }
+
+    public void setOrder(OrderResult order) {
+        this.order = order;
+    }
+}
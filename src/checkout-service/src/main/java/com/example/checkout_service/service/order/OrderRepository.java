@@ -0,0 +1,23 @@
+package com.example.checkout_service.service.order;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Backend of the order history. Orders reach it in batches from
+ * {@link OrderStore}'s background writer, so a backend can store a whole
+ * batch at once: one append and sync for a file, one send for a queue.
+ * The backend in use is chosen with checkout.orders.store.
+ */
+public interface OrderRepository {
+
+    void saveAll(List<OrderRecord> orders) throws IOException;
+
+    Optional<OrderRecord> findById(String orderId);
+
+    /**
+     * The user's most recent orders, newest first.
+     */
+    List<OrderRecord> findByUserId(String userId, int limit);
+}
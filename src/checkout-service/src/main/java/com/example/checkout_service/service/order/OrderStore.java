@@ -0,0 +1,196 @@
+package com.example.checkout_service.service.order;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Order history with write-behind. Placing an order only puts it on a
+ * bounded queue; a background writer takes orders off in batches of up to
+ * batch-size, waiting at most max-delay-ms after the first for the batch to
+ * fill, and hands each batch to the {@link OrderRepository}. A failed batch
+ * is retried with backoff while orders keep queueing; once the queue is full,
+ * new orders are dropped from the history and counted. Reads also see orders
+ * that are queued but not written yet. Queued orders are written before
+ * shutdown completes, but are lost if the process dies first.
+ */
+@Component
+public class OrderStore {
+    private static final Logger logger = LoggerFactory.getLogger(OrderStore.class);
+
+    private static final long RETRY_BACKOFF_MS = 100;
+    private static final long MAX_RETRY_BACKOFF_MS = 5000;
+
+    private final OrderRepository repository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<OrderRecord> queue;
+    private final Map<String, OrderRecord> unwritten = new ConcurrentHashMap<>();
+    private final Thread writer;
+    private final Counter written;
+    private final Counter droppedQueueFull;
+    private final Counter droppedWriteFailed;
+    private final DistributionSummary batchSizes;
+    private final Timer batchWrites;
+
+    private volatile boolean running = true;
+
+    public OrderStore(OrderRepository repository,
+                      MeterRegistry meterRegistry,
+                      @Value("${checkout.orders.enabled:true}") boolean enabled,
+                      @Value("${checkout.orders.batch-size:100}") int batchSize,
+                      @Value("${checkout.orders.max-delay-ms:50}") long maxDelayMs,
+                      @Value("${checkout.orders.queue-capacity:10000}") int queueCapacity) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("checkout.orders.queued", queue, BlockingQueue::size)
+                .description("Placed orders waiting to be written to the order history")
+                .register(meterRegistry);
+        this.written = Counter.builder("checkout.orders.written")
+                .description("Orders written to the order history")
+                .register(meterRegistry);
+        this.droppedQueueFull = dropped(meterRegistry, "queue-full");
+        this.droppedWriteFailed = dropped(meterRegistry, "write-failed");
+        this.batchSizes = DistributionSummary.builder("checkout.orders.batch.size")
+                .description("Orders per write to the order history")
+                .register(meterRegistry);
+        this.batchWrites = Timer.builder("checkout.orders.batch.write")
+                .description("Time to write a batch of orders to the order history")
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::writeBehind, "order-writer");
+        this.writer.setDaemon(true);
+        if (enabled) {
+            this.writer.start();
+        }
+    }
+
+    /**
+     * Queues a placed order for the history. Never blocks; the order is
+     * dropped, and counted, if the queue is full.
+     */
+    public void submit(OrderRecord order) {
+        if (!enabled) {
+            return;
+        }
+        unwritten.put(order.getOrderId(), order);
+        if (!queue.offer(order)) {
+            unwritten.remove(order.getOrderId());
+            droppedQueueFull.increment();
+            logger.error("Order history queue is full, order {} will not be recorded", order.getOrderId());
+        }
+    }
+
+    public Optional<OrderRecord> findById(String orderId) {
+        OrderRecord queued = unwritten.get(orderId);
+        return queued != null ? Optional.of(queued) : repository.findById(orderId);
+    }
+
+    /**
+     * The user's most recent orders, newest first, including queued ones.
+     */
+    public List<OrderRecord> findByUserId(String userId, int limit) {
+        Map<String, OrderRecord> orders = new LinkedHashMap<>();
+        unwritten.values().stream()
+                .filter(order -> userId.equals(order.getUserId()))
+                .forEach(order -> orders.put(order.getOrderId(), order));
+        repository.findByUserId(userId, limit).forEach(order -> orders.putIfAbsent(order.getOrderId(), order));
+        return orders.values().stream()
+                .sorted(Comparator.comparingLong(OrderRecord::getPlacedAt).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void writeBehind() {
+        List<OrderRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long flushAt = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long wait = flushAt - System.nanoTime();
+                    OrderRecord next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<OrderRecord> batch) throws InterruptedException {
+        long backoffMs = RETRY_BACKOFF_MS;
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                repository.saveAll(batch);
+                batchWrites.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                batchSizes.record(batch.size());
+                written.increment(batch.size());
+                break;
+            } catch (Exception e) {
+                if (!running) {
+                    droppedWriteFailed.increment(batch.size());
+                    logger.error("Failed to write {} orders to the order history during shutdown, giving up",
+                            batch.size(), e);
+                    break;
+                }
+                logger.error("Failed to write {} orders to the order history, retrying in {} ms",
+                        batch.size(), backoffMs, e);
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(MAX_RETRY_BACKOFF_MS, backoffMs * 2);
+            }
+        }
+        batch.forEach(order -> unwritten.remove(order.getOrderId()));
+    }
+
+    private static Counter dropped(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("checkout.orders.dropped")
+                .description("Placed orders left out of the order history")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
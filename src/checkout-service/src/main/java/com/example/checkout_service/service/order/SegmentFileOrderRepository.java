@@ -0,0 +1,229 @@
+package com.example.checkout_service.service.order;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Order history in append-only segment files of JSON lines, named
+ * orders-000001.log and up. A batch is appended with one write and at most
+ * one sync, and a new segment is started once the current one reaches
+ * segment-max-bytes. Orders are never rewritten, so there is no compaction.
+ * The position of every order, and the orders of every user, are indexed in
+ * memory and rebuilt by scanning the segments on startup. After a restart or
+ * a failed write, writing goes on in a new segment.
+ */
+@Component
+@ConditionalOnProperty(name = "checkout.orders.store", havingValue = "segment-file", matchIfMissing = true)
+public class SegmentFileOrderRepository implements OrderRepository {
+    private static final Logger logger = LoggerFactory.getLogger(SegmentFileOrderRepository.class);
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final boolean fsync;
+    private final List<Path> segments = new CopyOnWriteArrayList<>();
+    private final Map<String, Location> locations = new ConcurrentHashMap<>();
+    // Order IDs of each user, oldest first
+    private final Map<String, List<String>> ordersByUser = new ConcurrentHashMap<>();
+
+    private FileChannel channel;
+
+    public SegmentFileOrderRepository(ObjectMapper objectMapper,
+                                      @Value("${checkout.orders.path:data/orders}") String directory,
+                                      @Value("${checkout.orders.segment-max-bytes:67108864}") long segmentMaxBytes,
+                                      @Value("${checkout.orders.fsync:true}") boolean fsync) {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.fsync = fsync;
+        replay();
+    }
+
+    @Override
+    public synchronized void saveAll(List<OrderRecord> orders) throws IOException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        if (channel == null || channel.size() >= segmentMaxBytes) {
+            openSegment();
+        }
+
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        long start = channel.size();
+        List<Location> written = new ArrayList<>(orders.size());
+        for (OrderRecord order : orders) {
+            byte[] json = objectMapper.writeValueAsBytes(order);
+            written.add(new Location(segments.size() - 1, start + batch.size(), json.length));
+            batch.write(json);
+            batch.write('\n');
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // The retry goes to a new segment rather than after a partly written batch
+            close();
+            throw e;
+        }
+
+        // Indexed only once written, so a read never finds an order that is not on disk
+        for (int i = 0; i < orders.size(); i++) {
+            index(orders.get(i).getOrderId(), orders.get(i).getUserId(), written.get(i));
+        }
+    }
+
+    @Override
+    public Optional<OrderRecord> findById(String orderId) {
+        Location location = locations.get(orderId);
+        return location == null ? Optional.empty() : Optional.of(read(location));
+    }
+
+    @Override
+    public List<OrderRecord> findByUserId(String userId, int limit) {
+        List<String> orderIds = ordersByUser.getOrDefault(userId, List.of());
+        List<OrderRecord> orders = new ArrayList<>(Math.min(limit, orderIds.size()));
+        for (int i = orderIds.size() - 1; i >= 0 && orders.size() < limit; i--) {
+            findById(orderIds.get(i)).ifPresent(orders::add);
+        }
+        return orders;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close order segment {}", segments.get(segments.size() - 1), e);
+        }
+        channel = null;
+    }
+
+    private OrderRecord read(Location location) {
+        try (FileChannel segment = FileChannel.open(segments.get(location.segment), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(location.length);
+            while (buffer.hasRemaining()) {
+                if (segment.read(buffer, location.offset + buffer.position()) < 0) {
+                    throw new EOFException("Order at offset " + location.offset + " runs past the end of the segment");
+                }
+            }
+            return objectMapper.readValue(buffer.array(), OrderRecord.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read order from " + segments.get(location.segment), e);
+        }
+    }
+
+    private void index(String orderId, String userId, Location location) {
+        // A batch retried after a failed sync may have reached the disk twice
+        if (locations.put(orderId, location) == null && userId != null) {
+            ordersByUser.computeIfAbsent(userId, user -> new CopyOnWriteArrayList<>()).add(orderId);
+        }
+    }
+
+    // Callers hold the repository lock
+    private void openSegment() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        Path segment = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segments.size() + 1, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segments.add(segment);
+        logger.info("Started order segment {}", segment);
+    }
+
+    private void replay() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            files.forEach(segments::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list order segments in " + directory, e);
+        }
+        // Zero-padded numbers sort in the order the segments were written
+        segments.sort(Path::compareTo);
+
+        for (int i = 0; i < segments.size(); i++) {
+            scan(i);
+        }
+        logger.info("Indexed {} orders in {} segments under {}", locations.size(), segments.size(), directory);
+    }
+
+    private void scan(int segment) {
+        Path path = segments.get(segment);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long offset = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                byte[] json = line.toByteArray();
+                line.reset();
+                try {
+                    JsonNode order = objectMapper.readTree(json);
+                    index(order.path("orderId").asText(), order.path("userId").asText(null),
+                            new Location(segment, offset, json.length));
+                } catch (IOException e) {
+                    logger.warn("Skipping unreadable order at offset {} in {}", offset, path);
+                }
+                offset += json.length + 1;
+            }
+            if (line.size() > 0) {
+                // A torn last line from a crash mid-write; later batches go to a new segment
+                logger.warn("Skipping incomplete order at offset {} in {}", offset, path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read order segment " + path, e);
+        }
+    }
+
+    private static final class Location {
+        private final int segment;
+        private final long offset;
+        private final int length;
+
+        private Location(int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.checkout_service.service.outbox;
+
+import com.example.checkout_service.service.CartService;
+import com.example.checkout_service.service.CheckoutStage;
+import com.example.checkout_service.service.CheckoutStageObserver;
+import com.example.checkout_service.service.EmailService;
+import com.example.checkout_service.service.ShippingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the post-payment steps queued in the outbox.
+ * Each pass takes a batch of due entries and runs them concurrently on the
+ * outbox executor. A failed step is retried with exponential backoff; the
+ * steps that already succeeded are not repeated.
+ * Passes run on a thread of their own, which waits for each batch: on the
+ * shared scheduler a slow shipping or email service would hold up the other
+ * scheduled tasks, such as the currency rate refresh. For the same reason the
+ * steps do not share the checkout executor with orders being placed.
+ */
+@Component
+public class OutboxDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxStore store;
+    private final ShippingService shippingService;
+    private final CartService cartService;
+    private final EmailService emailService;
+    private final CheckoutStageObserver stages;
+    private final Executor outboxExecutor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+    private final ScheduledExecutorService dispatcher;
+
+    public OutboxDispatcher(OutboxStore store,
+                            ShippingService shippingService,
+                            CartService cartService,
+                            EmailService emailService,
+                            CheckoutStageObserver stages,
+                            @Qualifier("outboxExecutor") Executor outboxExecutor,
+                            @Value("${checkout.outbox.dispatch-interval-ms:200}") long dispatchIntervalMs,
+                            @Value("${checkout.outbox.batch-size:50}") int batchSize,
+                            @Value("${checkout.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${checkout.outbox.retry-backoff-ms:1000}") long retryBackoffMs,
+                            @Value("${checkout.outbox.max-retry-backoff-ms:300000}") long maxRetryBackoffMs) {
+        this.store = store;
+        this.shippingService = shippingService;
+        this.cartService = cartService;
+        this.emailService = emailService;
+        this.stages = stages;
+        this.outboxExecutor = outboxExecutor;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxRetryBackoffMs = maxRetryBackoffMs;
+
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "outbox-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher.scheduleWithFixedDelay(this::dispatchSafely, 0, dispatchIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // An exception escaping a pass would cancel every later one
+    private void dispatchSafely() {
+        try {
+            dispatch();
+        } catch (RuntimeException e) {
+            logger.error("Outbox dispatch failed", e);
+        }
+    }
+
+    public void dispatch() {
+        List<OutboxEntry> batch = store.due(System.currentTimeMillis(), batchSize);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        logger.debug("Dispatching {} outbox entries", batch.size());
+        CompletableFuture<?>[] runs = batch.stream()
+                .map(entry -> CompletableFuture.runAsync(() -> run(entry), outboxExecutor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(runs)
+                .exceptionally(ex -> {
+                    logger.error("Outbox dispatch failed", ex);
+                    return null;
+                })
+                .join();
+
+        store.compactIfNeeded();
+    }
+
+    private void run(OutboxEntry entry) {
+        boolean failed = false;
+        for (OutboxStep step : OutboxStep.values()) {
+            if (entry.isCompleted(step)) {
+                continue;
+            }
+            // The confirmation carries the tracking ID, so it waits for the shipment
+            if (step == OutboxStep.SEND_CONFIRMATION && !entry.isCompleted(OutboxStep.SHIP_ORDER)) {
+                continue;
+            }
+            try {
+                execute(step, entry);
+                entry.complete(step);
+                store.save(entry);
+            } catch (Exception e) {
+                failed = true;
+                entry.setLastError(step + ": " + e.getMessage());
+                logger.warn("Outbox step {} failed for order {} (attempt {}): {}",
+                        step, entry.getId(), entry.getAttempts() + 1, e.getMessage());
+            }
+        }
+
+        if (!failed) {
+            entry.setStatus(OutboxEntry.Status.DONE);
+            logger.info("Post-payment steps completed for order {}", entry.getId());
+        } else {
+            entry.setAttempts(entry.getAttempts() + 1);
+            if (entry.getAttempts() >= maxAttempts) {
+                entry.setStatus(OutboxEntry.Status.FAILED);
+                logger.error("Giving up on post-payment steps for order {} after {} attempts, completed: {}, last error: {}",
+                        entry.getId(), entry.getAttempts(), entry.getCompletedSteps(), entry.getLastError());
+            } else {
+                long backoff = Math.min(maxRetryBackoffMs, retryBackoffMs << Math.min(entry.getAttempts() - 1, 20));
+                entry.setNextAttemptAt(System.currentTimeMillis() + backoff);
+            }
+        }
+        store.save(entry);
+    }
+
+    // Recorded under the same checkout stages as when placeOrder runs the steps itself
+    private void execute(OutboxStep step, OutboxEntry entry) {
+        int lines = entry.getItems() != null ? entry.getItems().size() : 0;
+        switch (step) {
+            case SHIP_ORDER:
+                String trackingId = stages.observe(CheckoutStage.SHIP_ORDER, lines,
+                        () -> shippingService.shipOrder(entry.getAddress(), entry.getItems()));
+                entry.getOrder().setShippingTrackingId(trackingId);
+                logger.info("Order {} shipped (tracking_id: {})", entry.getId(), trackingId);
+                break;
+            case EMPTY_CART:
+                if (entry.getUserId() != null && !entry.getUserId().isEmpty()) {
+                    stages.run(CheckoutStage.EMPTY_CART, lines, () -> cartService.emptyCart(entry.getUserId()));
+                    logger.info("Cart emptied for user: {}", entry.getUserId());
+                }
+                break;
+            case SEND_CONFIRMATION:
+                stages.run(CheckoutStage.SEND_CONFIRMATION, lines,
+                        () -> emailService.sendOrderConfirmation(entry.getEmail(), entry.getOrder()));
+                logger.info("Order confirmation email sent to: {}", entry.getEmail());
+                break;
+        }
+    }
+}
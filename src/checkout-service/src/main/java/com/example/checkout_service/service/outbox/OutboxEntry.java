@@ -0,0 +1,153 @@
+package com.example.checkout_service.service.outbox;
+
+import com.example.checkout_service.model.Address;
+import com.example.checkout_service.model.CartItem;
+import com.example.checkout_service.model.OrderResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The post-payment work for one order, as stored in the outbox file.
+ */
+public class OutboxEntry {
+
+    public enum Status {
+        PENDING,
+        DONE,
+        FAILED
+    }
+
+    private String id;
+    private Status status = Status.PENDING;
+    private long createdAt;
+    private int attempts;
+    private long nextAttemptAt;
+    private String lastError;
+    private String userId;
+    private String email;
+    private Address address;
+    private List<CartItem> items;
+    private OrderResult order;
+    private List<OutboxStep> completedSteps = new ArrayList<>();
+
+    public OutboxEntry() {
+    }
+
+    public OutboxEntry(String userId, String email, Address address, List<CartItem> items, OrderResult order) {
+        this.id = order.getOrderId();
+        this.createdAt = System.currentTimeMillis();
+        this.nextAttemptAt = createdAt;
+        this.userId = userId;
+        this.email = email;
+        this.address = address;
+        this.items = items;
+        this.order = order;
+    }
+
+    public boolean isCompleted(OutboxStep step) {
+        return completedSteps.contains(step);
+    }
+
+    public void complete(OutboxStep step) {
+        if (!completedSteps.contains(step)) {
+            completedSteps.add(step);
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public long getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(long nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Address getAddress() {
+        return address;
+    }
+
+    public void setAddress(Address address) {
+        this.address = address;
+    }
+
+    public List<CartItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CartItem> items) {
+        this.items = items;
+    }
+
+    public OrderResult getOrder() {
+        return order;
+    }
+
+    public void setOrder(OrderResult order) {
+        this.order = order;
+    }
+
+    public List<OutboxStep> getCompletedSteps() {
+        return completedSteps;
+    }
+
+    public void setCompletedSteps(List<OutboxStep> completedSteps) {
+        this.completedSteps = completedSteps;
+    }
+}
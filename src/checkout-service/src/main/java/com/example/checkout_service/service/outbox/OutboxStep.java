@@ -0,0 +1,10 @@
+package com.example.checkout_service.service.outbox;
+
+/**
+ * Post-payment steps, in the order the dispatcher runs them.
+ */
+public enum OutboxStep {
+    SHIP_ORDER,
+    EMPTY_CART,
+    SEND_CONFIRMATION
+}
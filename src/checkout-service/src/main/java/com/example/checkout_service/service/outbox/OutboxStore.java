@@ -0,0 +1,228 @@
+package com.example.checkout_service.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only file of outbox entries.
+ * Every change to an entry appends its full state as one JSON line, so the
+ * last line for an id wins on replay. Finished entries are dropped from
+ * memory, and the file is rewritten with only the pending ones once enough
+ * lines have piled up.
+ */
+@Component
+public class OutboxStore {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxStore.class);
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+    private final boolean fsync;
+    private final int compactAfter;
+    private final Map<String, OutboxEntry> pending = new ConcurrentHashMap<>();
+
+    private FileChannel channel;
+    private int linesSinceCompaction;
+
+    public OutboxStore(ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${checkout.outbox.path:data/checkout-outbox.log}") String path,
+                       @Value("${checkout.outbox.fsync:true}") boolean fsync,
+                       @Value("${checkout.outbox.compact-after:10000}") int compactAfter) {
+        this.objectMapper = objectMapper;
+        this.path = Paths.get(path);
+        this.fsync = fsync;
+        this.compactAfter = compactAfter;
+        replay();
+        Gauge.builder("checkout.outbox.pending", pending, Map::size)
+                .description("Orders with post-payment steps still to run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Durably records a new entry. Returns once the line is written (and synced, if configured).
+     * The stored copy is independent of the caller's objects.
+     */
+    public void enqueue(OutboxEntry entry) throws IOException {
+        byte[] line = toLine(entry);
+        OutboxEntry copy = objectMapper.readValue(line, OutboxEntry.class);
+        synchronized (this) {
+            write(line);
+            pending.put(copy.getId(), copy);
+        }
+    }
+
+    /**
+     * Records the current state of an entry; DONE and FAILED entries leave the pending set.
+     */
+    public synchronized void save(OutboxEntry entry) {
+        try {
+            write(toLine(entry));
+        } catch (IOException e) {
+            // The in-memory state still moves on; a restart may repeat the step
+            logger.error("Failed to record outbox entry {}", entry.getId(), e);
+        }
+        if (entry.getStatus() == OutboxEntry.Status.PENDING) {
+            pending.put(entry.getId(), entry);
+        } else {
+            pending.remove(entry.getId());
+        }
+    }
+
+    /**
+     * Pending entries whose next attempt is due, oldest first.
+     */
+    public List<OutboxEntry> due(long now, int limit) {
+        return pending.values().stream()
+                .filter(entry -> entry.getNextAttemptAt() <= now)
+                .sorted(Comparator.comparingLong(OutboxEntry::getCreatedAt))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Rewrites the file with only the pending entries once enough lines have been appended.
+     */
+    public synchronized void compactIfNeeded() {
+        if (linesSinceCompaction < compactAfter) {
+            return;
+        }
+        try {
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (OutboxEntry entry : pending.values()) {
+                    out.write(ByteBuffer.wrap(toLine(entry)));
+                }
+                out.force(true);
+            }
+            closeChannel();
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            linesSinceCompaction = 0;
+            logger.info("Compacted outbox to {} pending entries", pending.size());
+        } catch (IOException e) {
+            logger.error("Failed to compact outbox {}", path, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        closeChannel();
+    }
+
+    // Callers hold the store lock
+    private void write(byte[] line) throws IOException {
+        if (channel == null) {
+            openChannel();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        linesSinceCompaction++;
+    }
+
+    private byte[] toLine(OutboxEntry entry) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(entry);
+            byte[] line = new byte[json.length + 1];
+            System.arraycopy(json, 0, line, 0, json.length);
+            line[json.length] = '\n';
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replay() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                lines++;
+                try {
+                    OutboxEntry entry = objectMapper.readValue(line, OutboxEntry.class);
+                    if (entry.getStatus() == OutboxEntry.Status.PENDING) {
+                        pending.put(entry.getId(), entry);
+                    } else {
+                        pending.remove(entry.getId());
+                    }
+                } catch (IOException e) {
+                    // A torn last line from a crash mid-write
+                    logger.warn("Skipping unreadable outbox line {} in {}", lines, path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read outbox " + path, e);
+        }
+        linesSinceCompaction = lines;
+        logger.info("Replayed outbox {}: {} pending entries", path, pending.size());
+    }
+
+    private void openChannel() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // Terminate a torn last line so the next entry starts on a line of its own
+        long size = channel.size();
+        if (size > 0) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, size - 1);
+            if (last.get(0) != '\n') {
+                channel.write(ByteBuffer.wrap(new byte[] {'\n'}), size);
+                size++;
+            }
+        }
+        channel.position(size);
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close outbox {}", path, e);
+        }
+        channel = null;
+    }
+}
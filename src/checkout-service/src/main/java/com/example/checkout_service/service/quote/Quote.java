@@ -0,0 +1,68 @@
+package com.example.checkout_service.service.quote;
+
+import com.example.checkout_service.model.Money;
+
+import java.util.List;
+
+/**
+ * The prices of a cart as quoted, carried inside a signed quote token.
+ * The cart is a digest of the currency, address and items that were priced,
+ * so the quote only applies to an order for exactly that cart.
+ */
+public class Quote {
+    private String cart;
+    private long expiresAt;
+    private List<Money> itemPrices;
+    private Money shippingCost;
+    private Money totalCost;
+
+    public Quote() {
+    }
+
+    public Quote(String cart, List<Money> itemPrices, Money shippingCost, Money totalCost) {
+        this.cart = cart;
+        this.itemPrices = itemPrices;
+        this.shippingCost = shippingCost;
+        this.totalCost = totalCost;
+    }
+
+    public String getCart() {
+        return cart;
+    }
+
+    public void setCart(String cart) {
+        this.cart = cart;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public List<Money> getItemPrices() {
+        return itemPrices;
+    }
+
+    public void setItemPrices(List<Money> itemPrices) {
+        this.itemPrices = itemPrices;
+    }
+
+    public Money getShippingCost() {
+        return shippingCost;
+    }
+
+    public void setShippingCost(Money shippingCost) {
+        this.shippingCost = shippingCost;
+    }
+
+    public Money getTotalCost() {
+        return totalCost;
+    }
+
+    public void setTotalCost(Money totalCost) {
+        this.totalCost = totalCost;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.checkout_service.service.quote;
+
+import com.example.checkout_service.model.Address;
+import com.example.checkout_service.model.CartItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues and redeems quote tokens: a quote as base64url JSON, a dot, and an
+ * HMAC-SHA256 of the first part. Tokens are checked with nothing but the
+ * secret, so any instance sharing it can redeem them. Without a configured
+ * secret a random one is made at startup, and tokens only hold on the
+ * instance that issued them, until it restarts. A token that does not hold
+ * is never an error; the order is simply priced again.
+ */
+@Component
+public class QuoteTokens {
+    private static final Logger logger = LoggerFactory.getLogger(QuoteTokens.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+    private final Counter issued;
+    private final Counter accepted;
+    private final Counter expired;
+    private final Counter mismatched;
+    private final Counter invalid;
+
+    public QuoteTokens(ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${checkout.quote.secret:}") String secret,
+                       @Value("${checkout.quote.ttl-seconds:300}") long ttlSeconds) {
+        this.objectMapper = objectMapper;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+
+        byte[] secretBytes;
+        if (secret == null || secret.isBlank()) {
+            logger.warn("No checkout.quote.secret set, quotes can only be redeemed on this instance until it restarts");
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+
+        this.issued = Counter.builder("checkout.quote.issued")
+                .description("Quote tokens issued")
+                .register(meterRegistry);
+        this.accepted = redeemed(meterRegistry, "accepted");
+        this.expired = redeemed(meterRegistry, "expired");
+        this.mismatched = redeemed(meterRegistry, "mismatched");
+        this.invalid = redeemed(meterRegistry, "invalid");
+    }
+
+    /**
+     * Stamps the quote with its expiry and signs it.
+     */
+    public String issue(Quote quote) {
+        quote.setExpiresAt(System.currentTimeMillis() + ttlMillis);
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(quote));
+            issued.increment();
+            return payload + "." + ENCODER.encodeToString(sign(payload));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write quote", e);
+        }
+    }
+
+    /**
+     * The quote in the token if it is genuine, unexpired and for this cart,
+     * otherwise null.
+     */
+    public Quote redeem(String token, String cart) {
+        int dot = token.indexOf('.');
+        Quote quote;
+        try {
+            if (dot < 0 || !MessageDigest.isEqual(sign(token.substring(0, dot)), DECODER.decode(token.substring(dot + 1)))) {
+                invalid.increment();
+                logger.warn("Ignoring quote token with a bad signature");
+                return null;
+            }
+            quote = objectMapper.readValue(DECODER.decode(token.substring(0, dot)), Quote.class);
+        } catch (IllegalArgumentException | IOException e) {
+            invalid.increment();
+            logger.warn("Ignoring unreadable quote token: {}", e.getMessage());
+            return null;
+        }
+
+        if (quote.getExpiresAt() < System.currentTimeMillis()) {
+            expired.increment();
+            logger.info("Quote expired {} ms ago, pricing the order again",
+                    System.currentTimeMillis() - quote.getExpiresAt());
+            return null;
+        }
+        if (!cart.equals(quote.getCart())) {
+            mismatched.increment();
+            logger.info("Quote was for a different cart, pricing the order again");
+            return null;
+        }
+        accepted.increment();
+        return quote;
+    }
+
+    /**
+     * A digest of everything the price of a cart depends on.
+     */
+    public static String cartKey(String currency, Address address, List<CartItem> items) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((currency + "|" + address + "|" + items).getBytes(StandardCharsets.UTF_8));
+            return ENCODER.encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            // A Mac is not thread-safe, and a new one is cheap next to the calls a quote saves
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign quote", e);
+        }
+    }
+
+    private static Counter redeemed(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("checkout.quote.redeemed")
+                .description("Quote tokens presented with an order, by whether the quote was used")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
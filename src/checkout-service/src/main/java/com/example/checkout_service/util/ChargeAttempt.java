@@ -0,0 +1,62 @@
+package com.example.checkout_service.util;
+
+import reactor.util.context.ContextView;
+
+/**
+ * Whether the order the current request places got as far as asking for the
+ * card to be charged. Until the charge request is sent nothing has happened
+ * that a retry could repeat. Once it is sent the card may have been charged
+ * even if the call then fails, for instance on a read timeout, unless the
+ * payment service answered that it refused the charge or was never reached.
+ * The idempotency store opens one around each order it runs; the payment
+ * clients record on it. It is bound to the request thread, and reactive code
+ * finds it in the Reactor context under {@value #CONTEXT_KEY} instead.
+ */
+public final class ChargeAttempt {
+    public static final String CONTEXT_KEY = "checkout.charge-attempt";
+
+    private static final ThreadLocal<ChargeAttempt> current = new ThreadLocal<>();
+
+    private volatile boolean sent;
+    private volatile boolean notCharged;
+
+    /**
+     * Starts tracking the order placed on the current thread.
+     */
+    public static ChargeAttempt open() {
+        ChargeAttempt attempt = new ChargeAttempt();
+        current.set(attempt);
+        return attempt;
+    }
+
+    public static void close() {
+        current.remove();
+    }
+
+    // The attempt of the current thread, or of the Reactor context; null when nothing tracks the order
+    public static ChargeAttempt get() {
+        return current.get();
+    }
+
+    public static ChargeAttempt get(ContextView context) {
+        return context.getOrDefault(CONTEXT_KEY, null);
+    }
+
+    /**
+     * The charge request is about to go out.
+     */
+    public void sent() {
+        sent = true;
+    }
+
+    /**
+     * The charge certainly did not happen: the payment service refused it or could not be reached.
+     */
+    public void notCharged() {
+        notCharged = true;
+    }
+
+    public boolean mayHaveCharged() {
+        return sent && !notCharged;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.checkout_service.util;
+
+import com.example.checkout_service.exception.CurrencyConversionException;
+import com.example.checkout_service.exception.InvalidMoneyException;
+import com.example.checkout_service.model.Money;
+
+/**
+ * Mutable running total for one currency, kept as a units/nanos pair with exact carry.
+ * Adding a line item costs no allocation, unlike chaining {@link MoneyUtil#sum} and
+ * {@link MoneyUtil#multiply}; the validation and errors are the same. Not thread safe.
+ */
+public final class MoneyAccumulator {
+    private final String currencyCode;
+    private long units;
+    // Always within (-1e9, 1e9) and never of the opposite sign to units
+    private long nanos;
+
+    public MoneyAccumulator(String currencyCode) {
+        this.currencyCode = currencyCode;
+    }
+
+    public MoneyAccumulator add(Money money) {
+        return add(money, 1);
+    }
+
+    // Adds money * quantity, e.g. one line of a cart
+    public MoneyAccumulator add(Money money, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Multiplier must be positive");
+        }
+        if (!MoneyUtil.isValid(money)) {
+            throw new InvalidMoneyException("One of the specified money values is invalid");
+        }
+        if (currencyCode == null || currencyCode.isEmpty() || !currencyCode.equals(money.getCurrencyCode())) {
+            throw new CurrencyConversionException("Mismatching currency codes");
+        }
+
+        try {
+            units = Math.addExact(units, Math.multiplyExact(money.getUnits(), (long) quantity));
+            // At most 999_999_999 * Integer.MAX_VALUE plus the previous nanos, well inside a long
+            nanos += (long) money.getNanos() * quantity;
+            units = Math.addExact(units, nanos / MoneyMath.NANOS_PER_UNIT);
+        } catch (ArithmeticException e) {
+            throw new InvalidMoneyException("Money amount is out of range");
+        }
+        nanos %= MoneyMath.NANOS_PER_UNIT;
+
+        if (units > 0 && nanos < 0) {
+            units--;
+            nanos += MoneyMath.NANOS_PER_UNIT;
+        } else if (units < 0 && nanos > 0) {
+            units++;
+            nanos -= MoneyMath.NANOS_PER_UNIT;
+        }
+        return this;
+    }
+
+    public MoneyAccumulator reset() {
+        units = 0;
+        nanos = 0;
+        return this;
+    }
+
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public int getNanos() {
+        return (int) nanos;
+    }
+
+    public Money toMoney() {
+        return new Money(units, (int) nanos, currencyCode);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.checkout_service.util;
+
+import com.example.checkout_service.exception.InvalidMoneyException;
+import com.example.checkout_service.model.Money;
+
+/**
+ * Fixed-point money arithmetic on a single long counting nanos (10^-9 of a unit).
+ * Carries are exact and every operation fails on overflow instead of wrapping,
+ * which leaves about 9.2 billion units of headroom. Nothing here allocates
+ * except {@link #toMoney(long, String)}.
+ */
+public final class MoneyMath {
+    public static final long NANOS_PER_UNIT = 1_000_000_000L;
+
+    private MoneyMath() {
+    }
+
+    // Returns the amount in nanos; units and nanos must have the same sign, as in Money
+    public static long toNanos(long units, int nanos) {
+        try {
+            return Math.addExact(Math.multiplyExact(units, NANOS_PER_UNIT), nanos);
+        } catch (ArithmeticException e) {
+            throw new InvalidMoneyException("Money amount is out of range: " + units + " units");
+        }
+    }
+
+    public static long toNanos(Money money) {
+        return toNanos(money.getUnits(), money.getNanos());
+    }
+
+    // Whole units of an amount in nanos, truncated toward zero like Money
+    public static long unitsOf(long amountNanos) {
+        return amountNanos / NANOS_PER_UNIT;
+    }
+
+    // Fractional nanos of an amount, with the same sign as its units
+    public static int nanosOf(long amountNanos) {
+        return (int) (amountNanos % NANOS_PER_UNIT);
+    }
+
+    public static Money toMoney(long amountNanos, String currencyCode) {
+        return new Money(unitsOf(amountNanos), nanosOf(amountNanos), currencyCode);
+    }
+
+    public static long add(long a, long b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new InvalidMoneyException("Money amount is out of range");
+        }
+    }
+
+    public static long multiply(long amountNanos, long quantity) {
+        try {
+            return Math.multiplyExact(amountNanos, quantity);
+        } catch (ArithmeticException e) {
+            throw new InvalidMoneyException("Money amount is out of range");
+        }
+    }
+
+    /**
+     * Multiplies by a rate and rounds half away from zero to a multiple of stepNanos.
+     * Used for currency conversion, where the rate itself is a double; the result
+     * always lands exactly on the step, e.g. 100_000 for four decimal places.
+     */
+    public static long scale(long amountNanos, double factor, long stepNanos) {
+        double steps = amountNanos / (double) stepNanos * factor;
+        if (Double.isNaN(steps) || Math.abs(steps) >= Long.MAX_VALUE / (double) stepNanos) {
+            throw new InvalidMoneyException("Money amount is out of range");
+        }
+        return Math.round(steps) * stepNanos;
+    }
+
+    /**
+     * Rounds an amount given in units to the nearest nano, halves away from zero.
+     * The whole units are split off first so only the fraction goes through floating point.
+     */
+    public static long fromDouble(double amount) {
+        if (Double.isNaN(amount) || Math.abs(amount) >= Long.MAX_VALUE / (double) NANOS_PER_UNIT) {
+            throw new InvalidMoneyException("Money amount is out of range: " + amount);
+        }
+        long units = (long) amount;
+        double fraction = amount - units;
+        double scaled = fraction * NANOS_PER_UNIT;
+        long nanos = (long) scaled;
+        double rest = Math.abs(scaled - nanos);
+        // The product is rounded too, so an apparent tie is settled by its exact error
+        double error = Math.fma(fraction, NANOS_PER_UNIT, -scaled);
+        if (rest > 0.5 || (rest == 0.5 && error * Math.signum(scaled) >= 0)) {
+            nanos += scaled < 0 ? -1 : 1;
+        }
+        return add(multiply(units, NANOS_PER_UNIT), nanos);
+    }
+
+    // The closest double to the amount, for APIs that take amounts as plain numbers
+    public static double toDouble(long amountNanos) {
+        return unitsOf(amountNanos) + nanosOf(amountNanos) / (double) NANOS_PER_UNIT;
+    }
+}
@@ -77,19 +77,17 @@ public class MoneyUtil {
         long units = a.getUnits() + b.getUnits();
         int nanos = a.getNanos() + b.getNanos();
         
-        if ((units == 0 && nanos == 0) || (units > 0 && nanos >= 0) || (units < 0 && nanos <= 0)) {
-            // Same sign for units and nanos
-            units += nanos / NANOS_MOD;
-            nanos = nanos % NANOS_MOD;
-        } else {
+        // Carry whole units out of nanos first
+        units += nanos / NANOS_MOD;
+        nanos = nanos % NANOS_MOD;
+        
+        if (units > 0 && nanos < 0) {
             // Different sign for units and nanos
-            if (units > 0) {
-                units--;
-                nanos += NANOS_MOD;
-            } else {
-                units++;
-                nanos -= NANOS_MOD;
-            }
+            units--;
+            nanos += NANOS_MOD;
+        } else if (units < 0 && nanos > 0) {
+            units++;
+            nanos -= NANOS_MOD;
         }
         
         return new Money(units, nanos, a.getCurrencyCode());
@@ -0,0 +1,76 @@
+package com.example.checkout_service.util;
+
+import com.example.checkout_service.exception.DeadlineExceededException;
+import reactor.util.context.ContextView;
+
+/**
+ * The deadline of the request the current thread works for, as epoch milliseconds.
+ * It is set by the incoming request filter, carried to checkout executor threads
+ * by the context-propagating task decorator, and sent with every downstream call
+ * in the {@value #HEADER} header so that the receiving service can drop work
+ * nobody is waiting for any more. An absolute time is sent rather than the
+ * remaining budget so that time spent queued at the receiver counts as well;
+ * this assumes clocks kept in sync to well within a typical budget.
+ * Reactive code finds it in the Reactor context under {@value #CONTEXT_KEY} instead.
+ */
+public final class RequestDeadline {
+    public static final String HEADER = "X-Request-Deadline";
+    public static final String CONTEXT_KEY = "checkout.request-deadline";
+
+    private static final ThreadLocal<Long> deadline = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    // Epoch milliseconds, or null when the current thread has no deadline
+    public static Long get() {
+        return deadline.get();
+    }
+
+    public static void set(Long epochMillis) {
+        deadline.set(epochMillis);
+    }
+
+    public static void clear() {
+        deadline.remove();
+    }
+
+    // Long.MAX_VALUE when there is no deadline; zero or less once it has passed
+    public static long remainingMillis() {
+        Long current = deadline.get();
+        return current == null ? Long.MAX_VALUE : current - System.currentTimeMillis();
+    }
+
+    public static boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+
+    // The same for the deadline carried in a Reactor context
+    public static long remainingMillis(ContextView context) {
+        Long current = context.getOrDefault(CONTEXT_KEY, null);
+        return current == null ? Long.MAX_VALUE : current - System.currentTimeMillis();
+    }
+
+    /**
+     * Fails fast if the deadline has passed, before {@code action} is started.
+     */
+    public static void check(String action) {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Request deadline passed before " + action);
+        }
+    }
+
+    /**
+     * Parses a header value, returning null when it is missing or malformed.
+     */
+    public static Long parse(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
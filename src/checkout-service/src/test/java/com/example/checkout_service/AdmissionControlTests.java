@@ -0,0 +1,107 @@
+package com.example.checkout_service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Holds payments at a stub while checkout's concurrency limit is fixed at two,
+ * and checks that requests over the limit are turned away with 503 and
+ * Retry-After, and that a retry cannot take the slot kept for interactive checkouts.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "checkout.admission.initial-limit=2",
+        "checkout.admission.min-limit=2",
+        "checkout.admission.max-limit=2",
+        "checkout.admission.bulk-share=0.5",
+        "checkout.outbox.enabled=false",
+        "checkout.fx.local-rates.enabled=false",
+        "checkout.product-cache.enabled=false",
+        "checkout.wire-format=json",
+        "services.frontend.url=http://shop.example.com"
+})
+class AdmissionControlTests {
+
+    private static final String ORDER = StubServices.order("admission-user", "USD", StubServices.ITEMS);
+
+    private static final CountDownLatch releasePayments = new CountDownLatch(1);
+    private static StubServices stub;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void stubs(DynamicPropertyRegistry registry) throws IOException {
+        stub = StubServices.start(registry);
+        stub.respond("/api/v1/charge", request -> {
+            releasePayments.await(30, TimeUnit.SECONDS);
+            return StubServices.defaultResponse(request);
+        });
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        releasePayments.countDown();
+        stub.stop();
+    }
+
+    @Test
+    void requestsOverTheLimitAreShedWithRetryAfter() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+
+        // A retry takes the one slot bulk traffic may hold
+        CompletableFuture<HttpResponse<String>> retry = client.sendAsync(order(1), HttpResponse.BodyHandlers.ofString());
+        await().until(() -> stub.requests("/api/v1/charge").size() == 1);
+
+        HttpResponse<String> secondRetry = client.send(order(2), HttpResponse.BodyHandlers.ofString());
+        assertThat(secondRetry.statusCode()).isEqualTo(503);
+        assertThat(secondRetry.headers().firstValue("Retry-After")).hasValue("1");
+        assertThat(secondRetry.headers().firstValue("Access-Control-Allow-Origin")).hasValue("http://shop.example.com");
+        assertThat(secondRetry.body()).contains("OVERLOADED");
+
+        // The interactive checkout still gets in, and after it nothing does
+        CompletableFuture<HttpResponse<String>> interactive = client.sendAsync(order(0), HttpResponse.BodyHandlers.ofString());
+        await().until(() -> stub.requests("/api/v1/charge").size() == 2);
+        assertThat(client.send(order(0), HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(503);
+
+        releasePayments.countDown();
+        assertThat(retry.get(10, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+        assertThat(interactive.get(10, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+
+        assertThat(meterRegistry.get("checkout.admission.rejected").tag("priority", "bulk").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("checkout.admission.rejected").tag("priority", "interactive").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("checkout.admission.limit").gauge().value()).isEqualTo(2);
+        await().until(() -> meterRegistry.get("checkout.admission.in_flight").gauge().value() == 0);
+    }
+
+    private HttpRequest order(int attempt) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/checkout/orders"))
+                .header("Content-Type", "application/json")
+                .header("Origin", "http://shop.example.com")
+                .header("X-Retry-Attempt", Integer.toString(attempt))
+                .POST(HttpRequest.BodyPublishers.ofString(ORDER))
+                .build();
+    }
+}
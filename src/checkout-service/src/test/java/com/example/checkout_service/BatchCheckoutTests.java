@@ -0,0 +1,98 @@
+package com.example.checkout_service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Places a batch of orders against stub downstream services and checks that
+ * each order gets its own result line, that lookups are shared across the
+ * batch, and that one bad order does not fail the others.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "checkout.outbox.enabled=false",
+        "checkout.fx.local-rates.enabled=false",
+        "checkout.product-cache.enabled=false",
+        "checkout.wire-format=json",
+        "checkout.batch.concurrency=2"
+})
+class BatchCheckoutTests {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static StubServices stub;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void stubs(DynamicPropertyRegistry registry) throws IOException {
+        stub = StubServices.start(registry);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stub.stop();
+    }
+
+    @Test
+    void eachOrderGetsAResultAndLookupsAreShared() throws Exception {
+        String batch = "{\"orders\":[" + String.join(",",
+                order("user-0", "EUR", "OLJCESPC7Z"),
+                order("user-1", "EUR", "OLJCESPC7Z"),
+                order("user-2", "JPY", "66VCHSJNUP"),
+                // No email, so this one fails validation on its own
+                order("user-3", "EUR", "OLJCESPC7Z").replace("\"email\":\"user-3@example.com\",", ""),
+                order("user-4", "USD", "OLJCESPC7Z")) + "]}";
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/checkout/orders/batch"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(batch))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                type -> assertThat(type).startsWith("application/x-ndjson"));
+
+        List<Map<?, ?>> results = new ArrayList<>();
+        for (String line : response.body().split("\n")) {
+            results.add(mapper.readValue(line, Map.class));
+        }
+        assertThat(results).extracting(result -> (Object) result.get("index")).containsExactlyInAnyOrder(0, 1, 2, 3, 4);
+        for (Map<?, ?> result : results) {
+            if (result.get("index").equals(3)) {
+                assertThat(result.get("status")).isEqualTo(400);
+                assertThat(result.get("error")).isEqualTo("VALIDATION_ERROR");
+            } else {
+                assertThat(result.get("status")).isEqualTo(200);
+                assertThat(((Map<?, ?>) result.get("order")).get("orderId")).isNotNull();
+            }
+        }
+
+        // One catalog lookup, one quote per distinct cart, one conversion per target currency
+        assertThat(stub.paths()).filteredOn("/api/v1/products/batch"::equals).hasSize(1);
+        assertThat(stub.paths()).filteredOn("/api/v1/shipping/quote"::equals).hasSize(2);
+        assertThat(stub.paths()).filteredOn("/api/v1/convert/batch"::equals).hasSize(2);
+        assertThat(stub.paths()).filteredOn("/api/v1/charge"::equals).hasSize(4);
+    }
+
+    private static String order(String userId, String currency, String productId) {
+        return StubServices.order(userId, currency, "[{\"productId\":\"" + productId + "\",\"quantity\":1}]");
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.checkout_service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Places a parallel order on a one-thread checkout executor, so that the
+ * shipping quote runs on the request thread, and checks that a slow quote
+ * is abandoned at the call timeout rather than waited out.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "checkout.execution.mode=parallel",
+        "checkout.execution.call-timeout-ms=1000",
+        "checkout.executor.core-size=1",
+        "checkout.executor.max-size=1",
+        "checkout.executor.queue-capacity=0",
+        "checkout.deadline.budget-ms=10000",
+        "checkout.hedge.enabled=false",
+        "checkout.outbox.enabled=false",
+        "checkout.fx.local-rates.enabled=false",
+        "checkout.product-cache.enabled=false",
+        "checkout.wire-format=json"
+})
+class CallTimeoutTests {
+
+    private static StubServices stub;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void stubs(DynamicPropertyRegistry registry) throws IOException {
+        stub = StubServices.start(registry);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stub.stop();
+    }
+
+    @Test
+    void callRunByTheCallerStopsAtTheCallTimeout() throws Exception {
+        // The catalog keeps the only executor thread busy while the quote is submitted
+        stub.respond("/api/v1/products/batch", request -> {
+            Thread.sleep(300);
+            return StubServices.defaultResponse(request);
+        });
+        stub.respond("/api/v1/shipping/quote", request -> {
+            Thread.sleep(4000);
+            return StubServices.defaultResponse(request);
+        });
+
+        long start = System.nanoTime();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/checkout/orders"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(StubServices.order("timeout-user", "USD", StubServices.ITEMS)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(503);
+        assertThat(response.body()).contains("Shipping");
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(2500);
+        assertThat(stub.paths()).doesNotContain("/api/v1/charge");
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.checkout_service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how many checkouts one instance keeps in flight when every
+ * downstream call takes a fixed latency. Not part of the normal test run;
+ * run it once per thread mode and compare the printed peak:
+ *
+ * <pre>
+ * mvn test -Dtest=CheckoutConcurrencyBenchmark
+ * mvn test -Pjava21 -Dtest=CheckoutConcurrencyBenchmark -Dspring.threads.virtual.enabled=true
+ * </pre>
+ *
+ * Tuning: -Dbenchmark.requests (default 2000), -Dbenchmark.latency-ms (default 100).
+ * The HTTP client pool and the client bulkheads are opened wide and logging
+ * turned down so that request threads are the only limit.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "http.client.max-total=20000",
+        "http.client.max-per-route=20000",
+        "http.client.route-limits.payment=20000",
+        "resilience4j.bulkhead.instances.payment.max-concurrent-calls=20000",
+        "resilience4j.bulkhead.instances.shipping.max-concurrent-calls=20000",
+        "resilience4j.bulkhead.instances.currency.max-concurrent-calls=20000",
+        "resilience4j.bulkhead.instances.productCatalog.max-concurrent-calls=20000",
+        "resilience4j.bulkhead.instances.cart.max-concurrent-calls=20000",
+        "resilience4j.bulkhead.instances.email.max-concurrent-calls=20000",
+        "http.client.lease-timeout-ms=60000",
+        "http.client.read-timeout-ms=60000",
+        "checkout.execution.call-timeout-ms=60000",
+        "checkout.fx.local-rates.enabled=true",
+        "checkout.outbox.path=target/benchmark-outbox.log",
+        "checkout.wire-format=json",
+        "checkout.orders.path=target/benchmark-orders",
+        "logging.level.root=ERROR"
+})
+class CheckoutConcurrencyBenchmark {
+
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 2000);
+    private static final long LATENCY_MS = Long.getLong("benchmark.latency-ms", 100);
+
+    private static final ScheduledExecutorService responder = Executors.newScheduledThreadPool(4);
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger peakInFlight = new AtomicInteger();
+    private static StubServices downstream;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int tomcatThreads;
+
+    // One stub plays every downstream service; it answers after a fixed delay without holding a thread
+    @DynamicPropertySource
+    static void downstreamServices(DynamicPropertyRegistry registry) throws IOException {
+        downstream = StubServices.start(registry);
+        downstream.respondToAll(CheckoutConcurrencyBenchmark::respondLater);
+    }
+
+    @AfterAll
+    static void stopDownstream() {
+        downstream.stop();
+        responder.shutdownNow();
+    }
+
+    @Test
+    void maxConcurrentCheckouts() {
+        HttpClient client = HttpClient.newBuilder().build();
+        URI uri = URI.create("http://localhost:" + port + "/api/v1/checkout/orders");
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failures = new AtomicInteger();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            long sent = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(StubServices.order("bench-" + i, "EUR",
+                            "[{\"productId\":\"OLJCESPC7Z\",\"quantity\":2},{\"productId\":\"66VCHSJNUP\",\"quantity\":1}]")))
+                    .build();
+            requests.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies.add(System.nanoTime() - sent);
+                        if (error != null || response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%n[checkout-benchmark] threads=%s requests=%d downstream-latency=%dms%n",
+                virtualThreads ? "virtual" : "platform(max " + tomcatThreads + ")", REQUESTS, LATENCY_MS);
+        System.out.printf("[checkout-benchmark] peak concurrent checkouts=%d throughput=%.0f/s p50=%dms p99=%dms failures=%d%n%n",
+                peakInFlight.get(), REQUESTS * 1000.0 / Math.max(1, elapsedMs),
+                percentileMs(sorted, 0.50), percentileMs(sorted, 0.99), failures.get());
+    }
+
+    private static long percentileMs(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted.get(Math.max(0, index)));
+    }
+
+    private static CompletableFuture<Object> respondLater(StubServices.Request request) throws IOException {
+        // A checkout is in flight from its product lookup until its payment returns
+        if (request.getPath().equals("/api/v1/products/batch")) {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        }
+        boolean checkoutEnd = request.getPath().equals("/api/v1/charge");
+
+        Object response = StubServices.defaultResponse(request);
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        responder.schedule(() -> {
+            reply.complete(response);
+            if (checkoutEnd) {
+                inFlight.decrementAndGet();
+            }
+        }, LATENCY_MS, TimeUnit.MILLISECONDS);
+        return reply;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.checkout_service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Places an order against stub downstream services and a stand-in OTLP
+ * collector, then checks that every stage was timed and exported as a span,
+ * and that each downstream call carried the request's trace context.
+ * Runs in parallel mode with the outbox off, so every stage runs in the request.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "checkout.execution.mode=parallel",
+        "checkout.outbox.enabled=false",
+        "checkout.fx.local-rates.enabled=false",
+        "checkout.product-cache.enabled=false",
+        "checkout.wire-format=json",
+        "management.tracing.sampling.probability=1.0",
+        "management.otlp.tracing.export.enabled=true",
+        "management.tracing.opentelemetry.export.schedule-delay=100ms"
+})
+@AutoConfigureObservability
+class CheckoutTracingTests {
+
+    private static final List<String> exportedSpans = new CopyOnWriteArrayList<>();
+    private static StubServices stub;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // One stub plays every downstream service and the OTLP collector
+    @DynamicPropertySource
+    static void stubs(DynamicPropertyRegistry registry) throws IOException {
+        stub = StubServices.start(registry);
+        // OTLP protobuf keeps span names as plain UTF-8
+        stub.respond("/v1/traces", request -> {
+            exportedSpans.add(new String(request.getBody(), StandardCharsets.ISO_8859_1));
+            return new StubServices.Reply(200, null);
+        });
+        registry.add("management.otlp.tracing.endpoint", () -> stub.url() + "/v1/traces");
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stub.stop();
+    }
+
+    @Test
+    void stagesAreTimedAndTracedAcrossDownstreamCalls() throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/checkout/orders"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(StubServices.order("trace-user", "EUR",
+                                "[{\"productId\":\"OLJCESPC7Z\",\"quantity\":2},{\"productId\":\"66VCHSJNUP\",\"quantity\":1}]")))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+
+        // Every downstream call, including those made from the checkout executor, is in one trace
+        for (String path : List.of("/api/v1/products/batch", "/api/v1/shipping/quote", "/api/v1/convert/batch",
+                "/api/v1/charge", "/api/v1/shipping/ship", "/api/v1/carts/trace-user", "/api/v1/send-order-confirmation")) {
+            assertThat(stub.requests(path)).as(path).isNotEmpty()
+                    .allSatisfy(request -> assertThat(request.header("traceparent")).isNotNull());
+        }
+        List<String> traceIds = stub.paths().stream()
+                .filter(path -> !path.equals("/v1/traces"))
+                .flatMap(path -> stub.requests(path).stream())
+                .map(request -> request.header("traceparent"))
+                .filter(Objects::nonNull)
+                .map(header -> header.split("-")[1])
+                .distinct()
+                .collect(Collectors.toList());
+        assertThat(traceIds).hasSize(1);
+
+        // Trace IDs are raw bytes in the OTLP payload
+        String traceId = new String(HexFormat.of().parseHex(traceIds.get(0)), StandardCharsets.ISO_8859_1);
+        await().untilAsserted(() -> assertThat(String.join("", exportedSpans)).contains(traceId));
+
+        for (String stage : List.of("prepare_order", "get_products", "convert_currency", "quote_shipping",
+                "total_cost", "charge_payment", "ship_order", "empty_cart", "create_result", "send_confirmation")) {
+            Timer timer = meterRegistry.find("checkout.stage")
+                    .tags("stage", stage, "outcome", "success", "cart.size", "2-5")
+                    .timer();
+            assertThat(timer).as("timer for stage %s", stage).isNotNull();
+            assertThat(timer.count()).isEqualTo(1);
+
+            await().untilAsserted(() -> assertThat(String.join("", exportedSpans)).contains("checkout " + stage));
+        }
+    }
+}
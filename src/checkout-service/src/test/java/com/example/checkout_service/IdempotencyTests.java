@@ -0,0 +1,100 @@
+package com.example.checkout_service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retries orders with the same Idempotency-Key against stub downstream
+ * services and checks that an order which failed once the card was charged
+ * is replayed rather than charged again, while one the payment service
+ * refused is placed again. The outbox is off, so the order ships inline
+ * after the charge.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "checkout.outbox.enabled=false",
+        "checkout.fx.local-rates.enabled=false",
+        "checkout.product-cache.enabled=false",
+        "checkout.wire-format=json"
+})
+class IdempotencyTests {
+
+    private static StubServices stub;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void stubs(DynamicPropertyRegistry registry) throws IOException {
+        stub = StubServices.start(registry);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stub.stop();
+    }
+
+    @BeforeEach
+    void reset() {
+        stub.reset();
+    }
+
+    @Test
+    void failureAfterTheChargeIsReplayedWithoutChargingAgain() throws Exception {
+        stub.respond("/api/v1/shipping/ship",
+                request -> new StubServices.Reply(500, Map.of("message", "Shipping is down")));
+
+        HttpResponse<String> first = placeOrder("charged-user", "order-key-1");
+        assertThat(first.statusCode()).isEqualTo(400);
+        assertThat(first.body()).contains("SHIPPING_ERROR");
+
+        // Shipping is back, but the card has been charged: the retry gets the original outcome
+        stub.respond("/api/v1/shipping/ship", StubServices::defaultResponse);
+        HttpResponse<String> retry = placeOrder("charged-user", "order-key-1");
+
+        assertThat(retry.statusCode()).isEqualTo(first.statusCode());
+        assertThat(retry.body()).contains("SHIPPING_ERROR");
+        assertThat(stub.requests("/api/v1/charge")).hasSize(1);
+        assertThat(stub.requests("/api/v1/shipping/ship")).hasSize(1);
+    }
+
+    @Test
+    void refusedChargeCanBeRetried() throws Exception {
+        stub.respond("/api/v1/charge",
+                request -> new StubServices.Reply(400, Map.of("error", "Credit Card is not valid", "status", 400)));
+
+        HttpResponse<String> first = placeOrder("refused-user", "order-key-2");
+        assertThat(first.statusCode()).isEqualTo(400);
+        assertThat(first.body()).contains("PAYMENT_ERROR");
+
+        stub.respond("/api/v1/charge", StubServices::defaultResponse);
+        HttpResponse<String> retry = placeOrder("refused-user", "order-key-2");
+
+        assertThat(retry.statusCode()).isEqualTo(200);
+        assertThat(retry.headers().firstValue("Idempotent-Replayed")).hasValue("false");
+        assertThat(stub.requests("/api/v1/charge")).hasSize(2);
+    }
+
+    private HttpResponse<String> placeOrder(String userId, String idempotencyKey) throws Exception {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/checkout/orders"))
+                        .header("Content-Type", "application/json")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .POST(HttpRequest.BodyPublishers.ofString(StubServices.order(userId, "USD", StubServices.ITEMS)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
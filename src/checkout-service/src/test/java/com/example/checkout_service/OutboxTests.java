@@ -0,0 +1,84 @@
+package com.example.checkout_service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Places an order whose shipment, run from the outbox, is slow, and checks
+ * that the other scheduled work, here the currency rate refresh, keeps
+ * running meanwhile, and that the order is shipped once shipping answers.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "checkout.outbox.enabled=true",
+        "checkout.outbox.path=target/outbox-tests/outbox.log",
+        "checkout.fx.local-rates.enabled=true",
+        "checkout.fx.refresh-interval-ms=100",
+        "checkout.product-cache.enabled=false",
+        "checkout.wire-format=json"
+})
+class OutboxTests {
+
+    private static StubServices stub;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void stubs(DynamicPropertyRegistry registry) throws IOException {
+        Files.deleteIfExists(Path.of("target/outbox-tests/outbox.log"));
+        stub = StubServices.start(registry);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stub.stop();
+    }
+
+    @Test
+    void slowShipmentDoesNotHoldUpOtherScheduledWork() throws Exception {
+        stub.respond("/api/v1/shipping/ship", request -> CompletableFuture.supplyAsync(
+                () -> Map.of("trackingId", "TRK-1"), CompletableFuture.delayedExecutor(2, TimeUnit.SECONDS)));
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/checkout/orders"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(StubServices.order("outbox-user", "USD", StubServices.ITEMS)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stub.requests("/api/v1/shipping/ship").isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(stub.requests("/api/v1/shipping/ship")).hasSize(1);
+
+        // The shipment is still waiting on its answer
+        int refreshes = stub.requests("/api/v1/rates").size();
+        Thread.sleep(1000);
+        assertThat(stub.requests("/api/v1/rates").size() - refreshes).isGreaterThanOrEqualTo(3);
+
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (stub.requests("/api/v1/send-order-confirmation").isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(stub.paths()).contains("/api/v1/send-order-confirmation");
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.checkout_service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Quotes a cart against stub downstream services and checks that an order
+ * placed with the quote token is charged the quoted total without pricing
+ * again, and that a token for another cart or a tampered one is priced again.
+ * Also checks that a quote falls back to the last shipping quote only while
+ * the shipping service is down.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "checkout.outbox.enabled=false",
+        "checkout.fx.local-rates.enabled=false",
+        "checkout.product-cache.enabled=false",
+        "checkout.wire-format=json",
+        "checkout.quote.secret=test-secret"
+})
+class QuoteTests {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static StubServices stub;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void stubs(DynamicPropertyRegistry registry) throws IOException {
+        stub = StubServices.start(registry);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stub.stop();
+    }
+
+    @BeforeEach
+    void clearCalls() {
+        stub.reset();
+    }
+
+    @Test
+    void orderWithQuoteIsChargedTheQuotedTotalWithoutPricingAgain() throws Exception {
+        Map<?, ?> quote = quote();
+        assertThat(quote.get("quoteToken")).isNotNull();
+        assertThat(quote.get("totalCost")).isEqualTo(Map.of("currencyCode", "EUR", "units", 59, "nanos", 970000000));
+        assertThat(stub.paths()).containsExactlyInAnyOrder(
+                "/api/v1/products/batch", "/api/v1/shipping/quote", "/api/v1/convert/batch");
+
+        stub.reset();
+        HttpResponse<String> response = placeOrder(StubServices.ITEMS, (String) quote.get("quoteToken"));
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(stub.paths()).doesNotContain("/api/v1/products/batch", "/api/v1/shipping/quote", "/api/v1/convert/batch");
+        assertThat(stub.charged()).containsExactly(quote.get("totalCost"));
+        Map<?, ?> order = (Map<?, ?>) mapper.readValue(response.body(), Map.class).get("order");
+        assertThat(order.get("totalCost")).isEqualTo(quote.get("totalCost"));
+    }
+
+    @Test
+    void quoteForAnotherCartOrTamperedQuoteIsPricedAgain() throws Exception {
+        String token = (String) quote().get("quoteToken");
+
+        stub.reset();
+        assertThat(placeOrder("[{\"productId\":\"OLJCESPC7Z\",\"quantity\":3}]", token).statusCode()).isEqualTo(200);
+        assertThat(stub.paths()).contains("/api/v1/products/batch", "/api/v1/shipping/quote", "/api/v1/convert/batch");
+        assertThat(stub.charged()).containsExactly(Map.of("currencyCode", "EUR", "units", 79, "nanos", 960000000));
+
+        stub.reset();
+        String tampered = token.substring(0, token.indexOf('.') - 2) + "xx" + token.substring(token.indexOf('.'));
+        assertThat(placeOrder(StubServices.ITEMS, tampered).statusCode()).isEqualTo(200);
+        assertThat(stub.paths()).contains("/api/v1/products/batch", "/api/v1/shipping/quote", "/api/v1/convert/batch");
+    }
+
+    @Test
+    void lastShippingQuoteIsUsedOnlyWhileShippingIsDown() throws Exception {
+        Object total = quote().get("totalCost");
+
+        stub.respond("/api/v1/shipping/quote",
+                request -> new StubServices.Reply(503, Map.of("message", "Shipping is down")));
+        assertThat(quote().get("totalCost")).isEqualTo(total);
+
+        // A rejected address is not an outage: the cached quote would hide it
+        stub.respond("/api/v1/shipping/quote",
+                request -> new StubServices.Reply(400, Map.of("message", "Address not served")));
+        String body = "{\"userCurrency\":\"EUR\",\"address\":" + StubServices.ADDRESS + ",\"items\":" + StubServices.ITEMS + "}";
+        assertThat(post("/api/v1/checkout/quote", body).statusCode()).isNotEqualTo(200);
+    }
+
+    private Map<?, ?> quote() throws Exception {
+        String body = "{\"userCurrency\":\"EUR\",\"address\":" + StubServices.ADDRESS + ",\"items\":" + StubServices.ITEMS + "}";
+        HttpResponse<String> response = post("/api/v1/checkout/quote", body);
+        assertThat(response.statusCode()).isEqualTo(200);
+        return mapper.readValue(response.body(), Map.class);
+    }
+
+    private HttpResponse<String> placeOrder(String items, String quoteToken) throws Exception {
+        String order = StubServices.order("user-1", "EUR", items);
+        return post("/api/v1/checkout/orders",
+                order.substring(0, order.length() - 1) + ",\"quoteToken\":\"" + quoteToken + "\"}");
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
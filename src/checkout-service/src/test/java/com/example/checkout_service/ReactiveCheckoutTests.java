@@ -0,0 +1,119 @@
+package com.example.checkout_service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Places orders through the reactive profile against stub downstream
+ * services and checks that every stage runs, that the deadline goes with
+ * the calls before payment only, and that an Idempotency-Key retry is
+ * replayed rather than charged again, even when the first attempt failed
+ * after the charge.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "checkout.outbox.enabled=false",
+        "checkout.fx.local-rates.enabled=false",
+        "checkout.wire-format=json"
+})
+@ActiveProfiles("reactive")
+class ReactiveCheckoutTests {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static StubServices stub;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void stubs(DynamicPropertyRegistry registry) throws IOException {
+        stub = StubServices.start(registry);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stub.stop();
+    }
+
+    @BeforeEach
+    void clearCalls() {
+        stub.reset();
+    }
+
+    @Test
+    void orderIsPlacedWithTheDeadlineSentUntilPayment() throws Exception {
+        HttpResponse<String> response = placeOrder("user-1", null);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(stub.paths()).containsExactlyInAnyOrder(
+                "/api/v1/products/batch", "/api/v1/shipping/quote", "/api/v1/convert/batch", "/api/v1/charge",
+                "/api/v1/shipping/ship", "/api/v1/carts/user-1", "/api/v1/send-order-confirmation");
+        assertThat(stub.charged()).containsExactly(Map.of("currencyCode", "EUR", "units", 59, "nanos", 970000000));
+
+        Map<?, ?> order = (Map<?, ?>) mapper.readValue(response.body(), Map.class).get("order");
+        assertThat(order.get("shippingTrackingId")).isEqualTo("TRK-1");
+        assertThat(order.get("totalCost")).isEqualTo(stub.charged().get(0));
+
+        // The order has to go through once charged, so nothing after payment carries the deadline
+        Map<String, String> deadlines = stub.headers("X-Request-Deadline");
+        assertThat(deadlines).containsKeys(
+                "/api/v1/products/batch", "/api/v1/shipping/quote", "/api/v1/convert/batch", "/api/v1/charge");
+        assertThat(deadlines).doesNotContainKeys(
+                "/api/v1/shipping/ship", "/api/v1/carts/user-1", "/api/v1/send-order-confirmation");
+    }
+
+    @Test
+    void retryWithTheSameIdempotencyKeyIsReplayed() throws Exception {
+        HttpResponse<String> first = placeOrder("user-2", "order-key-1");
+        HttpResponse<String> retry = placeOrder("user-2", "order-key-1");
+
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(first.headers().firstValue("Idempotent-Replayed")).hasValue("false");
+        assertThat(retry.statusCode()).isEqualTo(200);
+        assertThat(retry.headers().firstValue("Idempotent-Replayed")).hasValue("true");
+        assertThat(retry.body()).isEqualTo(first.body());
+        assertThat(stub.charged()).hasSize(1);
+    }
+
+    @Test
+    void retryAfterAFailureOnceChargedIsNotChargedAgain() throws Exception {
+        stub.respond("/api/v1/shipping/ship",
+                request -> new StubServices.Reply(500, Map.of("message", "Shipping is down")));
+        HttpResponse<String> first = placeOrder("user-3", "order-key-2");
+
+        stub.respond("/api/v1/shipping/ship", StubServices::defaultResponse);
+        HttpResponse<String> retry = placeOrder("user-3", "order-key-2");
+
+        assertThat(first.statusCode()).isEqualTo(400);
+        assertThat(first.body()).contains("SHIPPING_ERROR");
+        assertThat(retry.statusCode()).isEqualTo(400);
+        assertThat(retry.body()).contains("SHIPPING_ERROR");
+        assertThat(stub.charged()).hasSize(1);
+    }
+
+    private HttpResponse<String> placeOrder(String userId, String idempotencyKey) throws Exception {
+        String body = StubServices.order(userId, "EUR", StubServices.ITEMS);
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/checkout/orders"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (idempotencyKey != null) {
+            request.header("Idempotency-Key", idempotencyKey);
+        }
+        return HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
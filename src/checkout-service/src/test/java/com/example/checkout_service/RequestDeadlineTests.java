@@ -0,0 +1,109 @@
+package com.example.checkout_service;
+
+import com.example.checkout_service.util.RequestDeadline;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Places orders against stub downstream services with a short request budget
+ * and checks that the deadline is sent with each call up to payment, that a
+ * missed deadline stops the order before payment, and that expired requests
+ * do no work.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "checkout.deadline.budget-ms=3000",
+        "checkout.outbox.enabled=false",
+        "checkout.fx.local-rates.enabled=false",
+        "checkout.product-cache.enabled=false",
+        "checkout.wire-format=json"
+})
+class RequestDeadlineTests {
+
+    private static final String ORDER = StubServices.order("deadline-user", "USD", StubServices.ITEMS);
+
+    private static StubServices stub;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void stubs(DynamicPropertyRegistry registry) throws IOException {
+        stub = StubServices.start(registry);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stub.stop();
+    }
+
+    @BeforeEach
+    void reset() {
+        stub.reset();
+    }
+
+    @Test
+    void deadlineIsSentUntilPayment() throws Exception {
+        long before = System.currentTimeMillis();
+        HttpResponse<String> response = placeOrder(null);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        Map<String, String> deadlines = stub.headers(RequestDeadline.HEADER);
+        assertThat(deadlines).containsOnlyKeys("/api/v1/products/batch", "/api/v1/shipping/quote", "/api/v1/charge");
+        for (String deadline : deadlines.values()) {
+            assertThat(Long.parseLong(deadline)).isBetween(before + 3000, System.currentTimeMillis() + 3000);
+        }
+        // A paid order ships whether or not the caller is still waiting
+        assertThat(stub.paths()).contains("/api/v1/shipping/ship", "/api/v1/send-order-confirmation");
+    }
+
+    @Test
+    void missedDeadlineStopsTheOrderBeforePayment() throws Exception {
+        stub.respond("/api/v1/shipping/quote", request -> {
+            Thread.sleep(5000);
+            return StubServices.defaultResponse(request);
+        });
+        long start = System.nanoTime();
+        HttpResponse<String> response = placeOrder(null);
+
+        assertThat(response.statusCode()).isEqualTo(504);
+        assertThat(response.body()).contains("DEADLINE_EXCEEDED");
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(4500);
+        assertThat(stub.paths()).doesNotContain("/api/v1/charge");
+    }
+
+    @Test
+    void callerDeadlineIsHonoured() throws Exception {
+        HttpResponse<String> expired = placeOrder(System.currentTimeMillis() - 1);
+
+        assertThat(expired.statusCode()).isEqualTo(504);
+        assertThat(stub.paths()).isEmpty();
+
+        long callerDeadline = System.currentTimeMillis() + 2000;
+        assertThat(placeOrder(callerDeadline).statusCode()).isEqualTo(200);
+        assertThat(stub.headers(RequestDeadline.HEADER).get("/api/v1/charge")).isEqualTo(Long.toString(callerDeadline));
+    }
+
+    private HttpResponse<String> placeOrder(Long deadline) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/checkout/orders"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(ORDER));
+        if (deadline != null) {
+            request.header(RequestDeadline.HEADER, deadline.toString());
+        }
+        return HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.checkout_service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * One stub HTTP server that plays every downstream service of checkout in the
+ * integration tests. It records every request, and answers the calls an order
+ * makes the way the real services would: every product costs 19.99 USD, as
+ * does shipping, and conversion keeps the amount. Bodies are read as Smile
+ * when sent as Smile and answered in Smile when the caller accepts it.
+ * A test replaces the answer for the paths it cares about with
+ * {@link #respond(String, Responder)}.
+ */
+final class StubServices {
+
+    static final String SMILE = "application/x-jackson-smile";
+
+    static final String ADDRESS = """
+            {"streetAddress":"1 Main St","city":"Springfield","state":"IL","country":"US","zipCode":62701}""";
+    static final String CARD = """
+            {"creditCardNumber":"4432801561520454","creditCardCvv":672,
+             "creditCardExpirationYear":2030,"creditCardExpirationMonth":1}""";
+    static final String ITEMS = "[{\"productId\":\"OLJCESPC7Z\",\"quantity\":2}]";
+
+    private static final List<String> SERVICES = List.of("cart", "currency", "email", "payment", "product", "shipping");
+    private static final Map<String, Object> USD = Map.of("currencyCode", "USD", "units", 19, "nanos", 990000000);
+
+    private static final ObjectMapper json = new ObjectMapper();
+    private static final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Queue<Request> requests = new ConcurrentLinkedQueue<>();
+    private final Map<String, Responder> responders = new ConcurrentHashMap<>();
+    private volatile Responder fallback = StubServices::defaultResponse;
+
+    private StubServices() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts the stub and points every service URL of checkout at it.
+     */
+    static StubServices start(DynamicPropertyRegistry registry) throws IOException {
+        StubServices stub = new StubServices();
+        stub.server.start();
+        for (String service : SERVICES) {
+            registry.add("services." + service + ".url", stub::url);
+        }
+        return stub;
+    }
+
+    /**
+     * A PlaceOrder request body with the shared address and card.
+     */
+    static String order(String userId, String currency, String items) {
+        return "{\"userId\":\"" + userId + "\",\"userCurrency\":\"" + currency + "\","
+                + "\"email\":\"" + userId + "@example.com\","
+                + "\"address\":" + ADDRESS + ",\"creditCard\":" + CARD + ","
+                + "\"items\":" + items + "}";
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Answers calls to the path with the responder instead of the default answer.
+     */
+    void respond(String path, Responder responder) {
+        responders.put(path, responder);
+    }
+
+    /**
+     * Answers calls to every path without its own responder.
+     */
+    void respondToAll(Responder responder) {
+        fallback = responder;
+    }
+
+    /**
+     * Forgets the recorded requests and goes back to the default answers.
+     */
+    void reset() {
+        requests.clear();
+        responders.clear();
+        fallback = StubServices::defaultResponse;
+    }
+
+    // Request paths in the order they arrived
+    List<String> paths() {
+        return requests.stream().map(Request::getPath).collect(Collectors.toList());
+    }
+
+    // The value of the header on each path whose requests carried it
+    Map<String, String> headers(String name) {
+        Map<String, String> values = new HashMap<>();
+        for (Request request : requests) {
+            if (request.header(name) != null) {
+                values.put(request.getPath(), request.header(name));
+            }
+        }
+        return values;
+    }
+
+    List<Request> requests(String path) {
+        return requests.stream().filter(request -> request.getPath().equals(path)).collect(Collectors.toList());
+    }
+
+    // The amounts the payment service was asked to charge, in order
+    List<Object> charged() throws IOException {
+        List<Object> amounts = new ArrayList<>();
+        for (Request request : requests("/api/v1/charge")) {
+            amounts.add(request.read(Map.class).get("amount"));
+        }
+        return amounts;
+    }
+
+    /**
+     * The canned answer of the service behind the path; anything not listed gets an empty object.
+     */
+    static Object defaultResponse(Request request) throws IOException {
+        switch (request.getPath()) {
+            case "/api/v1/products/batch": {
+                List<Map<String, Object>> products = new ArrayList<>();
+                for (Object id : request.read(List.class)) {
+                    products.add(Map.of("id", id, "name", id, "priceUsd", USD));
+                }
+                return Map.of("products", products);
+            }
+            case "/api/v1/convert/batch": {
+                Map<?, ?> conversion = request.read(Map.class);
+                List<Map<String, Object>> results = new ArrayList<>();
+                for (Object item : (List<?>) conversion.get("items")) {
+                    Object amount = ((Map<?, ?>) item).get("amount");
+                    results.add(Map.of("from", "USD", "to", conversion.get("to"), "amount", amount, "result", amount));
+                }
+                return Map.of("to", conversion.get("to"), "results", results);
+            }
+            case "/api/v1/rates":
+                return Map.of("version", "stub", "base", "EUR", "rates", Map.of("EUR", 1.0, "USD", 1.1305));
+            case "/api/v1/shipping/quote":
+                return Map.of("costUsd", USD);
+            case "/api/v1/shipping/ship":
+                return Map.of("trackingId", "TRK-1");
+            case "/api/v1/charge":
+                return Map.of("transactionId", "TX-1");
+            default:
+                // Never an empty body: the stub server drops the pooled connection after one
+                return Map.of();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Request request = new Request(exchange);
+        requests.add(request);
+
+        Object response;
+        try {
+            response = responders.getOrDefault(request.getPath(), fallback).respond(request);
+        } catch (Exception e) {
+            response = new Reply(500, Map.of("message", String.valueOf(e.getMessage())));
+        }
+        if (response instanceof CompletionStage) {
+            ((CompletionStage<?>) response).whenComplete((reply, e) -> send(exchange, request, reply));
+        } else {
+            send(exchange, request, response);
+        }
+    }
+
+    private static void send(HttpExchange exchange, Request request, Object response) {
+        Reply reply = response instanceof Reply ? (Reply) response : new Reply(200, response);
+        try {
+            if (reply.body == null) {
+                exchange.sendResponseHeaders(reply.status, -1);
+            } else {
+                String accept = request.headers.getFirst("Accept");
+                boolean inSmile = accept != null && accept.contains(SMILE);
+                byte[] body = (inSmile ? smile : json).writeValueAsBytes(reply.body);
+                exchange.getResponseHeaders().add("Content-Type", inSmile ? SMILE : "application/json");
+                exchange.sendResponseHeaders(reply.status, body.length);
+                exchange.getResponseBody().write(body);
+            }
+        } catch (IOException e) {
+            // Checkout stopped waiting
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Computes the answer to a request: a body, a {@link Reply}, or a
+     * CompletionStage of either to answer later without holding a thread.
+     */
+    @FunctionalInterface
+    interface Responder {
+        Object respond(Request request) throws Exception;
+    }
+
+    /**
+     * An answer with its status; a null body is sent as none at all.
+     */
+    static final class Reply {
+        private final int status;
+        private final Object body;
+
+        Reply(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * A request as the stub received it.
+     */
+    static final class Request {
+        private final String path;
+        private final String query;
+        private final Headers headers;
+        private final byte[] body;
+
+        private Request(HttpExchange exchange) throws IOException {
+            this.path = exchange.getRequestURI().getPath();
+            this.query = exchange.getRequestURI().getQuery();
+            this.headers = exchange.getRequestHeaders();
+            this.body = exchange.getRequestBody().readAllBytes();
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        String getQuery() {
+            return query;
+        }
+
+        String header(String name) {
+            return headers.getFirst(name);
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        // The body, read as Smile or JSON according to its Content-Type
+        <T> T read(Class<T> type) throws IOException {
+            return (SMILE.equals(header("Content-Type")) ? smile : json).readValue(body, type);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.checkout_service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Places an order against stubs that speak Smile, and checks that the hot
+ * calls were sent as Smile, that their Smile replies were read, and that the
+ * catalog was asked only for the fields an order is priced from. A refused
+ * charge is classified from its Smile error body.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "checkout.outbox.enabled=false",
+        "checkout.fx.local-rates.enabled=false",
+        "checkout.product-cache.enabled=false",
+        "checkout.wire-format=smile"
+})
+class WireFormatTests {
+
+    private static final List<String> HOT_PATHS = List.of("/api/v1/products/batch", "/api/v1/convert/batch",
+            "/api/v1/shipping/quote", "/api/v1/charge", "/api/v1/shipping/ship");
+
+    private static StubServices stub;
+
+    @LocalServerPort
+    private int port;
+
+    // The stub reads Smile bodies and answers in Smile when asked
+    @DynamicPropertySource
+    static void stubs(DynamicPropertyRegistry registry) throws IOException {
+        stub = StubServices.start(registry);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stub.stop();
+    }
+
+    @BeforeEach
+    void reset() {
+        stub.reset();
+    }
+
+    @Test
+    void hotCallsAreSentAndReadAsSmile() throws Exception {
+        HttpResponse<String> response = placeOrder("smile-user");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        // Two items and shipping at 19.99, all read back from Smile
+        assertThat(response.body()).contains("TRK-1").contains("\"totalCost\":{\"units\":59,\"nanos\":970000000");
+
+        Map<String, String> contentTypes = stub.headers("Content-Type");
+        for (String path : HOT_PATHS) {
+            assertThat(contentTypes).as(path).containsEntry(path, StubServices.SMILE);
+            assertThat(stub.headers("Accept").get(path)).as(path).contains(StubServices.SMILE);
+        }
+        assertThat(stub.requests("/api/v1/products/batch"))
+                .extracting(StubServices.Request::getQuery)
+                .containsExactly("fields=id,priceUsd");
+    }
+
+    @Test
+    void refusedChargeIsClassifiedFromItsSmileErrorBody() throws Exception {
+        stub.respond("/api/v1/charge",
+                request -> new StubServices.Reply(400, Map.of("error", "Credit Card is not valid", "status", 400)));
+
+        HttpResponse<String> response = placeOrder("refused-smile-user");
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).contains("PAYMENT_ERROR").contains("The provided credit card information is invalid");
+    }
+
+    private HttpResponse<String> placeOrder(String userId) throws Exception {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/checkout/orders"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(StubServices.order(userId, "EUR", StubServices.ITEMS)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.checkout_service.config;
+
+import com.example.checkout_service.config.AdaptiveConcurrencyLimiter.Permit;
+import com.example.checkout_service.config.AdaptiveConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long THRESHOLD_NANOS = 60_000_000_000L;
+
+    @Test
+    void rejectsOnceTheLimitIsInUse() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 0.5, THRESHOLD_NANOS, 0.5);
+        List<Permit> permits = acquire(limiter, Priority.INTERACTIVE, 4);
+
+        assertThat(permits).doesNotContainNull();
+        assertThat(limiter.tryAcquire(Priority.INTERACTIVE)).isNull();
+
+        permits.get(0).releaseWithoutSample();
+        assertThat(limiter.tryAcquire(Priority.INTERACTIVE)).isNotNull();
+    }
+
+    @Test
+    void bulkTrafficLeavesRoomForInteractive() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 0.5, THRESHOLD_NANOS, 0.5);
+
+        assertThat(acquire(limiter, Priority.BULK, 2)).doesNotContainNull();
+        assertThat(limiter.tryAcquire(Priority.BULK)).isNull();
+        assertThat(acquire(limiter, Priority.INTERACTIVE, 2)).doesNotContainNull();
+        assertThat(limiter.getInFlight()).isEqualTo(4);
+    }
+
+    @Test
+    void growsWhileFastAndBacksOffOnTimeouts() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 10, 0.5, THRESHOLD_NANOS, 0.5);
+
+        // A full window of fast requests adds about one slot
+        for (int round = 0; round < 2; round++) {
+            acquire(limiter, Priority.INTERACTIVE, limiter.getLimit()).forEach(permit -> permit.release(false));
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        limiter.tryAcquire(Priority.INTERACTIVE).release(true);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        limiter.tryAcquire(Priority.INTERACTIVE).release(true);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void releasingTwiceCountsOnce() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.5, THRESHOLD_NANOS, 0.5);
+        Permit permit = limiter.tryAcquire(Priority.BULK);
+        limiter.tryAcquire(Priority.INTERACTIVE);
+
+        permit.releaseWithoutSample();
+        permit.release(true);
+
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    private static List<Permit> acquire(AdaptiveConcurrencyLimiter limiter, Priority priority, int count) {
+        List<Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            permits.add(limiter.tryAcquire(priority));
+        }
+        return permits;
+    }
+}
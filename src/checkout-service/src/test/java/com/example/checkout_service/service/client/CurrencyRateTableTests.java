@@ -0,0 +1,34 @@
+package com.example.checkout_service.service.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class CurrencyRateTableTests {
+
+    private static final String RATES = """
+            {"version":"v1","base":"EUR","rates":{"EUR":1.0,"USD":1.1305}}""";
+
+    @Test
+    void tablePastItsAgeIsOnlyKeptForFallbacksUntilTheStaleLimit() throws InterruptedException {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo("http://currency/api/v1/rates")).andRespond(withSuccess(RATES, MediaType.APPLICATION_JSON));
+
+        CurrencyRateTable table = new CurrencyRateTable(restTemplate, "http://currency", true, 0, 200);
+        table.refresh();
+        Thread.sleep(5);
+
+        assertThat(table.current()).isNull();
+        assertThat(table.lastKnown()).isNotNull();
+        assertThat(table.lastKnown().getVersion()).isEqualTo("v1");
+
+        Thread.sleep(250);
+        assertThat(table.lastKnown()).isNull();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.checkout_service.service.client;
+
+import com.example.checkout_service.model.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class CurrencyServiceClientTests {
+
+    @Test
+    void amountsPastTheBatchLimitAreConvertedInSeveralCalls() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        for (double[] batch : new double[][] {{1, 2}, {3, 4}, {5}}) {
+            server.expect(once(), requestTo("http://currency/api/v1/convert/batch"))
+                    .andExpect(method(HttpMethod.POST))
+                    .andExpect(jsonPath("$.items.length()").value(batch.length))
+                    .andRespond(withSuccess(results(batch), MediaType.APPLICATION_JSON));
+        }
+
+        CurrencyRateTable rateTable = new CurrencyRateTable(restTemplate, "http://currency", false, 0, 0);
+        CurrencyServiceClient client = new CurrencyServiceClient(
+                restTemplate, "http://currency", rateTable, new WireFormat("json"), 2);
+        List<Money> from = new ArrayList<>();
+        for (int units = 1; units <= 5; units++) {
+            from.add(new Money(units, 0, "USD"));
+        }
+
+        List<Money> converted = client.convertCurrencies(from, "EUR");
+
+        server.verify();
+        assertThat(converted).extracting(Money::getUnits).containsExactly(2L, 4L, 6L, 8L, 10L);
+        assertThat(converted).extracting(Money::getCurrencyCode).containsOnly("EUR");
+    }
+
+    // Doubles each amount, so the results show which request they came from
+    private static String results(double[] amounts) {
+        List<String> results = new ArrayList<>();
+        for (double amount : amounts) {
+            results.add("{\"from\":\"USD\",\"to\":\"EUR\",\"amount\":" + amount + ",\"result\":" + amount * 2 + "}");
+        }
+        return "{\"to\":\"EUR\",\"results\":[" + String.join(",", results) + "]}";
+    }
+}
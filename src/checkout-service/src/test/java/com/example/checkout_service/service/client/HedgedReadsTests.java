@@ -0,0 +1,86 @@
+package com.example.checkout_service.service.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgedReadsTests {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void delayIsThePercentileOfRecentReads() {
+        HedgePolicy policy = new HedgePolicy(0.95, 0, 100, 100, 0.05);
+        for (long millis = 1; millis <= 99; millis++) {
+            policy.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        assertThat(policy.onRead()).isEqualTo(-1);
+
+        policy.record(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(policy.onRead()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(95));
+    }
+
+    @Test
+    void slowReadIsAnsweredByItsHedge() {
+        HedgedReads reads = hedgedReads(0.5);
+        warmUp(reads, 4);
+
+        AtomicInteger attempts = new AtomicInteger();
+        long start = System.nanoTime();
+        String answer = reads.read("quote", () -> attempts.incrementAndGet() == 1 ? sleep(2000, "slow") : "fast");
+
+        assertThat(answer).isEqualTo("fast");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+        assertThat(meterRegistry.get("checkout.hedge.sent").tag("call", "quote").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("checkout.hedge.won").tag("call", "quote").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void hedgesStayWithinTheirShareOfReads() {
+        HedgedReads reads = hedgedReads(0.25);
+        // Four reads earn one hedge
+        warmUp(reads, 4);
+
+        AtomicInteger attempts = new AtomicInteger();
+        reads.read("quote", () -> sleep(50, attempts.incrementAndGet()));
+        reads.read("quote", () -> sleep(200, attempts.incrementAndGet()));
+
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("checkout.hedge.sent").tag("call", "quote").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("checkout.hedge.capped").tag("call", "quote").counter().count()).isEqualTo(1);
+    }
+
+    // Hedges reads that take over 10 ms once four have been seen
+    private HedgedReads hedgedReads(double maxRatio) {
+        return new HedgedReads(true, executor, meterRegistry, 0.95, 10, 8, 4, maxRatio);
+    }
+
+    private static void warmUp(HedgedReads reads, int count) {
+        for (int i = 0; i < count; i++) {
+            reads.read("quote", () -> "fast");
+        }
+    }
+
+    private static <T> T sleep(long millis, T result) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+}
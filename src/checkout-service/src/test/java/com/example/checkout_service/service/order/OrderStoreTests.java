@@ -0,0 +1,109 @@
+package com.example.checkout_service.service.order;
+
+import com.example.checkout_service.model.Address;
+import com.example.checkout_service.model.Money;
+import com.example.checkout_service.model.OrderResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class OrderStoreTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void ordersAreWrittenInBatchesAndReadBackAfterRestart() throws Exception {
+        // Every batch fills its segment, so each gets one of its own
+        OrderStore store = new OrderStore(repository(1), meterRegistry, true, 10, 1000, 100);
+        for (int i = 0; i < 25; i++) {
+            store.submit(new OrderRecord(i % 2 == 0 ? "even" : "odd", order("order-" + i)));
+        }
+
+        // Readable straight away, before the writer gets to it
+        assertThat(store.findById("order-24")).isPresent();
+
+        await().until(() -> meterRegistry.get("checkout.orders.written").counter().count() == 25);
+        assertThat(meterRegistry.get("checkout.orders.batch.size").summary().count()).isEqualTo(3);
+        store.close();
+        assertThat(segments()).hasSize(3);
+
+        SegmentFileOrderRepository reopened = repository(1);
+        assertThat(reopened.findById("order-7")).get()
+                .extracting(order -> order.getOrder().getTotalCost().getUnits())
+                .isEqualTo(7L);
+        assertThat(reopened.findByUserId("even", 3))
+                .extracting(OrderRecord::getOrderId)
+                .containsExactly("order-24", "order-22", "order-20");
+        assertThat(reopened.findById("missing")).isEmpty();
+    }
+
+    @Test
+    void ordersAreLeftOutWhenDisabledOrQueueIsFull() {
+        OrderStore store = new OrderStore(repository(1 << 20), meterRegistry, false, 10, 50, 1);
+        store.submit(new OrderRecord("user", order("order-1")));
+
+        // Disabled, so nothing is queued at all
+        assertThat(store.findById("order-1")).isEmpty();
+
+        OrderStore stalled = new OrderStore(new StalledRepository(), meterRegistry, true, 1, 50, 1);
+        for (int i = 0; i < 5; i++) {
+            stalled.submit(new OrderRecord("user", order("stalled-" + i)));
+        }
+        await().until(() -> meterRegistry.get("checkout.orders.dropped").tag("reason", "queue-full")
+                .counter().count() >= 3);
+    }
+
+    private SegmentFileOrderRepository repository(long segmentMaxBytes) {
+        return new SegmentFileOrderRepository(objectMapper, directory.toString(), segmentMaxBytes, false);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static OrderResult order(String orderId) {
+        long units = Long.parseLong(orderId.substring(orderId.indexOf('-') + 1));
+        return new OrderResult(orderId, null, new Money(units, 0, "USD"), new Money(0, 0, "USD"),
+                new Address(), List.of());
+    }
+
+    // Never finishes a write, so the queue behind it only fills up
+    private static final class StalledRepository implements OrderRepository {
+        @Override
+        public void saveAll(List<OrderRecord> orders) {
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public java.util.Optional<OrderRecord> findById(String orderId) {
+            return java.util.Optional.empty();
+        }
+
+        @Override
+        public List<OrderRecord> findByUserId(String userId, int limit) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.checkout_service.util;
+
+import com.example.checkout_service.model.Money;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares cart totals and currency conversion on MoneyUtil and doubles with
+ * the fixed-point MoneyMath and MoneyAccumulator. Not part of the normal test
+ * run; allocation rates are reported with the gc profiler:
+ *
+ * <pre>
+ * mvn test -Dtest=MoneyBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final double EUR_TO_USD = 1.1305;
+
+    @Param({"10", "1000"})
+    private int cartSize;
+
+    private Money[] prices;
+    private int[] quantities;
+    private final MoneyAccumulator accumulator = new MoneyAccumulator("USD");
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        prices = new Money[cartSize];
+        quantities = new int[cartSize];
+        for (int i = 0; i < cartSize; i++) {
+            prices[i] = new Money(random.nextInt(500), random.nextInt(1_000_000_000), "USD");
+            quantities[i] = 1 + random.nextInt(10);
+        }
+    }
+
+    @Benchmark
+    public Money totalWithMoneyUtil() {
+        Money total = new Money(0, 0, "USD");
+        for (int i = 0; i < prices.length; i++) {
+            total = MoneyUtil.sum(total, MoneyUtil.multiply(prices[i], quantities[i]));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long totalWithAccumulator() {
+        accumulator.reset();
+        for (int i = 0; i < prices.length; i++) {
+            accumulator.add(prices[i], quantities[i]);
+        }
+        return accumulator.getUnits() + accumulator.getNanos();
+    }
+
+    @Benchmark
+    public long convertWithDoubles() {
+        long sum = 0;
+        for (Money price : prices) {
+            double amount = price.getUnits() + (price.getNanos() / 1_000_000_000.0);
+            double result = Math.round(amount * EUR_TO_USD * 10000.0) / 10000.0;
+            long units = (long) result;
+            sum += units + (int) ((result - units) * 1_000_000_000);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long convertFixedPoint() {
+        long sum = 0;
+        for (Money price : prices) {
+            sum += MoneyMath.scale(MoneyMath.toNanos(price), EUR_TO_USD, 100_000L);
+        }
+        return sum;
+    }
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.checkout_service.util;
+
+import com.example.checkout_service.exception.CurrencyConversionException;
+import com.example.checkout_service.exception.InvalidMoneyException;
+import com.example.checkout_service.model.Money;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.constraints.DoubleRange;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.LongRange;
+import net.jqwik.api.constraints.Scale;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the fixed-point money engine against BigDecimal and the existing MoneyUtil.
+ */
+class MoneyMathTests {
+
+    private static final BigDecimal NANOS = BigDecimal.valueOf(MoneyMath.NANOS_PER_UNIT);
+
+    @Property(tries = 200)
+    void accumulatorMatchesBigDecimalOnLargeCarts(@ForAll("largeCarts") List<Line> cart) {
+        MoneyAccumulator total = new MoneyAccumulator("USD");
+        BigDecimal expected = BigDecimal.ZERO;
+        for (Line line : cart) {
+            total.add(line.price, line.quantity);
+            expected = expected.add(decimal(line.price).multiply(BigDecimal.valueOf(line.quantity)));
+        }
+
+        assertThat(decimal(total.toMoney())).isEqualByComparingTo(expected);
+        assertThat(MoneyUtil.isValid(total.toMoney())).isTrue();
+    }
+
+    @Property(tries = 200)
+    void accumulatorMatchesMoneyUtil(@ForAll("largeCarts") List<Line> cart) {
+        MoneyAccumulator total = new MoneyAccumulator("USD");
+        Money expected = new Money(0, 0, "USD");
+        for (Line line : cart) {
+            total.add(line.price, line.quantity);
+            expected = MoneyUtil.sum(expected, MoneyUtil.multiply(line.price, line.quantity));
+        }
+
+        assertThat(total.toMoney()).isEqualTo(expected);
+    }
+
+    @Property
+    void accumulatorCarriesAcrossSigns(@ForAll("prices") Money a, @ForAll("prices") Money b) {
+        MoneyAccumulator total = new MoneyAccumulator("USD").add(a).add(MoneyUtil.negate(b));
+
+        assertThat(decimal(total.toMoney())).isEqualByComparingTo(decimal(a).subtract(decimal(b)));
+        assertThat(MoneyUtil.isValid(total.toMoney())).isTrue();
+    }
+
+    @Property
+    void nanosRoundTrip(@ForAll @LongRange(min = -9_000_000_000L, max = 9_000_000_000L) long units,
+                        @ForAll @IntRange(min = 0, max = 999_999_999) int nanos) {
+        int signedNanos = units < 0 ? -nanos : nanos;
+        long amount = MoneyMath.toNanos(units, signedNanos);
+
+        assertThat(MoneyMath.unitsOf(amount)).isEqualTo(units);
+        assertThat(MoneyMath.nanosOf(amount)).isEqualTo(signedNanos);
+        assertThat(MoneyUtil.isValid(MoneyMath.toMoney(amount, "USD"))).isTrue();
+    }
+
+    @Property
+    void fromDoubleRoundsToNearestNano(@ForAll @DoubleRange(min = -1_000_000, max = 1_000_000) @Scale(12) double amount) {
+        BigDecimal expected = new BigDecimal(amount).setScale(9, RoundingMode.HALF_UP);
+
+        assertThat(BigDecimal.valueOf(MoneyMath.fromDouble(amount)).divide(NANOS))
+                .isEqualByComparingTo(expected);
+    }
+
+    @Property
+    void scaleLandsOnTheStep(@ForAll @LongRange(min = 0, max = 1_000_000_000_000_000L) long amount,
+                             @ForAll @DoubleRange(min = 0.001, max = 1000) @Scale(6) double rate) {
+        long scaled = MoneyMath.scale(amount, rate, 100_000L);
+
+        assertThat(scaled % 100_000L).isZero();
+        double exact = amount * rate;
+        assertThat(Math.abs(scaled - exact)).isLessThanOrEqualTo(50_000 + Math.ulp(exact) * 4);
+    }
+
+    @Example
+    void fromDoubleDoesNotTruncate() {
+        // (long) ((0.29 - 0) * 1e9) is 289999999
+        assertThat(MoneyMath.fromDouble(19.29)).isEqualTo(19_290_000_000L);
+        assertThat(MoneyMath.fromDouble(-0.29)).isEqualTo(-290_000_000L);
+    }
+
+    @Example
+    void fromDoubleSettlesTiesOnTheExactValue() {
+        // Just below a tie, but the product with 1e9 rounds to exactly 19.5
+        assertThat(MoneyMath.fromDouble(1.95e-8)).isEqualTo(19L);
+        // An exact tie at 976562.5 nanos
+        assertThat(MoneyMath.fromDouble(1.0 / 1024)).isEqualTo(976_563L);
+        assertThat(MoneyMath.fromDouble(-1.0 / 1024)).isEqualTo(-976_563L);
+    }
+
+    @Example
+    void overflowFailsInsteadOfWrapping() {
+        assertThatThrownBy(() -> MoneyMath.toNanos(Long.MAX_VALUE / 2, 0))
+                .isInstanceOf(InvalidMoneyException.class);
+        assertThatThrownBy(() -> new MoneyAccumulator("USD").add(new Money(Long.MAX_VALUE, 0, "USD"), 2))
+                .isInstanceOf(InvalidMoneyException.class);
+    }
+
+    @Example
+    void accumulatorRejectsWhatMoneyUtilRejects() {
+        MoneyAccumulator total = new MoneyAccumulator("USD");
+
+        assertThatThrownBy(() -> total.add(new Money(1, 0, "EUR")))
+                .isInstanceOf(CurrencyConversionException.class);
+        assertThatThrownBy(() -> total.add(new Money(1, -5, "USD")))
+                .isInstanceOf(InvalidMoneyException.class);
+        assertThatThrownBy(() -> total.add(new Money(1, 0, "USD"), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Provide
+    Arbitrary<Money> prices() {
+        return Combinators.combine(
+                Arbitraries.longs().between(0, 100_000),
+                Arbitraries.integers().between(0, 999_999_999))
+                .as((units, nanos) -> new Money(units, nanos, "USD"));
+    }
+
+    @Provide
+    Arbitrary<List<Line>> largeCarts() {
+        Arbitrary<Line> line = Combinators.combine(prices(), Arbitraries.integers().between(1, 1000))
+                .as(Line::new);
+        return line.list().ofMinSize(1).ofMaxSize(2000);
+    }
+
+    private static BigDecimal decimal(Money money) {
+        return BigDecimal.valueOf(money.getUnits()).add(BigDecimal.valueOf(money.getNanos()).divide(NANOS));
+    }
+
+    private static final class Line {
+        private final Money price;
+        private final int quantity;
+
+        private Line(Money price, int quantity) {
+            this.price = price;
+            this.quantity = quantity;
+        }
+
+        @Override
+        public String toString() {
+            return quantity + " x " + price;
+        }
+    }
+}
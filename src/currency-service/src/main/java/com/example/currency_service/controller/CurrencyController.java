@@ -2,11 +2,18 @@ package com.example.currency_service.controller;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.currency_service.model.BatchConversionRequest;
+import com.example.currency_service.model.BatchConversionResponse;
+import com.example.currency_service.model.ConversionRequest;
 import com.example.currency_service.model.ConversionResponse;
 import com.example.currency_service.model.HealthResponse;
+import com.example.currency_service.model.RatesSnapshotResponse;
 import com.example.currency_service.model.SupportedCurrenciesResponse;
 import com.example.currency_service.service.CurrencyService;
 
@@ -23,9 +30,12 @@ public class CurrencyController {
 
     private static final Logger logger = LoggerFactory.getLogger(CurrencyController.class);
     private final CurrencyService currencyService;
+    private final int maxBatchItems;
 
-    public CurrencyController(CurrencyService currencyService) {
+    public CurrencyController(CurrencyService currencyService,
+                              @Value("${currency.batch.max-items:10000}") int maxBatchItems) {
         this.currencyService = currencyService;
+        this.maxBatchItems = maxBatchItems;
     }
 
     /**
@@ -54,6 +64,17 @@ public class CurrencyController {
         convertEndpoint.put("description", "Convert currency");
         convertEndpoint.put("example", "/convert?from=USD&to=EUR&amount=100");
 
+        Map<String, Object> batchConvertEndpoint = new HashMap<>();
+        batchConvertEndpoint.put("path", "/api/v1/convert/batch");
+        batchConvertEndpoint.put("method", "POST");
+        batchConvertEndpoint.put("description", "Convert many amounts to one currency");
+        batchConvertEndpoint.put("example", "{\"to\":\"EUR\",\"items\":[{\"from\":\"USD\",\"amount\":100}]}");
+
+        Map<String, Object> ratesEndpoint = new HashMap<>();
+        ratesEndpoint.put("path", "/api/v1/rates");
+        ratesEndpoint.put("method", "GET");
+        ratesEndpoint.put("description", "Versioned snapshot of all rates, supports If-None-Match");
+
         Map<String, Object> healthEndpoint = new HashMap<>();
         healthEndpoint.put("path", "/api/v1/health");
         healthEndpoint.put("method", "GET");
@@ -61,6 +82,8 @@ public class CurrencyController {
 
         endpoints.put("currencies", currenciesEndpoint);
         endpoints.put("convert", convertEndpoint);
+        endpoints.put("convertBatch", batchConvertEndpoint);
+        endpoints.put("rates", ratesEndpoint);
         endpoints.put("health", healthEndpoint);
 
         info.put("endpoints", endpoints);
@@ -82,6 +105,29 @@ public class CurrencyController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * GET /rates
+     * full rate table with its version as ETag, 304 when the caller already has it
+     */
+    @GetMapping("/rates")
+    public ResponseEntity<RatesSnapshotResponse> getRatesSnapshot(
+            @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch) {
+        logger.info("Request received: GET /api/rates");
+
+        RatesSnapshotResponse snapshot = currencyService.getRatesSnapshot();
+        String eTag = "\"" + snapshot.getVersion() + "\"";
+
+        if (eTag.equals(ifNoneMatch)) {
+            logger.info("Rate snapshot {} not modified", snapshot.getVersion());
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot);
+    }
+
     /**
      * GET /convert?from=USD&to=EUR&amount=100
      * conversion among units
@@ -106,6 +152,43 @@ public class CurrencyController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * POST /convert/batch
+     * conversion of up to currency.batch.max-items amounts to a single target currency
+     */
+    @PostMapping("/convert/batch")
+    public ResponseEntity<BatchConversionResponse> convertCurrencies(@RequestBody BatchConversionRequest request) {
+        logger.info("Request received: POST /api/convert/batch to={}", request.getTo());
+
+        if (request.getTo() == null || request.getTo().isBlank()) {
+            throw new IllegalArgumentException("Target currency is required");
+        }
+
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("At least one amount is required");
+        }
+
+        if (request.getItems().size() > maxBatchItems) {
+            throw new IllegalArgumentException("At most " + maxBatchItems + " amounts can be converted at once");
+        }
+
+        for (ConversionRequest item : request.getItems()) {
+            if (item.getFrom() == null || item.getFrom().isBlank()) {
+                throw new IllegalArgumentException("Source currency is required for every amount");
+            }
+            // A zero amount, such as free shipping, converts to zero; only a negative one is invalid
+            if (item.getAmount() < 0) {
+                logger.warn("Negative amount: {}", item.getAmount());
+                throw new IllegalArgumentException("Amount must not be negative");
+            }
+        }
+
+        BatchConversionResponse response = currencyService.convertCurrencies(request.getTo(), request.getItems());
+
+        logger.info("Batch conversion successful: {} amounts to {}", response.getResults().size(), response.getTo());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * GET /health
      * Health check endpoint
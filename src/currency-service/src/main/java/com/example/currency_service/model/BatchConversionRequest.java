@@ -0,0 +1,33 @@
+package com.example.currency_service.model;
+
+import java.util.List;
+
+public class BatchConversionRequest {
+    private String to;
+    private List<ConversionRequest> items;
+
+    public BatchConversionRequest(){
+
+    }
+
+    public BatchConversionRequest(String to, List<ConversionRequest> items){
+        this.to = to;
+        this.items = items;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public List<ConversionRequest> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ConversionRequest> items) {
+        this.items = items;
+    }
+}
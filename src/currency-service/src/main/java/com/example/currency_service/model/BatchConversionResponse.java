@@ -0,0 +1,33 @@
+package com.example.currency_service.model;
+
+import java.util.List;
+
+public class BatchConversionResponse {
+    private String to;
+    private List<ConversionResponse> results;
+
+    public BatchConversionResponse(){
+
+    }
+
+    public BatchConversionResponse(String to, List<ConversionResponse> results){
+        this.to = to;
+        this.results = results;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public List<ConversionResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<ConversionResponse> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.currency_service.model;
+
+public class ConversionRequest {
+    private String from;
+    private double amount;
+
+    public ConversionRequest(){
+
+    }
+
+    public ConversionRequest(String from, double amount){
+        this.from = from;
+        this.amount = amount;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.currency_service.model;
+
+import java.util.Map;
+
+public class RatesSnapshotResponse {
+    private String version;
+    private String base;
+    private Map<String, Double> rates;
+
+    public RatesSnapshotResponse(){
+
+    }
+
+    public RatesSnapshotResponse(String version, String base, Map<String, Double> rates){
+        this.version = version;
+        this.base = base;
+        this.rates = rates;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getBase() {
+        return base;
+    }
+
+    public void setBase(String base) {
+        this.base = base;
+    }
+
+    public Map<String, Double> getRates() {
+        return rates;
+    }
+
+    public void setRates(Map<String, Double> rates) {
+        this.rates = rates;
+    }
+}
@@ -1,9 +1,16 @@
 package com.example.currency_service.service;
 
+import com.example.currency_service.model.BatchConversionResponse;
+import com.example.currency_service.model.ConversionRequest;
 import com.example.currency_service.model.ConversionResponse;
+import com.example.currency_service.model.RatesSnapshotResponse;
 import com.example.currency_service.model.SupportedCurrenciesResponse;
 
+import java.util.List;
+
 public interface CurrencyService {
     SupportedCurrenciesResponse getSupportedCurrencies();
+    RatesSnapshotResponse getRatesSnapshot();
     ConversionResponse convertCurrency(String from, String to, double amount);
+    BatchConversionResponse convertCurrencies(String to, List<ConversionRequest> items);
 }
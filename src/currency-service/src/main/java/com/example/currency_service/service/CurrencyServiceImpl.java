@@ -1,15 +1,23 @@
 package com.example.currency_service.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import com.example.currency_service.model.BatchConversionResponse;
+import com.example.currency_service.model.ConversionRequest;
 import com.example.currency_service.model.ConversionResponse;
+import com.example.currency_service.model.RatesSnapshotResponse;
 import com.example.currency_service.model.SupportedCurrenciesResponse;
 import com.example.currency_service.util.CurrencyDataLoader;
 import com.example.currency_service.exception.UnsupportedCurrencyException;
@@ -22,8 +30,10 @@ public class CurrencyServiceImpl implements CurrencyService {
 
     // Cache
     private Map<String, Double> cachedData;
+    private String cachedVersion;
     private long lastLoadTime = 0;
     private static final long CACHE_DURATION = 60 * 60 * 1000; // 1 hours
+    private static final String BASE_CURRENCY = "EUR";
 
     public CurrencyServiceImpl(CurrencyDataLoader dataLoader){
         this.dataLoader = dataLoader;
@@ -41,6 +51,7 @@ public class CurrencyServiceImpl implements CurrencyService {
         // Load new data
         logger.info("Loading currency data from file...");
         cachedData = dataLoader.loadCurrencyData();
+        cachedVersion = computeVersion(cachedData);
         lastLoadTime = now;
         logger.info("Currency data loaded successfully. {} currencies available", cachedData.size());
 
@@ -60,14 +71,46 @@ public class CurrencyServiceImpl implements CurrencyService {
         return new SupportedCurrenciesResponse(currencyCodes); 
     }
 
+    @Override
+    public RatesSnapshotResponse getRatesSnapshot() {
+        Map<String, Double> data = getCurrencyData();
+
+        logger.info("Returning rate snapshot version {} with {} currencies", cachedVersion, data.size());
+
+        return new RatesSnapshotResponse(cachedVersion, BASE_CURRENCY, new TreeMap<>(data));
+    }
+
     @Override
     public ConversionResponse convertCurrency(String from, String to, double amount) {
         logger.info("Converting {} {} to {}...", amount, from, to);
 
+        ConversionResponse response = convert(getCurrencyData(), from, to.toUpperCase(), amount);
+
+        logger.info("Conversion successful: {} {} = {} {}", amount, response.getFrom(), response.getResult(), response.getTo());
+
+        return response;
+    }
+
+    @Override
+    public BatchConversionResponse convertCurrencies(String to, List<ConversionRequest> items) {
+        logger.info("Converting {} amounts to {}...", items.size(), to);
+
+        // Load the rates once for the whole batch
         Map<String, Double> data = getCurrencyData();
+        String toUpper = to.toUpperCase();
+
+        List<ConversionResponse> results = new ArrayList<>(items.size());
+        for (ConversionRequest item : items) {
+            results.add(convert(data, item.getFrom(), toUpper, item.getAmount()));
+        }
+
+        logger.info("Batch conversion successful: {} amounts to {}", results.size(), toUpper);
+
+        return new BatchConversionResponse(toUpper, results);
+    }
 
+    private ConversionResponse convert(Map<String, Double> data, String from, String toUpper, double amount) {
         String fromUpper = from.toUpperCase();
-        String toUpper = to.toUpperCase();
 
         // Validate currencies
         if (!data.containsKey(fromUpper)) {
@@ -89,14 +132,26 @@ public class CurrencyServiceImpl implements CurrencyService {
         // round to 4 degree
         result = Math.round(result * 10000.0) / 10000.0;
 
-        logger.info("Conversion successful: {} {} = {} {}", amount, fromUpper, result, toUpper);
-
         return new ConversionResponse(result, fromUpper, toUpper, amount);
     }
 
+    // Content hash of the rates, identical on every replica serving the same file
+    private String computeVersion(Map<String, Double> data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, Double> entry : new TreeMap<>(data).entrySet()) {
+                digest.update((entry.getKey() + "=" + entry.getValue() + ";").getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     public void clearCache() {
         logger.info("Clearing currency data cache...");
         cachedData = null;
+        cachedVersion = null;
         lastLoadTime = 0;
     }
 }
@@ -1,7 +1,11 @@
 package com.example.email_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -11,14 +15,26 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig {
 
+    @Value("${email.executor.max-concurrent:5}")
+    private int maxConcurrent;
+
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    public Executor taskExecutor(Environment environment) {
+        // Sending mail blocks on SMTP, so one virtual thread per message when enabled,
+        // with no more messages in flight than the platform pool would send
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("EmailThread-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxConcurrent);
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
+        executor.setMaxPoolSize(maxConcurrent);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("EmailThread-");
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+}
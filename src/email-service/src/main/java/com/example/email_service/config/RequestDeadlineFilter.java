@@ -0,0 +1,66 @@
+package com.example.email_service.config;
+
+import com.example.email_service.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Answers 504 without doing any work when the request's X-Request-Deadline, in
+ * epoch milliseconds, has passed by the time it gets here, for example after
+ * waiting in the server's queue under overload. Checkout sends confirmations
+ * after payment without a deadline, so only other callers that set one are
+ * affected.
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+    public static final String DEADLINE_HEADER = "X-Request-Deadline";
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestDeadlineFilter.class);
+
+    private final ObjectMapper objectMapper;
+
+    public RequestDeadlineFilter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long deadline = parseDeadline(request.getHeader(DEADLINE_HEADER));
+        long now = System.currentTimeMillis();
+        if (deadline == null || deadline > now) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        logger.warn("Rejecting {} {}: request deadline passed {} ms ago",
+                request.getMethod(), request.getRequestURI(), now - deadline);
+        response.setStatus(HttpStatus.GATEWAY_TIMEOUT.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(HttpStatus.GATEWAY_TIMEOUT.value(), "Request deadline has already passed",
+                System.currentTimeMillis()));
+    }
+
+    // A missing or malformed header means no deadline
+    private static Long parseDeadline(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
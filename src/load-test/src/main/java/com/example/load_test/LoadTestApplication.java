@@ -0,0 +1,169 @@
+package com.example.load_test;
+
+import com.example.load_test.generator.CheckoutClient;
+import com.example.load_test.generator.ClosedLoopGenerator;
+import com.example.load_test.generator.LoadGenerator;
+import com.example.load_test.generator.OpenLoopGenerator;
+import com.example.load_test.generator.OrderFactory;
+import com.example.load_test.report.LatencyReport;
+import com.example.load_test.stub.StubServer;
+import com.example.load_test.stub.StubServices;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures checkout throughput and latency on one machine. Stubs play every
+ * service checkout depends on, checkout itself is either already running or
+ * started from its jar, and an open or closed loop generator places orders
+ * while an HDR histogram report prints a line per second and a summary.
+ *
+ * <pre>
+ * java -jar target/load-test-0.0.1-SNAPSHOT.jar \
+ *     --checkout-jar=../checkout-service/target/checkout-service-0.0.1-SNAPSHOT.jar \
+ *     --mode=open --rate=100 --duration=60s --payment.latency=lognormal:80:0.8
+ * </pre>
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.isHelp()) {
+            System.out.println(LoadTestOptions.USAGE);
+            return;
+        }
+
+        StubServices stubs = null;
+        Process checkout = null;
+        try {
+            if (options.isStubs()) {
+                stubs = new StubServices(options.getStubBehaviors(), options.getStubPorts());
+                stubs.start();
+                for (StubServer server : stubs.getServers()) {
+                    System.out.printf("Stub %-8s on port %d: %s%n", server.getName(), server.getPort(), server.getBehavior());
+                }
+            }
+            if (options.getCheckoutJar() != null) {
+                checkout = startCheckout(options, stubs);
+            }
+            awaitCheckout(options.getCheckoutUrl(), checkout);
+
+            run(options);
+
+            if (stubs != null) {
+                System.out.println("Stub calls (failures injected, rejected past deadline):");
+                for (StubServer server : stubs.getServers()) {
+                    System.out.printf("  %-8s %d (%d, %d)%n", server.getName(), server.getCalls(),
+                            server.getFailures(), server.getExpired());
+                }
+            }
+        } finally {
+            if (checkout != null) {
+                checkout.destroy();
+                if (!checkout.waitFor(30, TimeUnit.SECONDS)) {
+                    checkout.destroyForcibly();
+                }
+            }
+            if (stubs != null) {
+                stubs.stop();
+            }
+        }
+    }
+
+    private static void run(LoadTestOptions options) throws IOException, InterruptedException {
+        LatencyReport report = new LatencyReport(System.out, options.getHistogramLog());
+        OrderFactory orders = new OrderFactory(options.getCatalogSize(), options.getCartSizeMean());
+        CheckoutClient client = new CheckoutClient(options.getCheckoutUrl(), options.getTimeout(), orders, report);
+        LoadGenerator generator = options.isOpenLoop()
+                ? new OpenLoopGenerator(client, options.getRate(), options.getMaxOutstanding())
+                : new ClosedLoopGenerator(client, options.getUsers(), options.getThinkTimeMillis());
+
+        System.out.println(options.isOpenLoop()
+                ? String.format("Open loop at %.1f orders/s, mean cart size %.1f", options.getRate(), options.getCartSizeMean())
+                : String.format("Closed loop with %d users, mean think time %.0f ms, mean cart size %.1f",
+                        options.getUsers(), options.getThinkTimeMillis(), options.getCartSizeMean()));
+
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        try {
+            ticker.scheduleAtFixedRate(report::interval, 1, 1, TimeUnit.SECONDS);
+            if (!options.getWarmup().isZero()) {
+                System.out.printf("Warming up for %d s%n", options.getWarmup().toSeconds());
+                generator.run(options.getWarmup());
+            }
+            report.startMeasuring();
+            generator.run(options.getDuration());
+        } finally {
+            ticker.shutdownNow();
+            ticker.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        report.summary();
+    }
+
+    // Runs checkout in its own JVM with every service URL pointing at the stubs
+    private static Process startCheckout(LoadTestOptions options, StubServices stubs) throws IOException {
+        Path workDir = Files.createTempDirectory("checkout-load-test");
+        File log = workDir.resolve("checkout.log").toFile();
+
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-jar", Path.of(options.getCheckoutJar()).toAbsolutePath().toString(),
+                "--server.port=" + URI.create(options.getCheckoutUrl()).getPort()));
+        command.addAll(List.of(options.getCheckoutArgs()));
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log);
+        if (stubs != null) {
+            Map<String, String> environment = builder.environment();
+            for (StubServer server : stubs.getServers()) {
+                environment.put(StubServices.URL_VARIABLES.get(server.getName()), "http://localhost:" + server.getPort());
+            }
+        }
+        System.out.println("Starting checkout, logging to " + log);
+        return builder.start();
+    }
+
+    private static void awaitCheckout(String checkoutUrl, Process checkout) throws IOException, InterruptedException {
+        HttpClient httpClient = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(checkoutUrl + "/api/v1/health"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            if (checkout != null && !checkout.isAlive()) {
+                throw new IllegalStateException("Checkout exited with status " + checkout.exitValue());
+            }
+            try {
+                if (httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Checkout at " + checkoutUrl + " did not become healthy");
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.load_test;
+
+import com.example.load_test.stub.LatencyDistribution;
+import com.example.load_test.stub.StubBehavior;
+import com.example.load_test.stub.StubServices;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings of a load test run, parsed from {@code --name=value} arguments.
+ * Every setting has a default, so a bare run drives an already running
+ * checkout on localhost with stubs standing in for its dependencies.
+ */
+public class LoadTestOptions {
+    static final String USAGE = String.join("\n",
+            "Usage: java -jar load-test.jar [--name=value ...]",
+            "",
+            "Load:",
+            "  --mode=open|closed            open: fixed arrival rate; closed: fixed number of users (open)",
+            "  --rate=50                     orders started per second in open mode",
+            "  --max-outstanding=1000        orders in flight at most in open mode",
+            "  --users=16                    concurrent users in closed mode",
+            "  --think-time-ms=0             mean think time between a user's orders in closed mode",
+            "  --duration=30s                measured run, after the warm up",
+            "  --warmup=10s                  load applied before measuring",
+            "  --timeout=30s                 per order",
+            "  --cart-size-mean=3            mean number of distinct products per order",
+            "  --catalog-size=9              products to pick from; above 9, synthetic IDs only the stub knows",
+            "  --histogram-log=FILE          write interval histograms of successful orders to FILE",
+            "",
+            "Checkout:",
+            "  --checkout-url=http://localhost:9557",
+            "  --checkout-jar=JAR            start checkout from JAR, wired to the stubs, and stop it afterwards",
+            "  --checkout-args='...'         extra arguments for the started checkout, e.g. Spring properties",
+            "",
+            "Stubs (SERVICE is one of cart, catalog, currency, shipping, payment, email):",
+            "  --stubs=true                  false to test against real services",
+            "  --SERVICE.latency=SPEC        constant:MS, uniform:MIN:MAX, exponential:MEAN or lognormal:MEDIAN:SIGMA",
+            "  --SERVICE.error-rate=0        fraction of calls that fail",
+            "  --SERVICE.error-status=503    status of failed calls",
+            "  --SERVICE.port=PORT           defaults to checkout's default port for the service");
+
+    private static final Set<String> NAMES = Set.of("mode", "rate", "max-outstanding", "users", "think-time-ms",
+            "duration", "warmup", "timeout", "cart-size-mean", "catalog-size", "histogram-log",
+            "checkout-url", "checkout-jar", "checkout-args", "stubs", "help");
+    private static final Set<String> STUB_SETTINGS = Set.of("latency", "error-rate", "error-status", "port");
+
+    private final Map<String, String> values;
+
+    private LoadTestOptions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            String name = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+            String value = eq < 0 ? "true" : arg.substring(eq + 1);
+            if (!NAMES.contains(name) && !isStubSetting(name)) {
+                throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+            values.put(name, value);
+        }
+        return new LoadTestOptions(values);
+    }
+
+    private static boolean isStubSetting(String name) {
+        int dot = name.indexOf('.');
+        return dot > 0 && StubServices.NAMES.contains(name.substring(0, dot))
+                && STUB_SETTINGS.contains(name.substring(dot + 1));
+    }
+
+    public boolean isHelp() {
+        return values.containsKey("help");
+    }
+
+    public boolean isOpenLoop() {
+        String mode = get("mode", "open");
+        if (!mode.equals("open") && !mode.equals("closed")) {
+            throw new IllegalArgumentException("Mode must be open or closed: " + mode);
+        }
+        return mode.equals("open");
+    }
+
+    public double getRate() {
+        return Double.parseDouble(get("rate", "50"));
+    }
+
+    public int getMaxOutstanding() {
+        return Integer.parseInt(get("max-outstanding", "1000"));
+    }
+
+    public int getUsers() {
+        return Integer.parseInt(get("users", "16"));
+    }
+
+    public double getThinkTimeMillis() {
+        return Double.parseDouble(get("think-time-ms", "0"));
+    }
+
+    public Duration getDuration() {
+        return duration(get("duration", "30s"));
+    }
+
+    public Duration getWarmup() {
+        return duration(get("warmup", "10s"));
+    }
+
+    public Duration getTimeout() {
+        return duration(get("timeout", "30s"));
+    }
+
+    public double getCartSizeMean() {
+        return Double.parseDouble(get("cart-size-mean", "3"));
+    }
+
+    public int getCatalogSize() {
+        return Integer.parseInt(get("catalog-size", "9"));
+    }
+
+    public String getHistogramLog() {
+        return values.get("histogram-log");
+    }
+
+    public String getCheckoutUrl() {
+        return get("checkout-url", "http://localhost:9557");
+    }
+
+    public String getCheckoutJar() {
+        return values.get("checkout-jar");
+    }
+
+    public String[] getCheckoutArgs() {
+        String args = get("checkout-args", "").trim();
+        return args.isEmpty() ? new String[0] : args.split("\\s+");
+    }
+
+    public boolean isStubs() {
+        return Boolean.parseBoolean(get("stubs", "true"));
+    }
+
+    public Map<String, StubBehavior> getStubBehaviors() {
+        Map<String, StubBehavior> behaviors = new LinkedHashMap<>();
+        for (String service : StubServices.NAMES) {
+            behaviors.put(service, new StubBehavior(
+                    LatencyDistribution.parse(get(service + ".latency", StubServices.DEFAULT_LATENCIES.get(service))),
+                    Double.parseDouble(get(service + ".error-rate", "0")),
+                    Integer.parseInt(get(service + ".error-status", "503"))));
+        }
+        return behaviors;
+    }
+
+    public Map<String, Integer> getStubPorts() {
+        Map<String, Integer> ports = new HashMap<>();
+        for (String service : StubServices.NAMES) {
+            ports.put(service, Integer.parseInt(get(service + ".port",
+                    String.valueOf(StubServices.DEFAULT_PORTS.get(service)))));
+        }
+        return ports;
+    }
+
+    // Accepts 30s, 2m, 500ms or a plain number of seconds
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    private String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+}
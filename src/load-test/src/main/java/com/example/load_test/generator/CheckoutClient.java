@@ -0,0 +1,72 @@
+package com.example.load_test.generator;
+
+import com.example.load_test.report.LatencyReport;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Places orders on the Checkout Service and records each response in the report.
+ */
+public class CheckoutClient {
+    // Recorded as the status of requests that got no HTTP response at all
+    public static final int NO_RESPONSE = 0;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final URI ordersUri;
+    private final Duration timeout;
+    private final OrderFactory orderFactory;
+    private final LatencyReport report;
+
+    public CheckoutClient(String checkoutUrl, Duration timeout, OrderFactory orderFactory, LatencyReport report) {
+        this.ordersUri = URI.create(checkoutUrl + "/api/v1/checkout/orders");
+        this.timeout = timeout;
+        this.orderFactory = orderFactory;
+        this.report = report;
+    }
+
+    /**
+     * Places one order and blocks until it completes. The latency is taken from the call.
+     */
+    public void placeOrder() {
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = httpClient.send(request(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            status = NO_RESPONSE;
+        }
+        report.record(System.nanoTime() - start, status);
+    }
+
+    /**
+     * Places one order without waiting. The latency is taken from {@code intendedStartNanos},
+     * which may be earlier than now if the generator fell behind its schedule.
+     */
+    public CompletableFuture<Void> placeOrderAsync(long intendedStartNanos) {
+        return httpClient.sendAsync(request(), HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    int status = response != null ? response.statusCode() : NO_RESPONSE;
+                    report.record(System.nanoTime() - intendedStartNanos, status);
+                    return null;
+                });
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(ordersUri)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(orderFactory.nextOrder()))
+                .build();
+    }
+}
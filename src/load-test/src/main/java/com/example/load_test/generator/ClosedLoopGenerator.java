@@ -0,0 +1,60 @@
+package com.example.load_test.generator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed number of users, each placing an order, waiting for the answer and
+ * thinking for an exponentially distributed time before the next one.
+ * Throughput falls as checkout slows down, so this measures the capacity at a
+ * given concurrency rather than latency under a given load.
+ */
+public class ClosedLoopGenerator implements LoadGenerator {
+    private final CheckoutClient client;
+    private final int users;
+    private final double meanThinkTimeMillis;
+
+    public ClosedLoopGenerator(CheckoutClient client, int users, double meanThinkTimeMillis) {
+        if (users < 1) {
+            throw new IllegalArgumentException("At least one user is needed: " + users);
+        }
+        this.client = client;
+        this.users = users;
+        this.meanThinkTimeMillis = meanThinkTimeMillis;
+    }
+
+    @Override
+    public void run(Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Thread> threads = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            Thread thread = new Thread(() -> user(deadline), "load-user-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private void user(long deadline) {
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            client.placeOrder();
+            if (meanThinkTimeMillis > 0) {
+                double thinkMillis = -meanThinkTimeMillis * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+                long thinkNanos = Math.min((long) (thinkMillis * 1_000_000), deadline - System.nanoTime());
+                if (thinkNanos > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(thinkNanos);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.load_test.generator;
+
+import java.time.Duration;
+
+/**
+ * Drives load against checkout for a fixed time.
+ */
+public interface LoadGenerator {
+
+    /**
+     * Generates load until {@code duration} has passed, then waits for outstanding requests.
+     */
+    void run(Duration duration) throws InterruptedException;
+}
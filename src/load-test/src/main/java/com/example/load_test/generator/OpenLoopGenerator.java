@@ -0,0 +1,56 @@
+package com.example.load_test.generator;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Starts orders at a fixed rate whether or not earlier ones have finished,
+ * like independent shoppers arriving. Each latency is measured from when the
+ * order was due to start, not from when it was sent, so a stall in checkout
+ * (or in the generator) shows up in the histogram instead of silently
+ * lowering the load, i.e. the results are free of coordinated omission.
+ * At most {@code maxOutstanding} orders are in flight; beyond that the
+ * generator waits, and the wait counts towards the latency of later orders.
+ */
+public class OpenLoopGenerator implements LoadGenerator {
+    private final CheckoutClient client;
+    private final double ratePerSecond;
+    private final int maxOutstanding;
+
+    public OpenLoopGenerator(CheckoutClient client, double ratePerSecond, int maxOutstanding) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + ratePerSecond);
+        }
+        this.client = client;
+        this.ratePerSecond = ratePerSecond;
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    @Override
+    public void run(Duration duration) throws InterruptedException {
+        Semaphore outstanding = new Semaphore(maxOutstanding);
+        double intervalNanos = 1_000_000_000.0 / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intendedStart = start + (long) (i * intervalNanos);
+            if (intendedStart - end >= 0) {
+                break;
+            }
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            outstanding.acquire();
+            client.placeOrderAsync(intendedStart).whenComplete((ignored, error) -> outstanding.release());
+        }
+
+        // Let the orders still in flight finish so that they are counted
+        if (outstanding.tryAcquire(maxOutstanding, 60, TimeUnit.SECONDS)) {
+            outstanding.release(maxOutstanding);
+        }
+    }
+}
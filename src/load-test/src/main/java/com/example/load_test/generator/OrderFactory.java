@@ -0,0 +1,108 @@
+package com.example.load_test.generator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds PlaceOrder request bodies with realistic carts: the number of
+ * distinct products is geometric around a mean (most carts are small, a
+ * few are large), each line has a quantity of 1 to 3, and the user's
+ * currency follows a fixed mix dominated by USD.
+ */
+public class OrderFactory {
+    // The products shipped with the Product Catalog Service
+    static final List<String> CATALOG_PRODUCTS = List.of(
+            "OLJCESPC7Z", "66VCHSJNUP", "1YMWWN1N4O", "L9ECAV7KIM", "2ZYFJ3GM2N",
+            "0PUK6V6EV0", "LS4PSXUNUM", "9SIQT8TOJO", "6E92ZMYYFZ");
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "JPY", "GBP"};
+    private static final double[] CURRENCY_WEIGHTS = {0.6, 0.25, 0.1, 0.05};
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<String> products;
+    private final double cartSizeMean;
+
+    /**
+     * @param catalogSize  products to draw from; beyond the real catalog,
+     *                     synthetic IDs that only the stub catalog knows are added
+     * @param cartSizeMean mean number of distinct products per order
+     */
+    public OrderFactory(int catalogSize, double cartSizeMean) {
+        if (cartSizeMean < 1) {
+            throw new IllegalArgumentException("Mean cart size must be at least 1: " + cartSizeMean);
+        }
+        List<String> products = new ArrayList<>(CATALOG_PRODUCTS.subList(0, Math.min(catalogSize, CATALOG_PRODUCTS.size())));
+        for (int i = products.size(); i < catalogSize; i++) {
+            products.add(String.format("LOADTEST%05d", i));
+        }
+        this.products = List.copyOf(products);
+        this.cartSizeMean = cartSizeMean;
+    }
+
+    public byte[] nextOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int lines = Math.min(cartSize(random), products.size());
+
+        Set<String> picked = new LinkedHashSet<>();
+        while (picked.size() < lines) {
+            picked.add(products.get(random.nextInt(products.size())));
+        }
+        List<Map<String, Object>> items = new ArrayList<>(lines);
+        for (String productId : picked) {
+            items.add(Map.of("productId", productId, "quantity", 1 + random.nextInt(3)));
+        }
+
+        String userId = "load-" + random.nextInt(1_000_000);
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("userId", userId);
+        order.put("userCurrency", currency(random));
+        order.put("email", userId + "@example.com");
+        order.put("address", Map.of(
+                "streetAddress", "1600 Amphitheatre Parkway",
+                "city", "Mountain View",
+                "state", "CA",
+                "country", "United States",
+                "zipCode", 94043));
+        order.put("creditCard", Map.of(
+                "creditCardNumber", "4432801561520454",
+                "creditCardCvv", 672,
+                "creditCardExpirationYear", 2030,
+                "creditCardExpirationMonth", 1));
+        order.put("items", items);
+
+        try {
+            return mapper.writeValueAsBytes(order);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Geometric on 1, 2, 3, ... with the configured mean
+    private int cartSize(ThreadLocalRandom random) {
+        double p = 1 / cartSizeMean;
+        if (p >= 1) {
+            return 1;
+        }
+        return 1 + (int) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+    }
+
+    private static String currency(ThreadLocalRandom random) {
+        double r = random.nextDouble();
+        for (int i = 0; i < CURRENCIES.length - 1; i++) {
+            r -= CURRENCY_WEIGHTS[i];
+            if (r < 0) {
+                return CURRENCIES[i];
+            }
+        }
+        return CURRENCIES[CURRENCIES.length - 1];
+    }
+}
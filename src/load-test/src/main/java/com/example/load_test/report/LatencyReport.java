@@ -0,0 +1,165 @@
+package com.example.load_test.report;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects order latencies in HDR histograms and prints a line per interval
+ * and a summary at the end. Latencies of successful (2xx) orders and of
+ * failed ones are kept apart, so that fast failures such as an open circuit
+ * breaker cannot make checkout look quicker than it is. Recording is lock
+ * free and safe from any thread.
+ */
+public class LatencyReport {
+    // One microsecond to one minute at three significant digits
+    private static final long LOWEST_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final PrintStream out;
+    private final Recorder successes = new Recorder(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+    private final Recorder failures = new Recorder(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final HistogramLogWriter logWriter;
+
+    private Histogram successInterval;
+    private Histogram failureInterval;
+    private final Histogram successTotal = new Histogram(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+    private final Histogram failureTotal = new Histogram(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+    private long measureStartMillis;
+    private long lastIntervalMillis;
+    private boolean measuring;
+
+    /**
+     * @param histogramLog file to write each interval's histogram of successful orders to,
+     *                     readable with HdrHistogram's HistogramLogProcessor; null for none
+     */
+    public LatencyReport(PrintStream out, String histogramLog) throws FileNotFoundException {
+        this.out = out;
+        this.logWriter = histogramLog != null ? new HistogramLogWriter(histogramLog) : null;
+        this.lastIntervalMillis = System.currentTimeMillis();
+    }
+
+    public void record(long latencyNanos, int status) {
+        long value = Math.min(Math.max(latencyNanos, LOWEST_NANOS), HIGHEST_NANOS);
+        if (status >= 200 && status < 300) {
+            successes.recordValue(value);
+        } else {
+            failures.recordValue(value);
+        }
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    /**
+     * Discards what was recorded so far, e.g. during warm up, and starts the measured run.
+     */
+    public synchronized void startMeasuring() {
+        successInterval = successes.getIntervalHistogram(successInterval);
+        failureInterval = failures.getIntervalHistogram(failureInterval);
+        statuses.clear();
+        measureStartMillis = System.currentTimeMillis();
+        lastIntervalMillis = measureStartMillis;
+        measuring = true;
+
+        if (logWriter != null) {
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(measureStartMillis);
+            logWriter.setBaseTime(measureStartMillis);
+            logWriter.outputLegend();
+        }
+        out.printf("%8s %9s %9s %9s %9s %9s %9s %8s%n",
+                "time(s)", "ok/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "failed");
+    }
+
+    /**
+     * Closes the current interval and prints a line for it. Called about once a second.
+     */
+    public synchronized void interval() {
+        long now = System.currentTimeMillis();
+        successInterval = successes.getIntervalHistogram(successInterval);
+        failureInterval = failures.getIntervalHistogram(failureInterval);
+        successInterval.setStartTimeStamp(lastIntervalMillis);
+        successInterval.setEndTimeStamp(now);
+        double seconds = Math.max(now - lastIntervalMillis, 1) / 1000.0;
+        lastIntervalMillis = now;
+        if (!measuring) {
+            return;
+        }
+
+        successTotal.add(successInterval);
+        failureTotal.add(failureInterval);
+        if (logWriter != null) {
+            logWriter.outputIntervalHistogram(successInterval);
+        }
+        out.printf("%8.1f %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8d%n",
+                (now - measureStartMillis) / 1000.0,
+                successInterval.getTotalCount() / seconds,
+                millis(successInterval.getValueAtPercentile(50)),
+                millis(successInterval.getValueAtPercentile(90)),
+                millis(successInterval.getValueAtPercentile(99)),
+                millis(successInterval.getValueAtPercentile(99.9)),
+                millis(successInterval.getMaxValue()),
+                failureInterval.getTotalCount());
+    }
+
+    /**
+     * Closes the last interval and prints throughput, latency percentiles and failures of the measured run.
+     */
+    public synchronized void summary() {
+        interval();
+        double seconds = Math.max(lastIntervalMillis - measureStartMillis, 1) / 1000.0;
+        long ok = successTotal.getTotalCount();
+        long failed = failureTotal.getTotalCount();
+
+        out.println();
+        out.printf("Orders: %d ok, %d failed in %.1f s (%.1f ok/s, %.2f%% failed)%n",
+                ok, failed, seconds, ok / seconds, ok + failed == 0 ? 0.0 : 100.0 * failed / (ok + failed));
+        printLatencies("Latency of successful orders", successTotal);
+        if (failed > 0) {
+            printLatencies("Latency of failed orders", failureTotal);
+            out.println("Responses by status (0 = no response):");
+            for (Map.Entry<Integer, LongAdder> status : new TreeMap<>(statuses).entrySet()) {
+                out.printf("  %3d: %d%n", status.getKey(), status.getValue().sum());
+            }
+        }
+        if (logWriter != null) {
+            logWriter.close();
+        }
+    }
+
+    public Histogram getSuccessTotal() {
+        return successTotal;
+    }
+
+    private void printLatencies(String title, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        out.printf("%s (ms):%n", title);
+        StringBuilder line = new StringBuilder("  mean=").append(format(histogram.getMean()));
+        for (double percentile : PERCENTILES) {
+            line.append(" p").append(percentile == (long) percentile ? String.valueOf((long) percentile) : String.valueOf(percentile))
+                    .append('=').append(format(histogram.getValueAtPercentile(percentile)));
+        }
+        line.append(" max=").append(format(histogram.getMaxValue()));
+        out.println(line);
+    }
+
+    private static String format(double nanos) {
+        return String.format("%.2f", millis(nanos));
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.load_test.stub;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How long a stub waits before it answers. Parsed from specs such as
+ * {@code constant:5}, {@code uniform:2:10}, {@code exponential:8} (mean) or
+ * {@code lognormal:20:0.5} (median and sigma), all in milliseconds.
+ */
+public abstract class LatencyDistribution {
+
+    public abstract double sampleMillis(ThreadLocalRandom random);
+
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            switch (parts[0]) {
+                case "constant":
+                    return constant(Double.parseDouble(parts[1]));
+                case "uniform":
+                    return uniform(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                case "exponential":
+                    return exponential(Double.parseDouble(parts[1]));
+                case "lognormal":
+                    return lognormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+        }
+    }
+
+    public static LatencyDistribution constant(double millis) {
+        return describe("constant:" + millis, random -> millis);
+    }
+
+    public static LatencyDistribution uniform(double minMillis, double maxMillis) {
+        return describe("uniform:" + minMillis + ":" + maxMillis,
+                random -> minMillis + random.nextDouble() * (maxMillis - minMillis));
+    }
+
+    public static LatencyDistribution exponential(double meanMillis) {
+        return describe("exponential:" + meanMillis, random -> -meanMillis * Math.log(1 - random.nextDouble()));
+    }
+
+    // A long right tail like real service latencies: most calls near the median, a few far slower
+    public static LatencyDistribution lognormal(double medianMillis, double sigma) {
+        double mu = Math.log(medianMillis);
+        return describe("lognormal:" + medianMillis + ":" + sigma,
+                random -> Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    private static LatencyDistribution describe(String description, Sampler sampler) {
+        return new LatencyDistribution() {
+            @Override
+            public double sampleMillis(ThreadLocalRandom random) {
+                return sampler.sample(random);
+            }
+
+            @Override
+            public String toString() {
+                return description;
+            }
+        };
+    }
+
+    private interface Sampler {
+        double sample(ThreadLocalRandom random);
+    }
+}
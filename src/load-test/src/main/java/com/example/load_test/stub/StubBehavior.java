@@ -0,0 +1,39 @@
+package com.example.load_test.stub;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency and failures of one stub service. A failed call still waits for
+ * its sampled latency before answering with the error status.
+ */
+public class StubBehavior {
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final int errorStatus;
+
+    public StubBehavior(LatencyDistribution latency, double errorRate, int errorStatus) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1: " + errorRate);
+        }
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+    }
+
+    public long sampleDelayNanos() {
+        return Math.max(0, (long) (latency.sampleMillis(ThreadLocalRandom.current()) * 1_000_000));
+    }
+
+    public boolean sampleFailure() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    @Override
+    public String toString() {
+        return "latency=" + latency + " errorRate=" + errorRate + " errorStatus=" + errorStatus;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.load_test.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The parts of an incoming request the stub handlers look at.
+ */
+public class StubRequest {
+    private final String method;
+    private final String path;
+    private final Map<String, String> query;
+    private final byte[] body;
+    private final HttpExchange exchange;
+
+    StubRequest(HttpExchange exchange) throws IOException {
+        this.exchange = exchange;
+        this.method = exchange.getRequestMethod();
+        this.path = exchange.getRequestURI().getPath();
+        this.query = parseQuery(exchange.getRequestURI().getRawQuery());
+        this.body = exchange.getRequestBody().readAllBytes();
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getQueryParam(String name) {
+        return query.get(name);
+    }
+
+    public String getHeader(String name) {
+        return exchange.getRequestHeaders().getFirst(name);
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+}
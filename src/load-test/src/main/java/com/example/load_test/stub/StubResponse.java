@@ -0,0 +1,39 @@
+package com.example.load_test.stub;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Status, headers and body a stub answers with.
+ */
+public class StubResponse {
+    private final int status;
+    private final byte[] body;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    public StubResponse(int status, byte[] body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    public static StubResponse empty(int status) {
+        return new StubResponse(status, new byte[0]);
+    }
+
+    public StubResponse header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+}
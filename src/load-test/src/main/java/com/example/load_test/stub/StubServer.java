@@ -0,0 +1,153 @@
+package com.example.load_test.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One downstream service played by an embedded HTTP server.
+ * Requests are handled at once and their responses scheduled after the
+ * sampled latency, so a slow stub holds no thread while it "works" and
+ * thousands of calls can be outstanding at the same time. A request whose
+ * X-Request-Deadline has passed on arrival is answered with 504 at once.
+ */
+public class StubServer {
+
+    /**
+     * Produces the response of a successful call.
+     */
+    public interface Handler {
+        StubResponse handle(StubRequest request) throws IOException;
+    }
+
+    private static final byte[] INJECTED_FAILURE =
+            "{\"error\":\"Injected failure\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DEADLINE_EXCEEDED =
+            "{\"error\":\"Request deadline has already passed\"}".getBytes(StandardCharsets.UTF_8);
+    private static final String DEADLINE_HEADER = "X-Request-Deadline";
+
+    private final String name;
+    private final StubBehavior behavior;
+    private final Handler handler;
+    private final ScheduledExecutorService scheduler;
+    private final HttpServer server;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public StubServer(String name, int port, StubBehavior behavior, Handler handler,
+                      ExecutorService workers, ScheduledExecutorService scheduler) throws IOException {
+        this.name = name;
+        this.behavior = behavior;
+        this.handler = handler;
+        this.scheduler = scheduler;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(workers);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public StubBehavior getBehavior() {
+        return behavior;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    private void handle(HttpExchange exchange) {
+        calls.increment();
+        long delayNanos = behavior.sampleDelayNanos();
+
+        StubResponse response;
+        try {
+            // Like the real services, refuse work whose caller has given up
+            if (isExpired(exchange)) {
+                expired.increment();
+                exchange.getRequestBody().readAllBytes();
+                send(exchange, new StubResponse(504, DEADLINE_EXCEEDED).header("Content-Type", "application/json"));
+                return;
+            }
+            if (behavior.sampleFailure()) {
+                failures.increment();
+                exchange.getRequestBody().readAllBytes();
+                response = new StubResponse(behavior.getErrorStatus(), INJECTED_FAILURE)
+                        .header("Content-Type", "application/json");
+            } else {
+                response = handler.handle(new StubRequest(exchange));
+            }
+        } catch (IOException | RuntimeException e) {
+            response = new StubResponse(500, String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        StubResponse reply = response;
+        if (delayNanos == 0) {
+            send(exchange, reply);
+        } else {
+            scheduler.schedule(() -> send(exchange, reply), delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static boolean isExpired(HttpExchange exchange) {
+        String deadline = exchange.getRequestHeaders().getFirst(DEADLINE_HEADER);
+        if (deadline == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(deadline.trim()) <= System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static void send(HttpExchange exchange, StubResponse response) {
+        try {
+            for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+                exchange.getResponseHeaders().add(header.getKey(), header.getValue());
+            }
+            byte[] body = response.getBody();
+            exchange.sendResponseHeaders(response.getStatus(), body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } catch (IOException e) {
+            // The caller gave up on the request, e.g. after its own timeout
+        } finally {
+            exchange.close();
+        }
+    }
+}
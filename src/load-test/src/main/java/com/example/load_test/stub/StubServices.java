@@ -0,0 +1,235 @@
+package com.example.load_test.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The six services checkout calls, played by stubs that speak just enough of
+ * each real API for an order to go through: cart, product catalog, currency,
+ * shipping, payment and email. Like the real services, they read Smile bodies
+ * and answer in Smile when it is asked for.
+ */
+public class StubServices {
+    public static final List<String> NAMES = List.of("cart", "catalog", "currency", "shipping", "payment", "email");
+
+    // Checkout's default service URLs, so a locally started checkout finds the stubs unchanged
+    public static final Map<String, Integer> DEFAULT_PORTS = Map.of(
+            "cart", 9556, "currency", 9558, "email", 9559, "payment", 9560, "catalog", 9561, "shipping", 9563);
+
+    // The environment variable checkout reads each service URL from
+    public static final Map<String, String> URL_VARIABLES = Map.of(
+            "cart", "CART_SERVICE_URL", "currency", "CURRENCY_SERVICE_URL", "email", "EMAIL_SERVICE_URL",
+            "payment", "PAYMENT_SERVICE_URL", "catalog", "PRODUCT_SERVICE_URL", "shipping", "SHIPPING_SERVICE_URL");
+
+    // Payment and email are the slow calls in the real system
+    public static final Map<String, String> DEFAULT_LATENCIES = Map.of(
+            "cart", "lognormal:2:0.5", "catalog", "lognormal:3:0.5", "currency", "lognormal:2:0.5",
+            "shipping", "lognormal:5:0.6", "payment", "lognormal:40:0.5", "email", "lognormal:15:0.5");
+
+    private static final String CATALOG_VERSION = "load-test-1";
+    private static final String RATES_VERSION = "load-test-1";
+
+    // EUR based, like the Currency Service
+    private static final Map<String, Double> RATES = Map.of(
+            "EUR", 1.0, "USD", 1.1305, "JPY", 163.41, "GBP", 0.8563, "CAD", 1.5295, "TRY", 36.1);
+
+    private static final String SMILE = "application/x-jackson-smile";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private final ExecutorService workers = Executors.newFixedThreadPool(4);
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final List<StubServer> servers = new ArrayList<>();
+
+    public StubServices(Map<String, StubBehavior> behaviors, Map<String, Integer> ports) throws IOException {
+        for (String name : NAMES) {
+            servers.add(new StubServer(name, ports.get(name), behaviors.get(name), handler(name), workers, scheduler));
+        }
+    }
+
+    public void start() {
+        servers.forEach(StubServer::start);
+    }
+
+    public void stop() {
+        servers.forEach(StubServer::stop);
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    public List<StubServer> getServers() {
+        return servers;
+    }
+
+    private StubServer.Handler handler(String name) {
+        switch (name) {
+            case "cart":
+                return this::cart;
+            case "catalog":
+                return this::catalog;
+            case "currency":
+                return this::currency;
+            case "shipping":
+                return this::shipping;
+            case "payment":
+                return request -> reply(request, Map.of("transactionId", UUID.randomUUID().toString()));
+            case "email":
+                return request -> new StubResponse(200, "Order confirmation sent".getBytes(StandardCharsets.UTF_8))
+                        .header("Content-Type", "text/plain");
+            default:
+                throw new IllegalArgumentException("Unknown stub service: " + name);
+        }
+    }
+
+    private StubResponse cart(StubRequest request) throws IOException {
+        if (!request.getPath().startsWith("/api/v1/carts/")) {
+            return StubResponse.empty(404);
+        }
+        if ("DELETE".equals(request.getMethod())) {
+            return StubResponse.empty(200);
+        }
+        // Checkout takes the items from the order itself and only empties the cart
+        return reply(request, List.of());
+    }
+
+    private StubResponse catalog(StubRequest request) throws IOException {
+        String path = request.getPath();
+        if (path.equals("/api/v1/products/version")) {
+            return reply(request, Map.of("version", CATALOG_VERSION)).header("X-Catalog-Version", CATALOG_VERSION);
+        }
+        if (path.equals("/api/v1/products/batch")) {
+            Set<String> fields = fields(request);
+            List<Map<String, Object>> products = new ArrayList<>();
+            for (JsonNode id : read(request)) {
+                Map<String, Object> product = product(id.asText());
+                if (fields != null) {
+                    product.keySet().retainAll(fields);
+                }
+                products.add(product);
+            }
+            return reply(request, Map.of("products", products)).header("X-Catalog-Version", CATALOG_VERSION);
+        }
+        if (path.startsWith("/api/v1/products/")) {
+            return reply(request, product(path.substring("/api/v1/products/".length())))
+                    .header("X-Catalog-Version", CATALOG_VERSION);
+        }
+        return StubResponse.empty(404);
+    }
+
+    private StubResponse currency(StubRequest request) throws IOException {
+        switch (request.getPath()) {
+            case "/api/v1/rates": {
+                String etag = "\"" + RATES_VERSION + "\"";
+                if (etag.equals(request.getHeader("If-None-Match"))) {
+                    return StubResponse.empty(304).header("ETag", etag);
+                }
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("version", RATES_VERSION);
+                body.put("base", "EUR");
+                body.put("rates", RATES);
+                return reply(request, body).header("ETag", etag);
+            }
+            case "/api/v1/convert": {
+                String from = request.getQueryParam("from");
+                String to = request.getQueryParam("to");
+                double amount = Double.parseDouble(request.getQueryParam("amount"));
+                return reply(request, conversion(from, to, amount));
+            }
+            case "/api/v1/convert/batch": {
+                JsonNode body = read(request);
+                String to = body.path("to").asText();
+                List<Map<String, Object>> results = new ArrayList<>();
+                for (JsonNode item : body.path("items")) {
+                    results.add(conversion(item.path("from").asText(), to, item.path("amount").asDouble()));
+                }
+                return reply(request, Map.of("to", to, "results", results));
+            }
+            default:
+                return StubResponse.empty(404);
+        }
+    }
+
+    private StubResponse shipping(StubRequest request) throws IOException {
+        switch (request.getPath()) {
+            case "/api/v1/shipping/quote":
+                return reply(request, Map.of("costUsd", money(8, 990_000_000)));
+            case "/api/v1/shipping/ship":
+                return reply(request, Map.of("trackingId", "LT-" + UUID.randomUUID()));
+            default:
+                return StubResponse.empty(404);
+        }
+    }
+
+    // Like the catalog, the ID is always sent whatever fields are asked for
+    private static Set<String> fields(StubRequest request) {
+        String fields = request.getQueryParam("fields");
+        if (fields == null) {
+            return null;
+        }
+        Set<String> names = new HashSet<>(Arrays.asList(fields.split(",")));
+        names.add("id");
+        return names;
+    }
+
+    // Prices are derived from the ID so that any product, real or synthetic, has a stable price
+    private static Map<String, Object> product(String id) {
+        int hash = id.hashCode() & Integer.MAX_VALUE;
+        Map<String, Object> product = new LinkedHashMap<>();
+        product.put("id", id);
+        product.put("name", "Product " + id);
+        product.put("description", "Load test product");
+        product.put("picture", "/static/img/products/" + id + ".jpg");
+        product.put("priceUsd", money(1 + hash % 200, (hash % 100) * 10_000_000));
+        product.put("categories", List.of("load-test"));
+        return product;
+    }
+
+    private static Map<String, Object> conversion(String from, String to, double amount) {
+        Double fromRate = RATES.get(from.toUpperCase());
+        Double toRate = RATES.get(to.toUpperCase());
+        if (fromRate == null || toRate == null) {
+            throw new IllegalArgumentException("Unsupported currency: " + from + " or " + to);
+        }
+        // The Currency Service rounds results to 0.0001
+        double result = Math.round(amount / fromRate * toRate * 10_000.0) / 10_000.0;
+        Map<String, Object> conversion = new LinkedHashMap<>();
+        conversion.put("from", from);
+        conversion.put("to", to);
+        conversion.put("amount", amount);
+        conversion.put("result", result);
+        return conversion;
+    }
+
+    private static Map<String, Object> money(long units, int nanos) {
+        return Map.of("currencyCode", "USD", "units", units, "nanos", nanos);
+    }
+
+    private JsonNode read(StubRequest request) throws IOException {
+        String contentType = request.getHeader("Content-Type");
+        boolean smile = contentType != null && contentType.startsWith(SMILE);
+        return (smile ? smileMapper : mapper).readTree(request.getBody());
+    }
+
+    private StubResponse reply(StubRequest request, Object body) throws IOException {
+        String accept = request.getHeader("Accept");
+        if (accept != null && accept.contains(SMILE)) {
+            return new StubResponse(200, smileMapper.writeValueAsBytes(body)).header("Content-Type", SMILE);
+        }
+        return new StubResponse(200, mapper.writeValueAsBytes(body)).header("Content-Type", "application/json");
+    }
+}
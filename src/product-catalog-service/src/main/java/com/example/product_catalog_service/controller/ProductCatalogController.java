@@ -16,6 +16,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -23,6 +24,9 @@ public class ProductCatalogController {
     
     private static final Logger logger = LoggerFactory.getLogger(ProductCatalogController.class);
     
+    // Sent on product responses so callers can tell when cached products went stale
+    static final String CATALOG_VERSION_HEADER = "X-Catalog-Version";
+    
     private final ProductCatalogService productCatalogService;
     
     public ProductCatalogController(ProductCatalogService productCatalogService) {
@@ -45,8 +49,9 @@ public class ProductCatalogController {
         endpoints.put("GET /api/v1/health", "Health check");
         endpoints.put("GET /api/v1/products", "List all products");
         endpoints.put("GET /api/v1/products/{id}", "Get product by ID");
-        endpoints.put("POST /api/v1/products/batch", "Get multiple products by IDs");
+        endpoints.put("POST /api/v1/products/batch", "Get multiple products by IDs (query: fields)");
         endpoints.put("GET /api/v1/products/search", "Search products (query: q)");
+        endpoints.put("GET /api/v1/products/version", "Current catalog version");
         
         info.put("endpoints", endpoints);
         
@@ -60,7 +65,9 @@ public class ProductCatalogController {
     @GetMapping("/products")
     public ResponseEntity<ListProductsResponse> listProducts() throws IOException {
         ListProductsResponse response = productCatalogService.listProducts();
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+            .header(CATALOG_VERSION_HEADER, productCatalogService.getCatalogVersion())
+            .body(response);
     }
     
     /**
@@ -70,15 +77,18 @@ public class ProductCatalogController {
     @GetMapping("/products/{id}")
     public ResponseEntity<Product> getProduct(@PathVariable String id) throws IOException {
         Product product = productCatalogService.getProduct(id);
-        return ResponseEntity.ok(product);
+        return ResponseEntity.ok()
+            .header(CATALOG_VERSION_HEADER, productCatalogService.getCatalogVersion())
+            .body(product);
     }
 
     /**
-     * POST /api/v1/products/batch
-     * Get multiple products by their IDs
+     * POST /api/v1/products/batch?fields=id,priceUsd
+     * Get multiple products by their IDs, optionally with only some of their fields
      */
     @PostMapping("/products/batch")
-    public ResponseEntity<ListProductsResponse> getProductsByIds(@RequestBody List<String> ids) throws IOException {
+    public ResponseEntity<ListProductsResponse> getProductsByIds(@RequestBody List<String> ids,
+            @RequestParam(value = "fields", required = false) Set<String> fields) throws IOException {
         if (ids == null || ids.isEmpty()) {
             throw new IllegalArgumentException("Product IDs list cannot be empty");
         }
@@ -88,8 +98,24 @@ public class ProductCatalogController {
         }
         
         logger.info("Batch product request for {} IDs", ids.size());
-        ListProductsResponse response = productCatalogService.getProductsById(ids);
-        return ResponseEntity.ok(response);
+        ListProductsResponse response = productCatalogService.getProductsById(ids, fields);
+        return ResponseEntity.ok()
+            .header(CATALOG_VERSION_HEADER, productCatalogService.getCatalogVersion())
+            .body(response);
+    }
+    
+    /**
+     * GET /api/v1/products/version
+     * Current catalog version, for callers that cache products and poll for changes
+     */
+    @GetMapping("/products/version")
+    public ResponseEntity<Map<String, String>> getCatalogVersion() throws IOException {
+        String version = productCatalogService.getCatalogVersion();
+        Map<String, String> body = new HashMap<>();
+        body.put("version", version);
+        return ResponseEntity.ok()
+            .header(CATALOG_VERSION_HEADER, version)
+            .body(body);
     }
     
     /**
@@ -0,0 +1,18 @@
+package com.example.product_catalog_service.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * A product cut down to the fields a ?fields= projection asked for. The
+ * fields left out are null and not sent; a full Product still sends them.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProjectedProduct extends Product {
+
+    public ProjectedProduct(String id, String name, String description, String picture,
+                            Money priceUsd, List<String> categories) {
+        super(id, name, description, picture, priceUsd, categories);
+    }
+}
@@ -4,14 +4,20 @@ import com.example.product_catalog_service.dto.ListProductsResponse;
 import com.example.product_catalog_service.dto.SearchProductsResponse;
 import com.example.product_catalog_service.exception.ProductNotFoundException;
 import com.example.product_catalog_service.model.Product;
+import com.example.product_catalog_service.model.ProjectedProduct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,10 +25,16 @@ public class ProductCatalogService {
     
     private static final Logger logger = LoggerFactory.getLogger(ProductCatalogService.class);
     
+    // Product fields a caller can ask for; the ID is always sent
+    private static final Set<String> PRODUCT_FIELDS = Set.of("id", "name", "description", "picture", "priceUsd", "categories");
+    
     private final CatalogLoader catalogLoader;
     
     private ListProductsResponse catalog;
     
+    // Changes whenever any product in the catalog changes, so callers can cache products by it
+    private volatile String catalogVersion;
+    
     public ProductCatalogService(CatalogLoader catalogLoader) {
         this.catalogLoader = catalogLoader;
         this.catalog = new ListProductsResponse(new ArrayList<>());
@@ -37,7 +49,8 @@ public class ProductCatalogService {
         
         // Load initial catalog
         this.catalog = catalogLoader.loadCatalog();
-        logger.info("Catalog initialized with {} products", catalog.getProducts().size());
+        this.catalogVersion = computeVersion(catalog.getProducts());
+        logger.info("Catalog initialized with {} products (version {})", catalog.getProducts().size(), catalogVersion);
     }
      
     /**
@@ -46,10 +59,19 @@ public class ProductCatalogService {
     private List<Product> getCatalog() throws IOException {
         if (catalog.getProducts().isEmpty()) {
             catalog = catalogLoader.loadCatalog();
+            catalogVersion = computeVersion(catalog.getProducts());
         }
         return catalog.getProducts();
     }
     
+    /**
+     * Version of the loaded catalog, a short hash over every product
+     */
+    public String getCatalogVersion() throws IOException {
+        getCatalog();
+        return catalogVersion;
+    }
+    
     /**
      * List all products
      */
@@ -91,6 +113,27 @@ public class ProductCatalogService {
         
         return new ListProductsResponse(foundProducts);
     }
+
+    /**
+     * Get multiple products by their IDs, with only the given fields when any are given
+     */
+    public ListProductsResponse getProductsById(List<String> ids, Set<String> fields) throws IOException {
+        ListProductsResponse response = getProductsById(ids);
+        if (fields == null || fields.isEmpty()) {
+            return response;
+        }
+        
+        for (String field : fields) {
+            if (!PRODUCT_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown product field: " + field);
+            }
+        }
+        
+        List<Product> projected = response.getProducts().stream()
+            .map(product -> project(product, fields))
+            .collect(Collectors.toList());
+        return new ListProductsResponse(projected);
+    }
     
     /**
      * Search products by query (case-insensitive search in name and description)
@@ -108,4 +151,38 @@ public class ProductCatalogService {
         
         return new SearchProductsResponse(results);
     }
-}
\ No newline at end of file
+    
+    // A copy with the other fields left null, so the catalog itself is never changed
+    private static Product project(Product product, Set<String> fields) {
+        return new ProjectedProduct(
+            product.getId(),
+            fields.contains("name") ? product.getName() : null,
+            fields.contains("description") ? product.getDescription() : null,
+            fields.contains("picture") ? product.getPicture() : null,
+            fields.contains("priceUsd") ? product.getPriceUsd() : null,
+            fields.contains("categories") ? product.getCategories() : null);
+    }
+    
+    private String computeVersion(List<Product> products) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Product product : products) {
+                StringBuilder line = new StringBuilder()
+                    .append(product.getId()).append('|')
+                    .append(product.getName()).append('|')
+                    .append(product.getDescription()).append('|')
+                    .append(product.getPicture()).append('|')
+                    .append(product.getCategories()).append('|');
+                if (product.getPriceUsd() != null) {
+                    line.append(product.getPriceUsd().getCurrencyCode()).append(' ')
+                        .append(product.getPriceUsd().getUnits()).append('.')
+                        .append(product.getPriceUsd().getNanos());
+                }
+                digest.update(line.append(';').toString().getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
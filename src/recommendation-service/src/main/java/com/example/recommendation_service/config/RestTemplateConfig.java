@@ -1,22 +1,109 @@
 package com.example.recommendation_service.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
 /**
  * Configuration class for REST clients.
+ * Connections are pooled and kept alive per destination, with bounded
+ * connect, lease and read timeouts. When http.client.http2 is set the JDK
+ * client is used instead, multiplexing requests over one connection per host.
  */
 @Configuration
 public class RestTemplateConfig {
-    
+    private static final Logger logger = LoggerFactory.getLogger(RestTemplateConfig.class);
+
+    private final HttpClientProperties properties;
+
+    public RestTemplateConfig(HttpClientProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public PoolingHttpClientConnectionManager httpConnectionManager(MeterRegistry meterRegistry, Environment env) {
+        MeteredConnectionManager connectionManager = new MeteredConnectionManager(meterRegistry);
+        connectionManager.setMaxTotal(properties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(properties.getConnectTimeoutMs()))
+                .setSocketTimeout(Timeout.ofMilliseconds(properties.getReadTimeoutMs()))
+                .build());
+
+        for (Map.Entry<String, Integer> limit : properties.getRouteLimits().entrySet()) {
+            String url = env.getProperty("services." + limit.getKey() + ".url");
+            if (url == null) {
+                logger.warn("Ignoring pool limit for unknown service '{}'", limit.getKey());
+                continue;
+            }
+            HttpHost host = HttpHost.create(URI.create(url));
+            connectionManager.setMaxPerRoute(new HttpRoute(host), limit.getValue());
+        }
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "downstream").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(properties.getLeaseTimeoutMs()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(properties.getReadTimeoutMs()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(properties.getIdleTimeoutMs()))
+                .build();
+    }
+
     /**
      * Creates a RestTemplate bean for making HTTP requests.
      *
+     * @param builder the Boot-configured builder, so metrics and observation apply
+     * @param httpClient the pooled HTTP client
      * @return the RestTemplate bean
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient) {
+        ClientHttpRequestFactory requestFactory;
+        if (properties.isHttp2()) {
+            HttpClient jdkClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofMillis(properties.getConnectTimeoutMs()))
+                    .build();
+            JdkClientHttpRequestFactory jdkFactory = new JdkClientHttpRequestFactory(jdkClient);
+            jdkFactory.setReadTimeout(Duration.ofMillis(properties.getReadTimeoutMs()));
+            requestFactory = jdkFactory;
+        } else {
+            requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        }
+
+        logger.info("Downstream HTTP client: {} (max {} connections, {} per route)",
+                properties.isHttp2() ? "HTTP/2" : "pooled HTTP/1.1", properties.getMaxTotal(), properties.getMaxPerRoute());
+        return builder.requestFactory(() -> requestFactory).build();
     }
-}
\ No newline at end of file
+}